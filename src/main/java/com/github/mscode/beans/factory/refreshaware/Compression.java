@@ -0,0 +1,229 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import com.github.luben.zstd.ZstdInputStream;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compression formats which can be decoded
+ * on the fly while instance is being created.
+ * <p>
+ * {@link #ZSTD} requires {@code com.github.luben:zstd-jni}
+ * and {@link #LZ4} requires {@code org.lz4:lz4-java}
+ * to be present on the classpath.
+ */
+public enum Compression {
+
+    NONE(null, null) {
+        @Override
+        public InputStream decode(InputStream in) {
+            return in;
+        }
+    },
+
+    GZIP("gzip", ".gz", 0x1f, 0x8b) {
+        @Override
+        public InputStream decode(InputStream in) throws IOException {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+    },
+
+    DEFLATE("deflate", ".zz") {
+        @Override
+        public InputStream decode(InputStream in) {
+            return new InflaterInputStream(in);
+        }
+    },
+
+    ZSTD("zstd", ".zst", 0x28, 0xb5, 0x2f, 0xfd) {
+        @Override
+        public InputStream decode(InputStream in) throws IOException {
+            if (!isAvailable()) {
+                throw new IllegalStateException("zstd-jni is required on the classpath in order to decode zstd content");
+            }
+            return Zstd.decode(in);
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return ZSTD_PRESENT;
+        }
+    },
+
+    LZ4(null, ".lz4", 0x04, 0x22, 0x4d, 0x18) {
+        @Override
+        public InputStream decode(InputStream in) throws IOException {
+            if (!isAvailable()) {
+                throw new IllegalStateException("lz4-java is required on the classpath in order to decode lz4 content");
+            }
+            return Lz4.decode(in);
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return LZ4_PRESENT;
+        }
+    };
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final boolean ZSTD_PRESENT =
+            ClassUtils.isPresent("com.github.luben.zstd.ZstdInputStream", Compression.class.getClassLoader());
+
+    private static final boolean LZ4_PRESENT =
+            ClassUtils.isPresent("net.jpountz.lz4.LZ4FrameInputStream", Compression.class.getClassLoader());
+
+    private static final int MAX_MAGIC_LENGTH = 4;
+
+    private final String encoding;
+
+    private final String extension;
+
+    private final byte[] magic;
+
+    Compression(String encoding, String extension, int... magic) {
+        this.encoding = encoding;
+        this.extension = extension;
+        this.magic = new byte[magic.length];
+        for (int i = 0; i < magic.length; i++) {
+            this.magic[i] = (byte) magic[i];
+        }
+    }
+
+    /**
+     * Wraps provided stream with decompressing stream.
+     *
+     * @param in compressed stream
+     * @return decompressed stream
+     * @throws IOException in case of any error
+     */
+    public abstract InputStream decode(InputStream in) throws IOException;
+
+    /**
+     * Whether required decoder is present on the classpath.
+     */
+    public boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * Name of this format used by HTTP {@code Content-Encoding} header.
+     */
+    @Nullable
+    public String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Resolves compression format from HTTP {@code Content-Encoding} header value.
+     *
+     * @param encoding header value, may be {@code null}
+     * @return resolved compression
+     * @throws IllegalArgumentException in case of unsupported encoding
+     */
+    @NonNull
+    public static Compression forEncoding(@Nullable String encoding) {
+        if (encoding == null || encoding.isBlank() || "identity".equalsIgnoreCase(encoding.trim())) {
+            return NONE;
+        }
+
+        // x-gzip is an alias of gzip, RFC 7230 section 4.2.3
+        String name = "x-gzip".equalsIgnoreCase(encoding.trim()) ? GZIP.encoding : encoding.trim();
+        for (Compression compression : values()) {
+            if (name.equalsIgnoreCase(compression.encoding)) {
+                return compression;
+            }
+        }
+
+        throw new IllegalArgumentException("Unsupported content encoding: " + encoding);
+    }
+
+    /**
+     * Resolves compression format from file extension.
+     *
+     * @param filepath file
+     * @return resolved compression or {@code null} if extension is not recognized
+     */
+    @Nullable
+    public static Compression forFilename(@NonNull Path filepath) {
+        Path filename = filepath.getFileName();
+        if (filename == null) {
+            return null;
+        }
+
+        String name = filename.toString().toLowerCase();
+        for (Compression compression : values()) {
+            if (compression.extension != null && name.endsWith(compression.extension)) {
+                return compression;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Resolves compression format from leading bytes of the stream.
+     * Provided stream must support {@link InputStream#mark(int)} and
+     * it is reset to the initial position afterwards.
+     *
+     * @param in stream supporting mark
+     * @return resolved compression, {@link #NONE} if magic bytes are not recognized
+     * @throws IOException in case of any error
+     */
+    @NonNull
+    public static Compression forMagic(@NonNull InputStream in) throws IOException {
+        byte[] header = new byte[MAX_MAGIC_LENGTH];
+
+        in.mark(MAX_MAGIC_LENGTH);
+        int length = in.readNBytes(header, 0, MAX_MAGIC_LENGTH);
+        in.reset();
+
+        for (Compression compression : values()) {
+            if (compression.magic.length > 0 && compression.magic.length <= length && startsWith(header, compression.magic)) {
+                return compression;
+            }
+        }
+
+        return NONE;
+    }
+
+    private static boolean startsWith(byte[] header, byte[] magic) {
+        for (int i = 0; i < magic.length; i++) {
+            if (header[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Isolates optional dependency so it is loaded only when needed.
+     */
+    private static class Zstd {
+
+        static InputStream decode(InputStream in) throws IOException {
+            return new ZstdInputStream(in);
+        }
+
+    }
+
+    /**
+     * Isolates optional dependency so it is loaded only when needed.
+     */
+    private static class Lz4 {
+
+        static InputStream decode(InputStream in) throws IOException {
+            return new LZ4FrameInputStream(in);
+        }
+
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.springframework.lang.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Invocation handler delegating interface method calls to the
+ * most recent instance through precomputed method handles.
+ * <p>
+ * {@link Object} methods are delegated to the current instance as
+ * well, except {@code equals} which unwraps other proxies
+ * created by this handler.
+ *
+ * @see ProxyStrategy#JDK
+ */
+final class DelegatingInvocationHandler implements InvocationHandler {
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final Supplier<Object> target;
+
+    private final Map<Method, MethodHandle> handles;
+
+    private final ShadowValidator<?> recorder;
+
+    private final SlowCallInterceptor slowCalls;
+
+    private DelegatingInvocationHandler(Supplier<Object> target, Map<Method, MethodHandle> handles,
+                                        @Nullable ShadowValidator<?> recorder, @Nullable SlowCallInterceptor slowCalls) {
+        this.target = target;
+        this.handles = handles;
+        this.recorder = recorder;
+        this.slowCalls = slowCalls;
+    }
+
+    /**
+     * Creates proxy of specified interface delegating calls to the target.
+     *
+     * @param type        proxied interface
+     * @param classLoader class loader to define proxy class in
+     * @param target      supplier of the most recent instance
+     * @param recorder    records calls in shadow mode, may be {@code null}
+     * @param slowCalls   reports slow calls, may be {@code null}
+     * @param <T>         proxied type
+     * @return proxy
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T createProxy(Class<T> type, ClassLoader classLoader, Supplier<Object> target,
+                             @Nullable ShadowValidator<?> recorder, @Nullable SlowCallInterceptor slowCalls) {
+        Map<Method, MethodHandle> handles = new HashMap<>();
+        for (Method method : type.getMethods()) {
+            if (method.getDeclaringClass() != Object.class && !Modifier.isStatic(method.getModifiers())) {
+                handles.put(method, toHandle(method));
+            }
+        }
+
+        DelegatingInvocationHandler handler = new DelegatingInvocationHandler(target, handles, recorder, slowCalls);
+        return (T) Proxy.newProxyInstance(classLoader, new Class<?>[]{type}, handler);
+    }
+
+    private static MethodHandle toHandle(Method method) {
+        try {
+            method.trySetAccessible();
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            int parameters = method.getParameterCount();
+            return handle.asType(MethodType.genericMethodType(parameters + 1))
+                    .asSpreader(Object[].class, parameters)
+                    .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to access " + method, e);
+        }
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (args == null) {
+            args = NO_ARGS;
+        }
+
+        if (recorder != null) {
+            recorder.record(method, args);
+        }
+
+        if (slowCalls != null) {
+            Object[] arguments = args;
+            return slowCalls.invoke(method, () -> delegate(proxy, method, arguments));
+        }
+
+        return delegate(proxy, method, args);
+    }
+
+    private Object delegate(Object proxy, Method method, Object[] args) throws Throwable {
+        MethodHandle handle = handles.get(method);
+        if (handle != null) {
+            return handle.invokeExact(target.get(), args);
+        }
+
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0] || target.get().equals(unwrap(args[0]));
+            case "hashCode":
+                return target.get().hashCode();
+            case "toString":
+                return target.get().toString();
+            default:
+                throw new IllegalStateException("Unexpected method " + method);
+        }
+    }
+
+    private static Object unwrap(Object object) {
+        if (object != null && Proxy.isProxyClass(object.getClass())) {
+            InvocationHandler handler = Proxy.getInvocationHandler(object);
+            if (handler instanceof DelegatingInvocationHandler) {
+                return ((DelegatingInvocationHandler) handler).target.get();
+            }
+        }
+        return object;
+    }
+
+}
@@ -0,0 +1,308 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Convenient factory bean for creating beans derived from
+ * other refreshable beans, e.g. an index built from raw data.
+ * <p>
+ * Instead of polling with its own schedule, derived bean listens to
+ * its upstream beans and it is recomputed once an upstream publishes
+ * new instance. Upstreams published while recomputation is in progress
+ * are coalesced into a single following recomputation.
+ * <p>
+ * Recomputation is skipped while upstreams are mutually inconsistent,
+ * e.g. in diamond dependency where one branch is not recomputed yet.
+ * The lagging upstream triggers recomputation once it is published,
+ * so derived instance is always built from inputs of the same generation
+ * and published after them. Upstream instances are pinned for the whole
+ * lifetime of derived instance, so they are not destroyed while derived
+ * instance may still reference them.
+ * <p>
+ * By default recomputation runs in the publishing thread. Derived beans
+ * sharing a multi-threaded {@link Executor} recompute independent
+ * branches in parallel.
+ *
+ * @param <T> type of object that this factory bean creates
+ *            wrapped in {@link org.springframework.aop.framework.AopProxy}
+ * @see RefreshableRef#addRefreshListener(RefreshListener)
+ */
+@Slf4j
+@SuppressWarnings("all")
+public abstract class DerivedRefreshAwareFactoryBean<T> extends ProxyBasedRefreshAwareFactoryBean<T> {
+
+    private final List<RefreshableRef<?>> upstreams;
+
+    /**
+     * Inputs pinned by created instances.
+     */
+    private final Map<T, Inputs> inputs = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    private final AtomicBoolean stale = new AtomicBoolean();
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private volatile Thread recomputing;
+
+    private Executor executor = Runnable::run;
+
+    public DerivedRefreshAwareFactoryBean(@NonNull RefreshableRef<?>... upstreams) {
+        this(Arrays.asList(upstreams));
+    }
+
+    public DerivedRefreshAwareFactoryBean(@NonNull List<? extends RefreshableRef<?>> upstreams) {
+        Assert.notEmpty(upstreams, "At least one upstream is required");
+        this.upstreams = List.copyOf(upstreams);
+    }
+
+    /**
+     * Executor running recomputation. Default runs
+     * recomputation in the thread publishing upstream.
+     *
+     * @param executor executor
+     */
+    public void setExecutor(@NonNull Executor executor) {
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        for (RefreshableRef<?> upstream : upstreams) {
+            upstream.addRefreshListener((previous, current, generation) -> onUpstreamRefresh());
+        }
+        super.afterPropertiesSet();
+    }
+
+    @NonNull
+    @Override
+    protected final T createInstance() throws Exception {
+        stale.set(false);
+        Inputs inputs = Inputs.acquire(upstreams);
+        try {
+            T instance = createInstance(inputs);
+            this.inputs.put(instance, inputs);
+            return instance;
+        } catch (Exception e) {
+            inputs.close();
+            throw e;
+        }
+    }
+
+    @Override
+    protected final T refreshInstance() throws Exception {
+        Inputs inputs = Inputs.acquire(upstreams);
+        if (!inputs.isConsistent()) {
+            // lagging upstream triggers recomputation once it is published
+            inputs.close();
+            return null;
+        }
+
+        try {
+            T instance = refreshInstance(inputs);
+            if (instance == null) {
+                inputs.close();
+            } else {
+                this.inputs.put(instance, inputs);
+            }
+            return instance;
+        } catch (Exception e) {
+            inputs.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Signals refresh only within recomputation triggered by upstream.
+     * Scheduled refresh only recovers notifications missed during
+     * initialization.
+     */
+    @Override
+    protected final boolean shouldRefresh() {
+        if (recomputing == Thread.currentThread()) {
+            return stale.getAndSet(false);
+        }
+
+        if (stale.get()) {
+            schedule();
+        }
+
+        return false;
+    }
+
+    /**
+     * Destroys instance and releases upstream instances it was created from.
+     * Subclasses overriding this method must call {@code super}.
+     */
+    @Override
+    protected void destroyInstance(@NonNull T instance) throws Exception {
+        try {
+            super.destroyInstance(instance);
+        } finally {
+            Inputs released = inputs.remove(instance);
+            if (released != null) {
+                released.close();
+            }
+        }
+    }
+
+    /**
+     * Convinient template method which creates
+     * new instance based on upstream instances.
+     *
+     * @param inputs pinned upstream instances
+     * @return new instace
+     * @throws Exception in case of any error.
+     */
+    @NonNull
+    protected abstract T createInstance(@NonNull Inputs inputs) throws Exception;
+
+    /**
+     * Convinient template method which recreates
+     * new instance based on upstream instances.
+     *
+     * @param inputs pinned upstream instances
+     * @return newly created instace or {@code null} if new instance can't be created
+     * @throws Exception in case of any error.
+     */
+    @Nullable
+    protected T refreshInstance(@NonNull Inputs inputs) throws Exception {
+        return createInstance(inputs);
+    }
+
+    private void onUpstreamRefresh() {
+        stale.set(true);
+        schedule();
+    }
+
+    private void schedule() {
+        // notifications before initialization are recovered by scheduled refresh
+        if (getGeneration() > 0 && scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::recompute);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                log.error("{}#schedule() failed", getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    private void recompute() {
+        recomputing = Thread.currentThread();
+        try {
+            while (stale.get()) {
+                refresh();
+            }
+        } finally {
+            recomputing = null;
+            scheduled.set(false);
+        }
+
+        // upstream published after the loop ended
+        if (stale.get()) {
+            schedule();
+        }
+    }
+
+    /**
+     * Upstream instances pinned for a single derived instance.
+     */
+    public static final class Inputs implements AutoCloseable {
+
+        private final Map<RefreshableRef<?>, Snapshot<?>> snapshots = new LinkedHashMap<>();
+
+        /**
+         * Generations of direct and transitive upstreams.
+         */
+        private final Map<RefreshableRef<?>, Long> generations = new HashMap<>();
+
+        private boolean consistent = true;
+
+        private Inputs() {
+        }
+
+        /**
+         * Pinned instance of specified upstream.
+         *
+         * @throws IllegalArgumentException if not an upstream of this bean
+         */
+        @NonNull
+        public <U> U get(@NonNull RefreshableRef<U> upstream) {
+            Snapshot<?> snapshot = snapshots.get(upstream);
+            Assert.notNull(snapshot, "Not an upstream of this bean");
+            return (U) snapshot.get();
+        }
+
+        /**
+         * Generation of pinned instance of specified direct or transitive upstream.
+         *
+         * @throws IllegalArgumentException if not an upstream of this bean
+         */
+        public long getGeneration(@NonNull RefreshableRef<?> upstream) {
+            Long generation = generations.get(upstream);
+            Assert.notNull(generation, "Not an upstream of this bean");
+            return generation;
+        }
+
+        /**
+         * Whether all upstreams are derived from the same
+         * generations of their common upstreams.
+         */
+        boolean isConsistent() {
+            return consistent;
+        }
+
+        private void add(RefreshableRef<?> upstream, Long generation) {
+            Long previous = generations.putIfAbsent(upstream, generation);
+            if (previous != null && !previous.equals(generation)) {
+                consistent = false;
+            }
+        }
+
+        private static Inputs acquire(List<RefreshableRef<?>> upstreams) {
+            Inputs inputs = new Inputs();
+            try {
+                for (RefreshableRef<?> upstream : upstreams) {
+                    Snapshot<?> snapshot = upstream.acquire();
+                    inputs.snapshots.put(upstream, snapshot);
+                    inputs.add(upstream, snapshot.getGeneration());
+
+                    if (upstream instanceof DerivedRefreshAwareFactoryBean) {
+                        Inputs transitive = ((DerivedRefreshAwareFactoryBean<?>) upstream).inputs.get(snapshot.get());
+                        if (transitive != null) {
+                            transitive.generations.forEach(inputs::add);
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                inputs.close();
+                throw e;
+            }
+            return inputs;
+        }
+
+        /**
+         * Releases pinned upstream instances.
+         */
+        @Override
+        public void close() {
+            snapshots.values().forEach(Snapshot::close);
+        }
+
+    }
+
+}
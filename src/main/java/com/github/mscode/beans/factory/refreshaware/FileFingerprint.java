@@ -0,0 +1,50 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import lombok.Data;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Identity and state of a file sampled from its attributes. File key
+ * (e.g. inode) changes when the file is atomically replaced by rename,
+ * even if the modification time is preserved.
+ */
+@Data
+final class FileFingerprint {
+
+    /**
+     * File key or {@code null} if the file system does not provide it.
+     */
+    @Nullable
+    private final Object fileKey;
+
+    private final long size;
+
+    @NonNull
+    private final FileTime lastModified;
+
+    /**
+     * Samples attributes of specified file.
+     *
+     * @throws java.nio.file.NoSuchFileException if the file does not exist
+     */
+    @NonNull
+    static FileFingerprint of(@NonNull Path filepath) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(filepath, BasicFileAttributes.class);
+        return new FileFingerprint(attributes.fileKey(), attributes.size(), attributes.lastModifiedTime());
+    }
+
+    /**
+     * Whether the file was replaced by another one.
+     */
+    boolean isReplacedBy(@NonNull FileFingerprint other) {
+        return fileKey != null && other.fileKey != null && !fileKey.equals(other.fileKey);
+    }
+
+}
@@ -1,14 +1,26 @@
 package com.github.mscode.beans.factory.refreshaware;
 
+import com.github.mscode.beans.factory.refreshaware.parser.RecordReader;
+import com.github.mscode.beans.factory.refreshaware.parser.RecordSink;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 import org.springframework.scheduling.TaskScheduler;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.attribute.FileTime;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Objects;
@@ -16,6 +28,11 @@ import java.util.Objects;
 /**
  * Convenient factory bean for creating beans dependent
  * on file content and refreshing beans on file modification.
+ * <p>
+ * Compressed files can be read through {@link #openStream(Path)}
+ * and {@link #openReader(Path)} which decompress content on the fly.
+ * Record files can be parsed without intermediate objects
+ * through {@link #readRecords(Path, RecordReader, RecordSink)}.
  *
  * @param <T> type of object that this factory bean creates
  *            wrapped in {@link org.springframework.aop.framework.AopProxy}
@@ -23,14 +40,22 @@ import java.util.Objects;
 @SuppressWarnings("all")
 public abstract class FileProxyRefreshAwareFactoryBean<T> extends ProxyBasedRefreshAwareFactoryBean<T> {
 
+    private static final int MAPPED_REGION = 256 * 1024 * 1024;
+
     private Path filepath;
 
-    private FileTime lastModified;
+    private FileFingerprint fingerprint;
+
+    private FileFingerprint pending;
+
+    private boolean atomicReplace;
 
     private Duration minimalFileAge = Duration.ofSeconds(1);
 
     protected Charset charset = StandardCharsets.UTF_8;
 
+    private Compression compression;
+
     public FileProxyRefreshAwareFactoryBean(@NonNull String filepath) {
         this(Path.of(filepath));
     }
@@ -48,22 +73,44 @@ public abstract class FileProxyRefreshAwareFactoryBean<T> extends ProxyBasedRefr
         this.filepath = Objects.requireNonNull(filepath);
     }
 
+    /**
+     * Age after which modified file is considered complete as soon as the change
+     * is detected. Younger file is considered complete once two consecutive
+     * samples of its size, modification time and file key are equal.
+     * Default is 1 second.
+     */
     public void setMinimalFileAge(Duration age) {
         this.minimalFileAge = age;
     }
 
+    /**
+     * Whether the file is replaced only atomically by rename, so file
+     * with a new file key (e.g. inode) is complete and picked up
+     * immediately. Default is {@code false}.
+     */
+    public void setAtomicReplace(boolean atomicReplace) {
+        this.atomicReplace = atomicReplace;
+    }
+
     public void setCharset(Charset charset) {
         this.charset = charset;
     }
 
+    /**
+     * Compression of the file content.
+     *
+     * @param compression compression or {@code null} to detect it
+     *                    from file extension or magic bytes
+     */
+    public void setCompression(@Nullable Compression compression) {
+        this.compression = compression;
+    }
+
     @Override
     public void afterPropertiesSet() throws Exception {
         super.afterPropertiesSet();
-        if (Files.exists(filepath)) {
-            this.lastModified = Files.getLastModifiedTime(filepath);
-        } else {
-            this.lastModified = FileTime.fromMillis(Long.MIN_VALUE);
-        }
+        this.fingerprint = Files.exists(filepath) ? FileFingerprint.of(filepath) : null;
+        reportSource();
     }
 
     @NonNull
@@ -77,24 +124,210 @@ public abstract class FileProxyRefreshAwareFactoryBean<T> extends ProxyBasedRefr
         return refreshInstance(filepath);
     }
 
+    private void reportSource() {
+        Instant modified = fingerprint != null ? fingerprint.getLastModified().toInstant() : null;
+        reportSource(filepath.toString(), modified);
+    }
+
     /**
-     * Detects file modification and signals for refresh attempt.
+     * Detects file modification and signals for refresh attempt once
+     * the modified file is complete.
+     * <p>
+     * File is modified if its file key, size or modification time differs,
+     * so files atomically replaced with preserved modification time are
+     * detected as well. Modified file is complete if it is older than
+     * minimal file age, if it was not changed since the previous sample
+     * or if it was replaced atomically.
      *
      * @return {@code true} if file is modified
      * @throws Exception in case of any error
+     * @see #setMinimalFileAge(Duration)
+     * @see #setAtomicReplace(boolean)
      */
     @Override
     protected boolean shouldRefresh() throws Exception {
-        FileTime newTime = Files.getLastModifiedTime(filepath);
-        if (newTime.compareTo(lastModified) > 0) {
-            Instant now = clock.instant();
-            if (now.isAfter(newTime.toInstant().plus(minimalFileAge))) {
-                this.lastModified = newTime;
-                return true;
+        FileFingerprint sample = FileFingerprint.of(filepath);
+        if (sample.equals(fingerprint)) {
+            this.pending = null;
+            return false;
+        }
+
+        boolean complete = sample.equals(pending)
+                || atomicReplace && fingerprint != null && fingerprint.isReplacedBy(sample)
+                || clock.instant().isAfter(sample.getLastModified().toInstant().plus(minimalFileAge));
+        if (!complete) {
+            // file may still be written, confirmed by the next sample
+            this.pending = sample;
+            return false;
+        }
+
+        this.fingerprint = sample;
+        this.pending = null;
+        reportSource();
+        return true;
+    }
+
+    /**
+     * Fingerprint of the file consisting of its file key, modification time and size.
+     */
+    @Override
+    protected Object getSourceFingerprint() throws Exception {
+        return FileFingerprint.of(filepath);
+    }
+
+    /**
+     * Opens buffered stream of file content, decompressing it on the fly
+     * in case file is compressed. No temporary files are created.
+     * <p>
+     * Read and decompressed bytes are reported to the build event once the stream is closed.
+     *
+     * @param filepath file
+     * @return decompressed content, should be closed by caller
+     * @throws IOException in case of any error
+     * @see #setCompression(Compression)
+     */
+    @NonNull
+    protected InputStream openStream(@NonNull Path filepath) throws IOException {
+        InputStream raw = new CountingInputStream(Files.newInputStream(filepath), this::reportBytesRead);
+        InputStream in = new BufferedInputStream(raw, Compression.BUFFER_SIZE);
+        try {
+            Compression compression = resolveCompression(filepath, in);
+            if (compression == Compression.NONE) {
+                return new CountingInputStream(in, this::reportBytesParsed);
             }
+
+            InputStream decoded = new BufferedInputStream(compression.decode(in), Compression.BUFFER_SIZE);
+            return new CountingInputStream(decoded, this::reportBytesParsed);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
         }
+    }
 
-        return false;
+    /**
+     * Configured compression or the one detected from file extension or magic bytes.
+     *
+     * @param filepath file
+     * @param in       content of the file supporting mark
+     * @return resolved compression
+     * @throws IOException in case of any error
+     */
+    final Compression resolveCompression(Path filepath, InputStream in) throws IOException {
+        Compression compression = this.compression;
+        if (compression == null) {
+            compression = Compression.forFilename(filepath);
+        }
+        if (compression == null) {
+            compression = Compression.forMagic(in);
+        }
+        return compression;
+    }
+
+    /**
+     * Whether the file can be memory mapped, i.e. it is an uncompressed file of the default file system.
+     *
+     * @param filepath file
+     * @return {@code true} if the file content can be mapped as it is
+     * @throws IOException in case of any error
+     */
+    final boolean isMappable(Path filepath) throws IOException {
+        if (filepath.getFileSystem() != FileSystems.getDefault()) {
+            return false;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(filepath), 16)) {
+            return resolveCompression(filepath, in) == Compression.NONE;
+        }
+    }
+
+    /**
+     * Parses records of the file directly from its UTF-8 bytes and passes their
+     * values to the sink, so no intermediate strings or maps are created and
+     * only the structure built by the sink is allocated.
+     * <p>
+     * Uncompressed file is memory mapped, compressed file is decompressed
+     * into a reused buffer. Configured {@link #charset} is not used.
+     *
+     * @param filepath file
+     * @param reader   parser of the record format
+     * @param sink     receives values of parsed records
+     * @return number of parsed records
+     * @throws IOException in case of any error
+     * @see com.github.mscode.beans.factory.refreshaware.parser.CsvRecordReader
+     * @see com.github.mscode.beans.factory.refreshaware.parser.NdjsonRecordReader
+     */
+    protected long readRecords(@NonNull Path filepath, @NonNull RecordReader reader, @NonNull RecordSink sink) throws IOException {
+        if (isMappable(filepath)) {
+            return readMappedRecords(filepath, reader, sink);
+        }
+
+        try (InputStream in = openStream(filepath)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Compression.BUFFER_SIZE);
+            long records = 0;
+            boolean last = false;
+            while (!last) {
+                int read = in.read(buffer.array(), buffer.position(), buffer.remaining());
+                if (read < 0) {
+                    last = true;
+                } else {
+                    buffer.position(buffer.position() + read);
+                    if (buffer.hasRemaining()) {
+                        continue;
+                    }
+                }
+
+                buffer.flip();
+                records += reader.read(buffer, last, sink);
+                if (!last && buffer.position() == 0) {
+                    // record longer than the buffer
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer);
+                } else {
+                    buffer.compact();
+                }
+            }
+            return records;
+        }
+    }
+
+    private long readMappedRecords(Path filepath, RecordReader reader, RecordSink sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(filepath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            long records = 0;
+            int region = MAPPED_REGION;
+            while (position < size) {
+                long length = Math.min(region, size - position);
+                boolean last = position + length == size;
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                records += reader.read(buffer, last, sink);
+                if (last) {
+                    break;
+                } else if (buffer.position() == 0) {
+                    // record longer than the region
+                    if (region == Integer.MAX_VALUE) {
+                        throw new IOException("Record at offset " + position + " exceeds maximal size");
+                    }
+                    region = (int) Math.min(Integer.MAX_VALUE, region * 2L);
+                }
+                position += buffer.position();
+            }
+
+            reportBytesRead(size);
+            reportBytesParsed(size);
+            return records;
+        }
+    }
+
+    /**
+     * Same as {@link #openStream(Path)}, but decodes content
+     * using configured {@link #charset}.
+     *
+     * @param filepath file
+     * @return decompressed content, should be closed by caller
+     * @throws IOException in case of any error
+     */
+    @NonNull
+    protected Reader openReader(@NonNull Path filepath) throws IOException {
+        return new BufferedReader(new InputStreamReader(openStream(filepath), charset));
     }
 
     /**
@@ -0,0 +1,395 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of values derived from a refreshable instance,
+ * e.g. aggregates or filtered views, valid for a single generation.
+ * <p>
+ * Value is computed from the pinned instance at most once per generation
+ * and key. Concurrent requests for the same key wait for a single computation.
+ * Once a new instance is published, all entries are invalidated at once, so
+ * cached values are never derived from outdated data. Entries are bounded
+ * by maximal size and the least recently used entries are evicted first.
+ * Larger caches are split into independently locked segments by key hash,
+ * so readers of different keys do not contend, and the least recently
+ * used entry is evicted from the segment which exceeds its share of the size.
+ * <p>
+ * Values of hot keys can be precomputed as soon as the new instance is
+ * published, so readers do not wait for them after every refresh.
+ * Values are precomputed by an executor, not by the refreshing thread.
+ * Unless an executor is set, the cache creates its own pool once values
+ * are precomputed for the first time and shuts it down on {@link #destroy()}.
+ * <pre class="code">
+ * GenerationCache&lt;List&lt;Model&gt;, String, Long&gt; counts =
+ *         new GenerationCache&lt;&gt;(models, (list, name) -&gt; countByName(list, name), 1000);
+ * </pre>
+ *
+ * @param <T> type of refreshable instance
+ * @param <K> type of keys
+ * @param <V> type of derived values
+ * @see RefreshableRef
+ */
+@Slf4j
+public class GenerationCache<T, K, V> implements DisposableBean {
+
+    /**
+     * Minimal number of entries per segment, smaller caches are not segmented.
+     */
+    private static final int MIN_SEGMENT_SIZE = 16;
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final RefreshableRef<T> source;
+
+    private final BiFunction<? super T, ? super K, ? extends V> loader;
+
+    private final int maximumSize;
+
+    private final AtomicReference<Generation> current = new AtomicReference<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private Supplier<? extends Collection<? extends K>> hotKeys = Collections::emptyList;
+
+    private int recentKeys;
+
+    private Executor executor;
+
+    /**
+     * Pool created by this cache if no executor is set.
+     */
+    private ThreadPoolExecutor ownExecutor;
+
+    private boolean destroyed;
+
+    /**
+     * Creates cache invalidated on every refresh of specified source.
+     *
+     * @param source      refreshable bean values are derived from
+     * @param loader      computes value from the instance and key
+     * @param maximumSize maximal number of entries per generation
+     */
+    public GenerationCache(@NonNull RefreshableRef<T> source,
+                           @NonNull BiFunction<? super T, ? super K, ? extends V> loader, int maximumSize) {
+        Assert.isTrue(maximumSize > 0, "Maximal size must be positive");
+        this.source = Objects.requireNonNull(source);
+        this.loader = Objects.requireNonNull(loader);
+        this.maximumSize = maximumSize;
+        source.addRefreshListener(this::onRefresh);
+    }
+
+    /**
+     * Keys whose values are precomputed once new instance is published.
+     *
+     * @param hotKeys supplier of keys called after every refresh
+     */
+    public void setHotKeys(@NonNull Supplier<? extends Collection<? extends K>> hotKeys) {
+        this.hotKeys = Objects.requireNonNull(hotKeys);
+    }
+
+    /**
+     * Number of the most recently used keys of the replaced generation
+     * whose values are precomputed once new instance is published.
+     * Default is {@code 0}.
+     */
+    public void setRecentKeys(int recentKeys) {
+        Assert.isTrue(recentKeys >= 0, "Number of recent keys must not be negative");
+        this.recentKeys = recentKeys;
+    }
+
+    /**
+     * Executor precomputing values once new instance is published.
+     * Executor is not shut down by this cache. Default is a pool owned
+     * by this cache with threads bounded by the number of processors.
+     *
+     * @param executor executor
+     */
+    public synchronized void setExecutor(@NonNull Executor executor) {
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /**
+     * Shuts down pool owned by this cache, values
+     * are no longer precomputed afterwards.
+     */
+    @Override
+    public synchronized void destroy() {
+        destroyed = true;
+        if (ownExecutor != null) {
+            ownExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Value derived from the current instance, computed
+     * if it is not cached for the current generation yet.
+     *
+     * @param key key of the value
+     * @return derived value
+     */
+    @Nullable
+    public V get(@NonNull K key) {
+        try (Snapshot<T> snapshot = source.acquire()) {
+            Generation generation = generation(snapshot.getGeneration());
+            if (generation == null) {
+                // pinned instance was replaced in the meantime, not worth caching
+                misses.increment();
+                return loader.apply(snapshot.get(), key);
+            }
+            return generation.get(key, snapshot.get());
+        }
+    }
+
+    /**
+     * Drops all cached values.
+     */
+    public void invalidateAll() {
+        current.set(null);
+    }
+
+    /**
+     * Number of values cached for the current generation.
+     */
+    public int size() {
+        Generation generation = current.get();
+        return generation != null ? generation.size() : 0;
+    }
+
+    /**
+     * Number of requests served from the cache.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Number of requests which computed the value.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Entries of specified generation, created if the cache holds an older one.
+     *
+     * @return entries or {@code null} if the cache already holds a newer generation
+     */
+    private Generation generation(long number) {
+        Generation generation = current.get();
+        while (generation == null || generation.number < number) {
+            Generation created = new Generation(number);
+            if (current.compareAndSet(generation, created)) {
+                return created;
+            }
+            generation = current.get();
+        }
+        return generation.number == number ? generation : null;
+    }
+
+    private void onRefresh(T previous, T instance, long number) {
+        Generation replaced = current.get();
+        Generation generation = generation(number);
+        if (generation == null) {
+            return;
+        }
+
+        List<K> keys = new ArrayList<>(hotKeys.get());
+        if (replaced != null && replaced.number < number && recentKeys > 0) {
+            keys.addAll(replaced.recentKeys(recentKeys));
+        }
+
+        Executor executor = keys.isEmpty() ? null : executor();
+        if (executor == null) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> precompute(generation, keys));
+        } catch (RejectedExecutionException e) {
+            log.warn("{}#onRefresh() skipped precomputing {} values, executor is saturated", getClass().getSimpleName(), keys.size());
+        }
+    }
+
+    private void precompute(Generation generation, List<K> keys) {
+        try (Snapshot<T> snapshot = source.acquire()) {
+            for (K key : keys) {
+                // newer instance was published in the meantime
+                if (snapshot.getGeneration() != generation.number || current.get() != generation) {
+                    return;
+                }
+
+                try {
+                    generation.get(key, snapshot.get());
+                } catch (RuntimeException e) {
+                    log.error("{}#precompute() failed to precompute {}", getClass().getSimpleName(), key, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Executor precomputing values or {@code null} if the cache is destroyed.
+     */
+    @Nullable
+    private synchronized Executor executor() {
+        if (destroyed) {
+            return null;
+        } else if (executor == null) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("generation-cache-");
+            threadFactory.setDaemon(true);
+
+            int threads = Runtime.getRuntime().availableProcessors();
+            ownExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(1024), threadFactory);
+            ownExecutor.allowCoreThreadTimeOut(true);
+            executor = ownExecutor;
+        }
+        return executor;
+    }
+
+    private static RuntimeException unwrap(CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return e;
+    }
+
+    /**
+     * Entries of a single generation, split into segments in access order.
+     */
+    private class Generation {
+
+        private final long number;
+
+        private final Segment[] segments;
+
+        Generation(long number) {
+            this.number = number;
+
+            int count = Integer.highestOneBit(Math.max(1, Math.min(maximumSize / MIN_SEGMENT_SIZE, MAX_SEGMENTS)));
+            this.segments = new GenerationCache.Segment[count];
+            for (int i = 0; i < count; i++) {
+                // capacities sum up to the maximal size
+                segments[i] = new Segment(maximumSize / count + (i < maximumSize % count ? 1 : 0));
+            }
+        }
+
+        V get(K key, T instance) {
+            Map<K, CompletableFuture<V>> entries = segmentFor(key).entries;
+
+            CompletableFuture<V> future;
+            boolean loading = false;
+            synchronized (entries) {
+                future = entries.get(key);
+                if (future == null) {
+                    future = new CompletableFuture<>();
+                    entries.put(key, future);
+                    loading = true;
+                }
+            }
+
+            if (!loading) {
+                hits.increment();
+                try {
+                    return future.join();
+                } catch (CompletionException e) {
+                    throw unwrap(e);
+                }
+            }
+
+            misses.increment();
+            try {
+                V value = loader.apply(instance, key);
+                future.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                // failures are not cached, so the next request retries
+                synchronized (entries) {
+                    entries.remove(key, future);
+                }
+                future.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        int size() {
+            int size = 0;
+            for (Segment segment : segments) {
+                synchronized (segment.entries) {
+                    size += segment.entries.size();
+                }
+            }
+            return size;
+        }
+
+        /**
+         * The most recently used keys, taken evenly from all segments.
+         */
+        List<K> recentKeys(int count) {
+            int perSegment = (count + segments.length - 1) / segments.length;
+            List<K> recent = new ArrayList<>();
+            for (Segment segment : segments) {
+                synchronized (segment.entries) {
+                    List<K> keys = new ArrayList<>(segment.entries.keySet());
+                    recent.addAll(keys.subList(Math.max(0, keys.size() - perSegment), keys.size()));
+                }
+            }
+            return recent.size() > count ? recent.subList(0, count) : recent;
+        }
+
+        private Segment segmentFor(K key) {
+            int hash = key.hashCode();
+            return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+        }
+
+    }
+
+    /**
+     * Independently locked entries in access order.
+     */
+    private class Segment {
+
+        private final Map<K, CompletableFuture<V>> entries;
+
+        Segment(int capacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, CompletableFuture<V>> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+    }
+
+}
@@ -0,0 +1,378 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Convenient factory bean for creating beans dependent
+ * on HTTP resource content and refreshing beans on resource modification.
+ * <p>
+ * Modification is detected by conditional HEAD request using
+ * {@code ETag} and {@code Last-Modified} validators and content is
+ * downloaded by conditional GET, so it is downloaded once and only
+ * when it is changed. Response body is streamed
+ * directly to {@link #createInstance(InputStream)} and decoded
+ * according to {@code Content-Encoding} header.
+ * <p>
+ * Validators are committed only once the instance built from the
+ * content is published, so content which fails to build or which
+ * is rejected is downloaded again by following refresh.
+ *
+ * @param <T> type of object that this factory bean creates
+ *            wrapped in {@link org.springframework.aop.framework.AopProxy}
+ * @see Compression
+ */
+@SuppressWarnings("all")
+public abstract class HttpProxyRefreshAwareFactoryBean<T> extends ProxyBasedRefreshAwareFactoryBean<T> {
+
+    private final URI uri;
+
+    private HttpClient httpClient;
+
+    private Duration timeout = Duration.ofSeconds(30);
+
+    private Semaphore concurrencyLimiter;
+
+    /**
+     * Validators of the published content, sent with conditional requests.
+     */
+    private volatile Validators committed;
+
+    /**
+     * Validators of the last modified content, published or not.
+     */
+    private volatile Validators observed;
+
+    /**
+     * Validators of the content being built, committed once it is published.
+     */
+    private volatile Validators candidate;
+
+    public HttpProxyRefreshAwareFactoryBean(@NonNull String uri) {
+        this(URI.create(uri));
+    }
+
+    public HttpProxyRefreshAwareFactoryBean(@NonNull URI uri) {
+        this(uri, null);
+    }
+
+    public HttpProxyRefreshAwareFactoryBean(@NonNull URI uri, TaskScheduler scheduler) {
+        this(uri, scheduler, Duration.ZERO, Duration.ZERO);
+    }
+
+    public HttpProxyRefreshAwareFactoryBean(@NonNull URI uri, TaskScheduler scheduler, Duration beforeRefresh, Duration beforeDestroy) {
+        super(scheduler, beforeRefresh, beforeDestroy);
+        this.uri = Objects.requireNonNull(uri);
+    }
+
+    public void setHttpClient(HttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Limits number of concurrent downloads. The same semaphore
+     * can be shared by several factory beans to limit downloads
+     * across all of them. Permit is held until response body is consumed
+     * and it is awaited at most for the configured timeout.
+     *
+     * @param concurrencyLimiter semaphore or {@code null} for no limit
+     */
+    public void setConcurrencyLimiter(@Nullable Semaphore concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (httpClient == null) {
+            httpClient = HttpClient.newBuilder()
+                    .followRedirects(HttpClient.Redirect.NORMAL)
+                    .connectTimeout(timeout)
+                    .build();
+        }
+        super.afterPropertiesSet();
+    }
+
+    @NonNull
+    @Override
+    protected final T createInstance() throws Exception {
+        HttpResponse<InputStream> response = send(null);
+        try (InputStream body = decode(response)) {
+            expectOk(response);
+            observe(response);
+            return createInstance(body);
+        }
+    }
+
+    /**
+     * Downloads modified resource. Resource is requested
+     * conditionally, so no response is held between
+     * {@link #shouldRefresh()} and this call.
+     */
+    @Override
+    protected final T refreshInstance() throws Exception {
+        HttpResponse<InputStream> response = send(committed);
+        if (response.statusCode() == 304) {
+            response.body().close();
+            return null;
+        }
+
+        try (InputStream body = decode(response)) {
+            expectOk(response);
+            observe(response);
+            return refreshInstance(body);
+        }
+    }
+
+    /**
+     * Detects resource modification using conditional HEAD request
+     * and signals for refresh attempt.
+     * <p>
+     * No body is transferred, modified resource is downloaded
+     * by following {@link #refreshInstance()} call. If the server
+     * does not support HEAD, refresh is attempted and the conditional
+     * GET of {@link #refreshInstance()} detects unchanged resource.
+     *
+     * @return {@code true} if resource is modified
+     * @throws Exception in case of any error
+     */
+    @Override
+    protected boolean shouldRefresh() throws Exception {
+        HttpResponse<Void> response = httpClient.send(request(committed)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .build(), HttpResponse.BodyHandlers.discarding());
+
+        switch (response.statusCode()) {
+            case 304:
+                return false;
+            case 405:
+            case 501:
+                return true;
+            case 200:
+                observed = Validators.of(response);
+                return true;
+            default:
+                throw new IOException("Unexpected response status " + response.statusCode() + " from " + uri);
+        }
+    }
+
+    /**
+     * Convinient template method which creates
+     * new instance based on HTTP response body.
+     *
+     * @param body decoded response body, closed by caller
+     * @return new instace
+     * @throws Exception in case of any error.
+     */
+    @NonNull
+    protected abstract T createInstance(@NonNull InputStream body) throws Exception;
+
+    /**
+     * Convinient template method which recreates
+     * new instance based on HTTP response body.
+     *
+     * @param body decoded response body, closed by caller
+     * @return newly created instace or {@code null} if new instance can't be created
+     * @throws Exception in case of any error.
+     */
+    @Nullable
+    protected T refreshInstance(@NonNull InputStream body) throws Exception {
+        return createInstance(body);
+    }
+
+    /**
+     * Template method that subclasses can override in order
+     * to customize requests, e.g. to add authorization headers.
+     *
+     * @param builder request builder
+     */
+    protected void customizeRequest(@NonNull HttpRequest.Builder builder) {
+    }
+
+    /**
+     * Builds GET request, conditional if validators are given. The same
+     * {@code Accept-Encoding} is sent with every request, so validators
+     * of HEAD and GET responses belong to the same representation.
+     */
+    private HttpRequest.Builder request(@Nullable Validators conditional) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("Accept-Encoding", acceptEncoding())
+                .GET();
+
+        if (conditional != null && conditional.etag != null) {
+            builder.header("If-None-Match", conditional.etag);
+        }
+        if (conditional != null && conditional.lastModified != null) {
+            builder.header("If-Modified-Since", conditional.lastModified);
+        }
+
+        customizeRequest(builder);
+        return builder;
+    }
+
+    private HttpResponse<InputStream> send(@Nullable Validators conditional) throws IOException, InterruptedException {
+        HttpRequest.Builder builder = request(conditional);
+
+        if (concurrencyLimiter != null && !concurrencyLimiter.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            throw new IOException("No download permit available within " + timeout + " for " + uri);
+        }
+
+        try {
+            return httpClient.send(builder.build(), responseInfo -> {
+                HttpResponse.BodySubscriber<InputStream> subscriber = HttpResponse.BodySubscribers.ofInputStream();
+                return concurrencyLimiter == null ? subscriber
+                        : HttpResponse.BodySubscribers.mapping(subscriber, in -> new PermitReleasingInputStream(in, concurrencyLimiter));
+            });
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            if (concurrencyLimiter != null) {
+                concurrencyLimiter.release();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Remembers validators of downloaded content, which are
+     * committed once the instance built from it is published.
+     */
+    private void observe(HttpResponse<InputStream> response) {
+        Validators validators = Validators.of(response);
+        observed = validators;
+        candidate = validators;
+    }
+
+    /**
+     * Commits validators of published content for following conditional requests.
+     */
+    @Override
+    void instancePublished() {
+        Validators published = candidate;
+        if (published != null) {
+            committed = published;
+            candidate = null;
+            reportSource(uri.toString(), published.parseLastModified());
+        }
+    }
+
+    /**
+     * Fingerprint of the resource consisting of validators of the last
+     * successful response, i.e. {@code ETag} and {@code Last-Modified}.
+     */
+    @Override
+    protected Object getSourceFingerprint() {
+        Validators current = observed;
+        return current != null && (current.etag != null || current.lastModified != null)
+                ? Arrays.asList(current.etag, current.lastModified) : null;
+    }
+
+    private void expectOk(HttpResponse<InputStream> response) throws IOException {
+        if (response.statusCode() != 200) {
+            throw new IOException("Unexpected response status " + response.statusCode() + " from " + uri);
+        }
+    }
+
+    private InputStream decode(HttpResponse<InputStream> response) throws IOException {
+        String encoding = response.headers().firstValue("Content-Encoding").orElse(null);
+        InputStream body = new CountingInputStream(response.body(), this::reportBytesRead);
+        try {
+            return new CountingInputStream(Compression.forEncoding(encoding).decode(body), this::reportBytesParsed);
+        } catch (IOException | RuntimeException e) {
+            body.close();
+            throw e;
+        }
+    }
+
+    private static String acceptEncoding() {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (Compression compression : Compression.values()) {
+            if (compression.getEncoding() != null && compression.isAvailable()) {
+                joiner.add(compression.getEncoding());
+            }
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * {@code ETag} and {@code Last-Modified} validators of a response.
+     */
+    private static final class Validators {
+
+        private final String etag;
+
+        private final String lastModified;
+
+        private Validators(String etag, String lastModified) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        static Validators of(HttpResponse<?> response) {
+            return new Validators(response.headers().firstValue("ETag").orElse(null),
+                    response.headers().firstValue("Last-Modified").orElse(null));
+        }
+
+        @Nullable
+        Instant parseLastModified() {
+            try {
+                return lastModified != null ? ZonedDateTime.parse(lastModified, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant() : null;
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+
+    }
+
+    /**
+     * Releases concurrency permit once the body is closed.
+     */
+    private static class PermitReleasingInputStream extends FilterInputStream {
+
+        private final Semaphore semaphore;
+
+        private boolean released;
+
+        PermitReleasingInputStream(InputStream in, Semaphore semaphore) {
+            super(in);
+            this.semaphore = semaphore;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                synchronized (this) {
+                    if (!released) {
+                        released = true;
+                        semaphore.release();
+                    }
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Queries elements of the current instance through indexes
+ * declared with {@link ProxyBasedRefreshAwareFactoryBean#addIndex(String, java.util.function.Function, boolean)}.
+ * <p>
+ * Indexes are built before the instance is published and held
+ * together with it, so every query is answered by indexes of the
+ * instance which is current at the moment of the query.
+ *
+ * @param <E> type of indexed elements
+ * @see ProxyBasedRefreshAwareFactoryBean#indexed()
+ */
+public interface IndexedRefreshable<E> {
+
+    /**
+     * Element with specified key, e.g. looked up by unique identifier.
+     * In case of multi-valued index the first element is returned.
+     *
+     * @param index name of index
+     * @param key   indexed key
+     * @return element or {@code null} if there is no element with the key
+     * @throws IllegalArgumentException if there is no such index
+     */
+    @Nullable
+    E findOne(@NonNull String index, @NonNull Object key);
+
+    /**
+     * Elements with specified key in the order of the instance.
+     *
+     * @param index name of index
+     * @param key   indexed key
+     * @return elements, empty if there is no element with the key
+     * @throws IllegalArgumentException if there is no such index
+     */
+    @NonNull
+    List<E> findAll(@NonNull String index, @NonNull Object key);
+
+    /**
+     * Distinct keys of specified index.
+     *
+     * @param index name of index
+     * @throws IllegalArgumentException if there is no such index
+     */
+    @NonNull
+    Set<Object> keys(@NonNull String index);
+
+}
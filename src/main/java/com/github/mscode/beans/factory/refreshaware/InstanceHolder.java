@@ -0,0 +1,97 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reference counted holder of a single refreshable instance.
+ * <p>
+ * Factory bean holds one reference until the instance is replaced
+ * and every {@link Snapshot} holds one more. Instance is destroyed
+ * once the last reference is released.
+ *
+ * @param <T> type of held instance
+ */
+final class InstanceHolder<T> {
+
+    private final T instance;
+
+    private final long generation;
+
+    /**
+     * Data prepared for the instance, e.g. its indexes.
+     */
+    private final Object attachment;
+
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private volatile Runnable destroyAction;
+
+    private volatile long replacedAt;
+
+    InstanceHolder(T instance, long generation, Object attachment) {
+        this.instance = instance;
+        this.generation = generation;
+        this.attachment = attachment;
+    }
+
+    T getInstance() {
+        return instance;
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+
+    Object getAttachment() {
+        return attachment;
+    }
+
+    /**
+     * Time in {@link System#nanoTime()} units
+     * when instance was replaced, or {@code 0}.
+     */
+    long getReplacedAt() {
+        return replacedAt;
+    }
+
+    void markReplaced() {
+        this.replacedAt = System.nanoTime();
+    }
+
+    /**
+     * Acquires additional reference unless the instance is already released.
+     *
+     * @return {@code true} if reference is acquired
+     */
+    boolean retain() {
+        int count;
+        do {
+            count = references.get();
+            if (count == 0) {
+                return false;
+            }
+        } while (!references.compareAndSet(count, count + 1));
+        return true;
+    }
+
+    /**
+     * Releases factory bean reference. Specified action is
+     * called once all snapshots are released as well.
+     *
+     * @param destroyAction action destroying held instance
+     */
+    void retire(Runnable destroyAction) {
+        this.destroyAction = destroyAction;
+        release();
+    }
+
+    void release() {
+        if (references.decrementAndGet() == 0) {
+            Runnable action = destroyAction;
+            if (action != null) {
+                action.run();
+            }
+        }
+    }
+
+}
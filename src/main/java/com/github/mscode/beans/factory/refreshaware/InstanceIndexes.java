@@ -0,0 +1,160 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import com.github.mscode.beans.factory.refreshaware.collection.CompactHashMap;
+import com.github.mscode.beans.factory.refreshaware.collection.CompactList;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Indexes built for a single instance.
+ * <p>
+ * Unique index maps key to element, multi-valued index
+ * maps key to list of elements in the order of the instance.
+ * Elements with {@code null} key are not indexed.
+ */
+@SuppressWarnings("all")
+final class InstanceIndexes<E> implements IndexedRefreshable<E> {
+
+    private final Map<String, Map<Object, Object>> indexes;
+
+    private final Map<String, Boolean> unique;
+
+    private InstanceIndexes(Map<String, Map<Object, Object>> indexes, Map<String, Boolean> unique) {
+        this.indexes = indexes;
+        this.unique = unique;
+    }
+
+    /**
+     * Builds all indexes of specified instance, in parallel if there are more of them.
+     *
+     * @param instance    iterable or map whose values are indexed
+     * @param definitions index definitions
+     * @throws DuplicateKeyException if unique index contains duplicate key
+     */
+    static <E> InstanceIndexes<E> build(Object instance, Collection<Definition> definitions) {
+        Iterable<E> elements;
+        if (instance instanceof Map) {
+            elements = ((Map<?, E>) instance).values();
+        } else if (instance instanceof Iterable) {
+            elements = (Iterable<E>) instance;
+        } else {
+            throw new IllegalStateException("Indexes require Iterable or Map instance, but got " + instance.getClass().getName());
+        }
+
+        // read-only iteration of the instance is safe from several threads
+        Map<String, Map<Object, Object>> indexes = new LinkedHashMap<>();
+        Map<String, Boolean> unique = new LinkedHashMap<>();
+        List<Map<Object, Object>> built = (definitions.size() > 1 ? definitions.parallelStream() : definitions.stream())
+                .map(definition -> definition.build(elements))
+                .collect(Collectors.toList());
+
+        int i = 0;
+        for (Definition definition : definitions) {
+            indexes.put(definition.name, built.get(i++));
+            unique.put(definition.name, definition.unique);
+        }
+
+        return new InstanceIndexes<>(indexes, unique);
+    }
+
+    @Override
+    public E findOne(String index, Object key) {
+        Object found = index(index).get(key);
+        if (found == null || unique.get(index)) {
+            return (E) found;
+        }
+        return ((List<E>) found).get(0);
+    }
+
+    @Override
+    public List<E> findAll(String index, Object key) {
+        Object found = index(index).get(key);
+        if (found == null) {
+            return Collections.emptyList();
+        }
+        return unique.get(index) ? Collections.singletonList((E) found) : (List<E>) found;
+    }
+
+    @Override
+    public Set<Object> keys(String index) {
+        return index(index).keySet();
+    }
+
+    private Map<Object, Object> index(String name) {
+        Map<Object, Object> index = indexes.get(name);
+        Assert.isTrue(index != null, () -> "No index named " + name);
+        return index;
+    }
+
+    /**
+     * Declared index.
+     */
+    static final class Definition {
+
+        private final String name;
+
+        private final Function<Object, ?> key;
+
+        private final boolean unique;
+
+        Definition(String name, Function<?, ?> key, boolean unique) {
+            this.name = name;
+            this.key = (Function<Object, ?>) key;
+            this.unique = unique;
+        }
+
+        Map<Object, Object> build(Iterable<?> elements) {
+            if (unique) {
+                Map<Object, Object> index = new LinkedHashMap<>();
+                for (Object element : elements) {
+                    Object k = key.apply(element);
+                    if (k != null && index.putIfAbsent(k, element) != null) {
+                        throw new DuplicateKeyException(name, k);
+                    }
+                }
+                return CompactHashMap.copyOf(index);
+            }
+
+            Map<Object, List<Object>> groups = new LinkedHashMap<>();
+            for (Object element : elements) {
+                Object k = key.apply(element);
+                if (k != null) {
+                    groups.computeIfAbsent(k, ignored -> new ArrayList<>(1)).add(element);
+                }
+            }
+
+            CompactHashMap.Builder<Object, Object> builder = CompactHashMap.builder(groups.size());
+            groups.forEach((k, group) -> builder.put(k, CompactList.copyOf(group)));
+            return builder.build();
+        }
+
+    }
+
+    /**
+     * Thrown if elements of an instance violate unique index.
+     */
+    static final class DuplicateKeyException extends IllegalStateException {
+
+        private final String index;
+
+        DuplicateKeyException(String index, Object key) {
+            super("Duplicate key " + key + " in unique index " + index);
+            this.index = index;
+        }
+
+        String getIndex() {
+            return index;
+        }
+
+    }
+
+}
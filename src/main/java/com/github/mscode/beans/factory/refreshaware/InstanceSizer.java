@@ -0,0 +1,23 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.springframework.lang.NonNull;
+
+/**
+ * Estimates heap footprint of refreshable instances.
+ *
+ * @param <T> type of measured instance
+ * @see ObjectGraphSizer
+ * @see RefreshAwareFactoryBean#setSizer(InstanceSizer)
+ */
+@FunctionalInterface
+public interface InstanceSizer<T> {
+
+    /**
+     * Estimates retained heap size of specified instance.
+     *
+     * @param instance measured instance
+     * @return estimated size in bytes
+     */
+    long sizeOf(@NonNull T instance);
+
+}
@@ -0,0 +1,27 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.springframework.lang.NonNull;
+
+/**
+ * Warms up newly created instance before it is published, so
+ * the first requests served by it do not hit cold structures
+ * (page faults, lazily initialized tables, uncompiled code).
+ *
+ * @param <T> type of warmed object
+ * @see InstanceWarmers
+ * @see RefreshAwareFactoryBean#addWarmer(InstanceWarmer)
+ */
+@FunctionalInterface
+public interface InstanceWarmer<T> {
+
+    /**
+     * Warms up newly created instance. Instance is not
+     * published yet, so it is used only by this thread.
+     *
+     * @param instance newly created instance
+     * @throws Exception in case of any error. Exceptions will get logged
+     *                   and instance will get published anyway.
+     */
+    void warmUp(@NonNull T instance) throws Exception;
+
+}
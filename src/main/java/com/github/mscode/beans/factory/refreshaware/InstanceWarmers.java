@@ -0,0 +1,111 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.springframework.lang.NonNull;
+import org.springframework.util.Assert;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Factory methods for commonly used {@link InstanceWarmer}s.
+ */
+public final class InstanceWarmers {
+
+    private static final int PAGE_SIZE = 4096;
+
+    /**
+     * Prevents touched bytes from being optimized away.
+     */
+    @SuppressWarnings("unused")
+    private static volatile byte sink;
+
+    private InstanceWarmers() {
+    }
+
+    /**
+     * Looks up sample keys, e.g. the most frequently requested ones,
+     * in order to initialize internal structures of the new map.
+     *
+     * @param keys supplier of sample keys evaluated on every warm-up
+     * @param <K>  type of map keys
+     * @return warmer
+     */
+    @NonNull
+    public static <K> InstanceWarmer<Map<K, ?>> keys(@NonNull Supplier<? extends Iterable<? extends K>> keys) {
+        Objects.requireNonNull(keys);
+        return instance -> {
+            for (K key : keys.get()) {
+                instance.get(key);
+            }
+        };
+    }
+
+    /**
+     * Replays calls recorded by shadow validator
+     * against the new instance, ignoring results.
+     *
+     * @param recorder shadow validator recording live proxy calls
+     * @param <T>      type of warmed object
+     * @return warmer
+     * @see ProxyBasedRefreshAwareFactoryBean#setShadowValidator(ShadowValidator)
+     */
+    @NonNull
+    public static <T> InstanceWarmer<T> replay(@NonNull ShadowValidator<? super T> recorder) {
+        Objects.requireNonNull(recorder);
+        return recorder::replay;
+    }
+
+    /**
+     * Sequentially touches every page of specified buffers, so memory
+     * mapped content is loaded before the first request needs it.
+     * {@link MappedByteBuffer}s are loaded by {@link MappedByteBuffer#load()}.
+     *
+     * @param buffers function extracting buffers of the instance
+     * @param <T>     type of warmed object
+     * @return warmer
+     */
+    @NonNull
+    public static <T> InstanceWarmer<T> pretouch(@NonNull Function<? super T, ? extends Iterable<? extends ByteBuffer>> buffers) {
+        Objects.requireNonNull(buffers);
+        return instance -> {
+            for (ByteBuffer buffer : buffers.apply(instance)) {
+                if (buffer instanceof MappedByteBuffer) {
+                    ((MappedByteBuffer) buffer).load();
+                    continue;
+                }
+
+                // absolute reads do not modify position of shared buffer
+                byte sum = 0;
+                for (int i = 0; i < buffer.limit(); i += PAGE_SIZE) {
+                    sum += buffer.get(i);
+                }
+                sink = sum;
+            }
+        };
+    }
+
+    /**
+     * Runs specified warmer repeatedly, so hot code
+     * paths are compiled before the instance is published.
+     *
+     * @param iterations number of runs
+     * @param warmer     warmer exercising the instance
+     * @param <T>        type of warmed object
+     * @return warmer
+     */
+    @NonNull
+    public static <T> InstanceWarmer<T> repeat(int iterations, @NonNull InstanceWarmer<T> warmer) {
+        Assert.isTrue(iterations > 0, "Iterations must be positive");
+        Objects.requireNonNull(warmer);
+        return instance -> {
+            for (int i = 0; i < iterations; i++) {
+                warmer.warmUp(instance);
+            }
+        };
+    }
+
+}
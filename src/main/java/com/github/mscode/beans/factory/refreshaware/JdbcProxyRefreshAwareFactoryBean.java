@@ -0,0 +1,245 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Convenient factory bean for creating beans dependent
+ * on database content and refreshing beans on data modification.
+ * <p>
+ * Modification is detected by cheap version query
+ * (e.g. {@code SELECT MAX(updated_at) FROM table}) which
+ * must return a single value. Data is read through
+ * forward only, read only {@link ResultSet} with configured
+ * fetch size, so rows can be mapped directly into the target
+ * structure without materializing the whole table first.
+ * <p>
+ * In case incremental query is configured, refresh will fetch
+ * only rows changed since the last loaded version and pass them to
+ * {@link #refreshInstance(Object, ResultSet)}.
+ *
+ * @param <T> type of object that this factory bean creates
+ *            wrapped in {@link org.springframework.aop.framework.AopProxy}
+ */
+@SuppressWarnings("all")
+public abstract class JdbcProxyRefreshAwareFactoryBean<T> extends ProxyBasedRefreshAwareFactoryBean<T> {
+
+    private final DataSource dataSource;
+
+    private final String selectQuery;
+
+    private final String versionQuery;
+
+    private String incrementalQuery;
+
+    private int fetchSize = 1000;
+
+    /**
+     * Version observed by the last {@link #shouldRefresh()} call.
+     */
+    private volatile Object observedVersion;
+
+    /**
+     * Version of data held by current instance.
+     */
+    private volatile Object loadedVersion;
+
+    public JdbcProxyRefreshAwareFactoryBean(@NonNull DataSource dataSource, @NonNull String selectQuery, @NonNull String versionQuery) {
+        this(dataSource, selectQuery, versionQuery, null);
+    }
+
+    public JdbcProxyRefreshAwareFactoryBean(@NonNull DataSource dataSource, @NonNull String selectQuery, @NonNull String versionQuery,
+                                            TaskScheduler scheduler) {
+        this(dataSource, selectQuery, versionQuery, scheduler, Duration.ZERO, Duration.ZERO);
+    }
+
+    public JdbcProxyRefreshAwareFactoryBean(@NonNull DataSource dataSource, @NonNull String selectQuery, @NonNull String versionQuery,
+                                            TaskScheduler scheduler, Duration beforeRefresh, Duration beforeDestroy) {
+        super(scheduler, beforeRefresh, beforeDestroy);
+        this.dataSource = Objects.requireNonNull(dataSource);
+        this.selectQuery = Objects.requireNonNull(selectQuery);
+        this.versionQuery = Objects.requireNonNull(versionQuery);
+        reportSource(selectQuery, null);
+    }
+
+    /**
+     * Number of rows fetched from database in a single round trip.
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Query selecting rows changed since the last loaded version.
+     * Query must declare a single parameter which is bound to
+     * the version returned by version query.
+     *
+     * @param incrementalQuery query or {@code null} to always reload all rows
+     * @see #refreshInstance(Object, ResultSet)
+     */
+    public void setIncrementalQuery(@Nullable String incrementalQuery) {
+        this.incrementalQuery = incrementalQuery;
+    }
+
+    /**
+     * Fails fast if incremental query is configured without
+     * {@link #refreshInstance(Object, ResultSet)} to apply its rows.
+     */
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (incrementalQuery != null) {
+            Method method = ReflectionUtils.findMethod(getClass(), "refreshInstance", Object.class, ResultSet.class);
+            Assert.state(method != null && method.getDeclaringClass() != JdbcProxyRefreshAwareFactoryBean.class,
+                    () -> getClass().getSimpleName() + " must override refreshInstance(Object, ResultSet) in order to use incremental query");
+        }
+        super.afterPropertiesSet();
+    }
+
+    @NonNull
+    @Override
+    protected final T createInstance() throws Exception {
+        Object version = queryVersion();
+        T instance = query(selectQuery, null, this::createInstance);
+        this.observedVersion = version;
+        this.loadedVersion = version;
+        return instance;
+    }
+
+    @Override
+    protected final T refreshInstance() throws Exception {
+        // version is observed before data is read, so rows changed
+        // during the load are fetched again on the next refresh
+        Object version = observedVersion;
+        Object since = loadedVersion;
+
+        T instance;
+        if (incrementalQuery != null && since != null) {
+            T current = getInstance();
+            instance = query(incrementalQuery, since, rows -> refreshInstance(current, rows));
+        } else {
+            instance = query(selectQuery, null, this::refreshInstance);
+        }
+
+        if (instance != null) {
+            this.loadedVersion = version;
+        }
+
+        return instance;
+    }
+
+    /**
+     * Detects data modification by executing version query
+     * and signals for refresh attempt.
+     *
+     * @return {@code true} if version is changed
+     * @throws Exception in case of any error
+     */
+    @Override
+    protected boolean shouldRefresh() throws Exception {
+        Object version = queryVersion();
+        if (!Objects.equals(version, observedVersion)) {
+            this.observedVersion = version;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Fingerprint of the data, i.e. version observed by the last check.
+     */
+    @Override
+    protected Object getSourceFingerprint() {
+        return observedVersion;
+    }
+
+    /**
+     * Convinient template method which creates
+     * new instance based on selected rows.
+     *
+     * @param rows forward only result set positioned before the first row
+     * @return new instace
+     * @throws Exception in case of any error.
+     */
+    @NonNull
+    protected abstract T createInstance(@NonNull ResultSet rows) throws Exception;
+
+    /**
+     * Convinient template method which recreates
+     * new instance based on selected rows.
+     *
+     * @param rows forward only result set positioned before the first row
+     * @return newly created instace or {@code null} if new instance can't be created
+     * @throws Exception in case of any error.
+     */
+    @Nullable
+    protected T refreshInstance(@NonNull ResultSet rows) throws Exception {
+        return createInstance(rows);
+    }
+
+    /**
+     * Template method that subclasses must override when incremental
+     * query is configured, which is verified by {@link #afterPropertiesSet()}.
+     * Implementation should create new instance from current one by
+     * applying changed rows. Current instance must not be modified
+     * since it is still in use.
+     *
+     * @param current     instance currently in use
+     * @param changedRows rows changed since the last loaded version
+     * @return newly created instace or {@code null} if new instance can't be created
+     * @throws Exception in case of any error.
+     */
+    @Nullable
+    protected T refreshInstance(@NonNull T current, @NonNull ResultSet changedRows) throws Exception {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " must override " +
+                "refreshInstance(Object, ResultSet) in order to use incremental query");
+    }
+
+    @Nullable
+    private Object queryVersion() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(versionQuery)) {
+            return resultSet.next() ? resultSet.getObject(1) : null;
+        }
+    }
+
+    private T query(String sql, @Nullable Object parameter, RowsMapper<T> mapper) throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            // some drivers (e.g. PostgreSQL) stream rows only within transaction
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(fetchSize);
+                if (parameter != null) {
+                    statement.setObject(1, parameter);
+                }
+                try (ResultSet rows = statement.executeQuery()) {
+                    return mapper.map(rows);
+                }
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowsMapper<T> {
+        T map(ResultSet rows) throws Exception;
+    }
+
+}
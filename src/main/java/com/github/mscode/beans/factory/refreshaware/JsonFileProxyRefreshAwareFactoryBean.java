@@ -2,12 +2,20 @@ package com.github.mscode.beans.factory.refreshaware;
 
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.mscode.beans.factory.refreshaware.collection.CompactCollectionsModule;
+import com.github.mscode.beans.factory.refreshaware.collection.ValuePool;
+import com.github.mscode.beans.factory.refreshaware.collection.ValuePoolModule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ResolvableType;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 import org.springframework.scheduling.TaskScheduler;
 
+import java.io.InputStream;
 import java.io.Reader;
 import java.lang.reflect.Type;
-import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.time.Duration;
 
@@ -16,8 +24,12 @@ public class JsonFileProxyRefreshAwareFactoryBean<T> extends FileProxyRefreshAwa
 
     protected final JavaType type;
 
+    private final ResolvableType resolvableType;
+
     protected final ObjectMapper objectMapper;
 
+    private ObjectReader reader;
+
     public JsonFileProxyRefreshAwareFactoryBean(String filepath, Type type) {
         this(Path.of(filepath), type);
     }
@@ -39,23 +51,52 @@ public class JsonFileProxyRefreshAwareFactoryBean<T> extends FileProxyRefreshAwa
     }
 
     public JsonFileProxyRefreshAwareFactoryBean(Path filepath, Type type, TaskScheduler scheduler, Duration beforeRefresh, Duration beforeDestroy) {
-        this(filepath, new ObjectMapper(), type, scheduler, beforeRefresh, beforeDestroy);
+        this(filepath, new ObjectMapper().registerModule(new CompactCollectionsModule()), type, scheduler, beforeRefresh, beforeDestroy);
     }
 
     public JsonFileProxyRefreshAwareFactoryBean(Path filepath, ObjectMapper objectMapper, Type type, TaskScheduler scheduler, Duration beforeRefresh, Duration beforeDestroy) {
         super(filepath, scheduler, beforeRefresh, beforeDestroy);
         this.objectMapper = objectMapper;
         this.type = objectMapper.getTypeFactory().constructType(type);
+        this.resolvableType = ResolvableType.forType(type);
+        this.reader = objectMapper.readerFor(this.type);
+    }
+
+    /**
+     * Pool canonicalizing parsed strings and map keys, so repeated values
+     * are shared within a document and with the previous generations.
+     * Object mapper is copied, so it is not affected.
+     *
+     * @param valuePool pool or {@code null} to parse without pooling
+     * @see ValuePoolModule
+     */
+    @Autowired(required = false)
+    public void setValuePool(@Nullable ValuePool valuePool) {
+        ObjectMapper mapper = valuePool != null ? objectMapper.copy().registerModule(new ValuePoolModule(valuePool)) : objectMapper;
+        this.reader = mapper.readerFor(type);
     }
 
     @NonNull
     @Override
     protected T createInstance(@NonNull Path filepath) throws Exception {
-        try (Reader reader = Files.newBufferedReader(filepath, charset)) {
-            return (T) objectMapper.readValue(reader, type);
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            // let jackson parse UTF-8 bytes directly
+            try (InputStream in = openStream(filepath)) {
+                return reader.readValue(in);
+            }
+        }
+
+        try (Reader in = openReader(filepath)) {
+            return reader.readValue(in);
         }
     }
 
+    @NonNull
+    @Override
+    public ResolvableType getObjectResolvableType() {
+        return resolvableType;
+    }
+
     @NonNull
     @Override
     public Class<T> getObjectType() {
@@ -0,0 +1,358 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.Assert;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.BiConsumer;
+import java.util.stream.Collector;
+
+/**
+ * Convenient factory bean for line-oriented files, e.g. CSV, TSV
+ * or newline-delimited JSON.
+ * <p>
+ * Every line is mapped to a record by {@link #parseLine(String)} and records
+ * are merged by {@link #collector()} in file order. Uncompressed files
+ * of the default file system are memory mapped and split into newline-aligned
+ * chunks which are parsed in parallel on a {@link ForkJoinPool}, so build
+ * time scales with cores. Compressed files, files of other file systems
+ * and charsets which are not ASCII compatible are parsed sequentially.
+ * <p>
+ * Every chunk is mapped only while it is parsed and unmapped right after,
+ * so at most one mapping per pool thread is alive. Where the JVM does not
+ * allow explicit unmapping, mappings are released by garbage collection.
+ * <p>
+ * Lines are terminated by {@code \n}, {@code \r\n} or {@code \r}
+ * like {@link BufferedReader#readLine()}, empty lines are skipped.
+ *
+ * @param <R> type of records
+ * @param <T> type of object that this factory bean creates
+ *            wrapped in {@link org.springframework.aop.framework.AopProxy}
+ */
+@SuppressWarnings("all")
+public abstract class LineFileProxyRefreshAwareFactoryBean<R, T> extends FileProxyRefreshAwareFactoryBean<T> {
+
+    private static final Set<Charset> ASCII_COMPATIBLE = Set.of(StandardCharsets.UTF_8, StandardCharsets.US_ASCII, StandardCharsets.ISO_8859_1);
+
+    @Nullable
+    private static final MethodHandle UNMAP = unmapHandle();
+
+    private ForkJoinPool pool;
+
+    /**
+     * Pool created by this bean if no pool is set, shut down on {@link #destroy()}.
+     */
+    private ForkJoinPool ownPool;
+
+    private boolean destroyed;
+
+    private int chunkSize = 8 * 1024 * 1024;
+
+    private int skipLines;
+
+    public LineFileProxyRefreshAwareFactoryBean(@NonNull String filepath) {
+        this(Path.of(filepath));
+    }
+
+    public LineFileProxyRefreshAwareFactoryBean(@NonNull Path filepath) {
+        this(filepath, null);
+    }
+
+    public LineFileProxyRefreshAwareFactoryBean(@NonNull Path filepath, TaskScheduler scheduler) {
+        this(filepath, scheduler, Duration.ZERO, Duration.ZERO);
+    }
+
+    public LineFileProxyRefreshAwareFactoryBean(@NonNull Path filepath, TaskScheduler scheduler, Duration beforeRefresh, Duration beforeDestroy) {
+        super(filepath, scheduler, beforeRefresh, beforeDestroy);
+    }
+
+    /**
+     * Pool parsing the chunks, it is not shut down by this bean. Default
+     * is a pool with a thread per core created by this bean once a file
+     * is parsed in parallel for the first time and shut down on {@link #destroy()}.
+     */
+    public synchronized void setForkJoinPool(@NonNull ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    /**
+     * Approximate size of chunks parsed in parallel. Chunks are extended
+     * to the end of the line. Default is 8 MB.
+     */
+    public void setChunkSize(int chunkSize) {
+        Assert.isTrue(chunkSize > 0, "Chunk size must be positive");
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Number of leading lines which are not parsed, e.g. CSV header.
+     * Default is {@code 0}.
+     */
+    public void setSkipLines(int skipLines) {
+        Assert.isTrue(skipLines >= 0, "Number of skipped lines must not be negative");
+        this.skipLines = skipLines;
+    }
+
+    /**
+     * Template method that subclasses must override to map a single line
+     * to a record. Called concurrently for lines of different chunks.
+     *
+     * @param line line without terminator
+     * @return record or {@code null} to skip the line
+     * @throws Exception in case of any error
+     */
+    @Nullable
+    protected abstract R parseLine(@NonNull String line) throws Exception;
+
+    /**
+     * Template method that subclasses must override to merge records
+     * into the instance. Every chunk is accumulated into its own container
+     * and containers are combined in file order.
+     *
+     * @return collector of records
+     */
+    @NonNull
+    protected abstract Collector<? super R, ?, T> collector();
+
+    @NonNull
+    @Override
+    protected T createInstance(@NonNull Path filepath) throws Exception {
+        return parse(filepath, (Collector<R, Object, T>) collector());
+    }
+
+    private <A> T parse(Path filepath, Collector<R, A, T> collector) throws Exception {
+        if (!ASCII_COMPATIBLE.contains(charset) || !isMappable(filepath)) {
+            return parseSequentially(filepath, collector);
+        }
+
+        ForkJoinPool pool = pool();
+        try (FileChannel channel = FileChannel.open(filepath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<Long> bounds = split(channel, size);
+
+            List<ForkJoinTask<A>> tasks = new ArrayList<>(bounds.size() - 1);
+            for (int i = 0; i < bounds.size() - 1; i++) {
+                long start = bounds.get(i);
+                long end = bounds.get(i + 1);
+                int skip = i == 0 ? skipLines : 0;
+                tasks.add(pool.submit(() -> {
+                    try {
+                        return parseChunk(channel, start, end, skip, collector);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }));
+            }
+
+            A result = null;
+            try {
+                for (ForkJoinTask<A> task : tasks) {
+                    A container = task.get();
+                    result = result == null ? container : collector.combiner().apply(result, container);
+                }
+            } catch (ExecutionException e) {
+                tasks.forEach(task -> task.cancel(false));
+                Throwable cause = e.getCause();
+                while (cause instanceof CompletionException && cause.getCause() != null) {
+                    cause = cause.getCause();
+                }
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+
+            reportBytesRead(size);
+            reportBytesParsed(size);
+            return collector.finisher().apply(result != null ? result : collector.supplier().get());
+        }
+    }
+
+    /**
+     * Offsets of chunk bounds, every chunk except the last one ends right after a line terminator.
+     */
+    private List<Long> split(FileChannel channel, long size) throws IOException {
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer buffer = ByteBuffer.allocate(Compression.BUFFER_SIZE);
+        long position = chunkSize;
+        while (position < size) {
+            long next = nextLine(channel, buffer, position);
+            if (next >= size) {
+                break;
+            }
+            bounds.add(next);
+            position = next + chunkSize;
+        }
+        if (size > 0) {
+            bounds.add(size);
+        }
+        return bounds;
+    }
+
+    private long nextLine(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                return Long.MAX_VALUE;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n') {
+                    return position + i + 1;
+                } else if (b == '\r') {
+                    // keeps \r\n together, even if split across reads
+                    long next = position + i + 1;
+                    ByteBuffer following = ByteBuffer.allocate(1);
+                    return channel.read(following, next) > 0 && following.get(0) == '\n' ? next + 1 : next;
+                }
+            }
+            position += read;
+        }
+    }
+
+    private <A> A parseChunk(FileChannel channel, long start, long end, int skip, Collector<R, A, T> collector) throws Exception {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        try {
+            return parseChunk(buffer, skip, collector);
+        } finally {
+            unmap(buffer);
+        }
+    }
+
+    private <A> A parseChunk(MappedByteBuffer buffer, int skip, Collector<R, A, T> collector) throws Exception {
+        A container = collector.supplier().get();
+        BiConsumer<A, R> accumulator = collector.accumulator();
+        byte[] bytes = new byte[256];
+
+        int limit = buffer.limit();
+        int lineStart = 0;
+        for (int i = 0; i <= limit; i++) {
+            byte b = i < limit ? buffer.get(i) : (byte) '\n';
+            if (b != '\n' && b != '\r') {
+                continue;
+            }
+
+            int length = i - lineStart;
+            if (b == '\r' && i + 1 < limit && buffer.get(i + 1) == '\n') {
+                i++;
+            }
+            if (length > 0) {
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    if (bytes.length < length) {
+                        bytes = new byte[Math.max(length, bytes.length * 2)];
+                    }
+                    buffer.position(lineStart);
+                    buffer.get(bytes, 0, length);
+                    R record = parseLine(new String(bytes, 0, length, charset));
+                    if (record != null) {
+                        accumulator.accept(container, record);
+                    }
+                }
+            }
+            lineStart = i + 1;
+        }
+
+        return container;
+    }
+
+    private <A> T parseSequentially(Path filepath, Collector<R, A, T> collector) throws Exception {
+        A container = collector.supplier().get();
+        BiConsumer<A, R> accumulator = collector.accumulator();
+        int skip = skipLines;
+
+        try (BufferedReader reader = new BufferedReader(openReader(filepath))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                } else if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                R record = parseLine(line);
+                if (record != null) {
+                    accumulator.accept(container, record);
+                }
+            }
+        }
+
+        return collector.finisher().apply(container);
+    }
+
+    /**
+     * Releases the mapping without waiting for garbage collection,
+     * the buffer must not be accessed afterwards.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (UNMAP == null) {
+            return;
+        }
+        try {
+            UNMAP.invokeExact((ByteBuffer) buffer);
+        } catch (Throwable e) {
+            // released by garbage collection
+        }
+    }
+
+    @Nullable
+    private static MethodHandle unmapHandle() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            MethodHandle invokeCleaner = MethodHandles.lookup().findVirtual(unsafeClass, "invokeCleaner",
+                    MethodType.methodType(void.class, ByteBuffer.class));
+            return invokeCleaner.bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private synchronized ForkJoinPool pool() {
+        Assert.state(!destroyed, "Factory bean is already destroyed");
+        if (pool == null) {
+            ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = owner -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(owner);
+                thread.setName("line-file-parser-" + thread.getPoolIndex());
+                return thread;
+            };
+            ownPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), threadFactory, null, false);
+            pool = ownPool;
+        }
+        return pool;
+    }
+
+    @Override
+    synchronized void beanDestroyed() {
+        destroyed = true;
+        if (ownPool != null) {
+            ownPool.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,231 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.springframework.lang.NonNull;
+import org.springframework.util.Assert;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Estimates retained size of an object graph by walking it.
+ * <p>
+ * Layout is approximated for 64-bit JVM with compressed references.
+ * Collections, maps and arrays larger than sample size are measured
+ * only through an evenly spread sample of their elements and the result
+ * is extrapolated, so even very large instances are measured quickly.
+ * <p>
+ * Fields of application classes are walked reflectively, while classes
+ * of named modules (e.g. JDK) are measured by their shallow size only,
+ * except strings, collections, maps and arrays which are measured
+ * through their public API. Collections and maps of application classes,
+ * e.g. {@link com.github.mscode.beans.factory.refreshaware.collection.CompactHashMap}
+ * or {@link com.github.mscode.beans.factory.refreshaware.collection.PersistentHashMap},
+ * are walked through their fields as well, so they are measured by their
+ * backing arrays and nodes instead of an estimated per-entry overhead.
+ * Shared objects are counted only once.
+ */
+public class ObjectGraphSizer implements InstanceSizer<Object> {
+
+    private static final int OBJECT_HEADER = 12;
+
+    private static final int ARRAY_HEADER = 16;
+
+    private static final int REFERENCE = 4;
+
+    /**
+     * Approximate size of a hash map node with its table slot.
+     */
+    private static final int MAP_ENTRY = 36;
+
+    private static final ClassValue<Long> SHALLOW_SIZES = new ClassValue<>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            long size = OBJECT_HEADER;
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        size += sizeOf(field.getType());
+                    }
+                }
+            }
+            return align(size);
+        }
+    };
+
+    private static final ClassValue<List<Field>> REFERENCE_FIELDS = new ClassValue<>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                if (current.getModule().isNamed()) {
+                    break;
+                }
+                for (Field field : current.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive() && field.trySetAccessible()) {
+                        fields.add(field);
+                    }
+                }
+            }
+            return Collections.unmodifiableList(fields);
+        }
+    };
+
+    private int sampleSize = 64;
+
+    private int maxDepth = 128;
+
+    /**
+     * Number of elements measured in collections,
+     * maps and arrays. Default is 64.
+     */
+    public void setSampleSize(int sampleSize) {
+        Assert.isTrue(sampleSize > 0, "Sample size must be positive");
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * Maximal depth of walked graph. Deeper objects are
+     * not measured. Default is 128.
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public long sizeOf(@NonNull Object instance) {
+        return new Walk().sizeOf(instance, 0);
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    private static int sizeOf(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        } else if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE;
+    }
+
+    /**
+     * Single measurement keeping track of visited objects.
+     */
+    private class Walk {
+
+        private final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        long sizeOf(Object object, int depth) {
+            if (object == null || depth > maxDepth || !visited.add(object)) {
+                return 0;
+            }
+
+            Class<?> type = object.getClass();
+            if (type.isArray()) {
+                return arraySizeOf(object, type.getComponentType(), depth);
+            }
+
+            long size = SHALLOW_SIZES.get(type);
+            if (object instanceof String) {
+                // assumes compact latin-1 strings
+                return size + align(ARRAY_HEADER + ((String) object).length());
+            } else if (!type.getModule().isNamed()) {
+                // layout is known, including collections backed by arrays
+                return size + fieldsSizeOf(object, type, depth);
+            } else if (object instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) object;
+                return size + (long) map.size() * MAP_ENTRY + sampledSizeOf(map.entrySet(), depth, true);
+            } else if (object instanceof Collection) {
+                Collection<?> collection = (Collection<?>) object;
+                int overhead = object instanceof Set ? MAP_ENTRY : REFERENCE;
+                return size + (long) collection.size() * overhead + sampledSizeOf(collection, depth, false);
+            }
+
+            return size;
+        }
+
+        private long fieldsSizeOf(Object object, Class<?> type, int depth) {
+            long size = 0;
+            for (Field field : REFERENCE_FIELDS.get(type)) {
+                try {
+                    size += sizeOf(field.get(object), depth + 1);
+                } catch (IllegalAccessException e) {
+                    // not accessible, measured by shallow size only
+                }
+            }
+            return size;
+        }
+
+        private long arraySizeOf(Object array, Class<?> componentType, int depth) {
+            int length = Array.getLength(array);
+            long size = align(ARRAY_HEADER + (long) length * ObjectGraphSizer.sizeOf(componentType));
+            if (componentType.isPrimitive() || length == 0) {
+                return size;
+            }
+
+            Object[] elements = (Object[]) array;
+            int step = Math.max(1, length / sampleSize);
+            long sampled = 0;
+            int count = 0;
+            for (int i = 0; i < length; i += step) {
+                sampled += sizeOf(elements[i], depth + 1);
+                count++;
+            }
+
+            return size + extrapolate(sampled, count, length);
+        }
+
+        private long sampledSizeOf(Collection<?> elements, int depth, boolean entries) {
+            int size = elements.size();
+            int step = Math.max(1, size / sampleSize);
+            long sampled = 0;
+            int count = 0;
+
+            if (elements instanceof List && elements instanceof RandomAccess) {
+                List<?> list = (List<?>) elements;
+                for (int i = 0; i < size; i += step) {
+                    sampled += sizeOf(list.get(i), depth + 1);
+                    count++;
+                }
+                return extrapolate(sampled, count, size);
+            }
+
+            // sample is spread over all elements, so iteration order does not bias it
+            int index = 0;
+            for (Object element : elements) {
+                if (index++ % step != 0) {
+                    continue;
+                }
+                if (entries) {
+                    Map.Entry<?, ?> entry = (Map.Entry<?, ?>) element;
+                    sampled += sizeOf(entry.getKey(), depth + 1) + sizeOf(entry.getValue(), depth + 1);
+                } else {
+                    sampled += sizeOf(element, depth + 1);
+                }
+                count++;
+            }
+
+            return extrapolate(sampled, count, size);
+        }
+
+        private long extrapolate(long sampled, int count, int size) {
+            return count == 0 || count >= size ? sampled : (long) ((double) sampled / count * size);
+        }
+
+    }
+
+}
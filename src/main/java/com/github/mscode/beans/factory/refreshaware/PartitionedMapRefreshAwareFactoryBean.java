@@ -0,0 +1,339 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Factory bean for large maps split into partitions which are
+ * created and refreshed independently of each other.
+ * <p>
+ * Every partition is backed by its own source (e.g. separate file)
+ * and has its own {@link #shouldRefresh(int)}, so a refresh rebuilds
+ * only changed partitions. Partitions are refreshed one by one and
+ * replaced partition is released before the next one is created,
+ * so refresh needs at most {@code 1 + 1/N} of the map memory
+ * instead of {@code 2x} needed to rebuild the whole map.
+ * <p>
+ * Exposed map is a read-only facade routing lookups to the partition
+ * returned by {@link #partition(Object)}. Every partition source must
+ * contain exactly the keys routed to that partition.
+ *
+ * @param <K> type of map keys
+ * @param <V> type of map values
+ * @see RefreshAwareFactoryBean
+ */
+@SuppressWarnings("all")
+public abstract class PartitionedMapRefreshAwareFactoryBean<K, V>
+        implements FactoryBean<Map<K, V>>, InitializingBean, RefreshableBean, BeanNameAware, DisposableBean {
+
+    private final List<Partition> partitions;
+
+    private final Map<K, V> facade = new PartitionedMap();
+
+    /**
+     * Creates factory bean with specified number of partitions.
+     *
+     * @param partitions number of partitions
+     */
+    public PartitionedMapRefreshAwareFactoryBean(int partitions) {
+        Assert.isTrue(partitions > 0, "At least one partition is required");
+        List<Partition> list = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            list.add(new Partition(i));
+        }
+        this.partitions = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Number of partitions.
+     */
+    public final int getPartitions() {
+        return partitions.size();
+    }
+
+    /**
+     * Gives access to the instances of a single partition,
+     * e.g. in order to acquire its snapshot.
+     *
+     * @param partition index of partition
+     * @return partition reference
+     */
+    @NonNull
+    public final RefreshableRef<Map<K, V>> getPartition(int partition) {
+        return partitions.get(partition);
+    }
+
+    /**
+     * Names partitions after this bean, e.g. {@code name[0]}.
+     */
+    @Override
+    public void setBeanName(@NonNull String name) {
+        for (Partition partition : partitions) {
+            partition.setBeanName(name + "[" + partition.index + "]");
+        }
+    }
+
+    /**
+     * Controller bounding heap pressure of concurrent refreshes,
+     * shared by all partitions.
+     *
+     * @param admissionController controller or {@code null} to refresh without admission
+     * @see RefreshAwareFactoryBean#setAdmissionController(RefreshAdmissionController)
+     */
+    @Autowired(required = false)
+    public void setAdmissionController(@Nullable RefreshAdmissionController admissionController) {
+        for (Partition partition : partitions) {
+            partition.setAdmissionController(admissionController);
+        }
+    }
+
+    /**
+     * Policy for retrying failed refreshes, applied
+     * to every partition separately.
+     *
+     * @param backoff policy or {@code null} to retry only when {@link #shouldRefresh(int)} signals it
+     * @see RefreshAwareFactoryBean#setBackoff(RefreshBackoff)
+     */
+    @Autowired(required = false)
+    public void setBackoff(@Nullable RefreshBackoff backoff) {
+        for (Partition partition : partitions) {
+            partition.setBackoff(backoff);
+        }
+    }
+
+    /**
+     * Template method that subclasses must override
+     * to create content of a single partition.
+     *
+     * @param partition index of partition
+     * @return partition content
+     * @throws Exception in case of any error.
+     */
+    @NonNull
+    protected abstract Map<K, V> createPartition(int partition) throws Exception;
+
+    /**
+     * Template method that subclasses should override in
+     * order to recreate content of a single partition.
+     * <p>
+     * The default implementation will call {@link #createPartition(int)}.
+     *
+     * @param partition index of partition
+     * @return recreated content or {@code null} if it can't be created
+     * @throws Exception in case of any error. Exceptions will get logged.
+     */
+    @Nullable
+    protected Map<K, V> refreshPartition(int partition) throws Exception {
+        return createPartition(partition);
+    }
+
+    /**
+     * Template method that subclasses must override in order
+     * to signal whether the partition should be recreated or not.
+     *
+     * @param partition index of partition
+     * @return whether to call {@link #refreshPartition(int)} or not
+     * @throws Exception in case of any error. Exceptions will get logged.
+     */
+    protected abstract boolean shouldRefresh(int partition) throws Exception;
+
+    /**
+     * Callback for destroying replaced partition content.
+     * <p>
+     * The default implementation will try to call {@link AutoCloseable#close()}
+     *
+     * @param partition index of partition
+     * @param content   replaced content
+     * @throws Exception in case of any error. Exceptions will get logged.
+     */
+    protected void destroyPartition(int partition, @NonNull Map<K, V> content) throws Exception {
+        if (content instanceof AutoCloseable) {
+            ((AutoCloseable) content).close();
+        }
+    }
+
+    /**
+     * Routes key to its partition. Must be consistent
+     * with the way how partition sources are split.
+     * <p>
+     * The default implementation spreads {@link Object#hashCode()}
+     * the same way as {@link java.util.HashMap} does.
+     *
+     * @param key map key
+     * @return index of partition
+     */
+    protected int partition(@NonNull Object key) {
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), partitions.size());
+    }
+
+    @NonNull
+    @Override
+    public final Map<K, V> getObject() {
+        return facade;
+    }
+
+    @Override
+    public final Class<?> getObjectType() {
+        return Map.class;
+    }
+
+    @Override
+    public final boolean isSingleton() {
+        return true;
+    }
+
+    /**
+     * Eagerly create all partitions.
+     */
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        for (Partition partition : partitions) {
+            partition.afterPropertiesSet();
+        }
+    }
+
+    /**
+     * Refreshes changed partitions one by one.
+     */
+    @Override
+    public final void refresh() {
+        for (Partition partition : partitions) {
+            partition.refresh();
+        }
+    }
+
+    /**
+     * Recreates all partitions one by one.
+     */
+    @Override
+    public final void forceRefresh() {
+        for (Partition partition : partitions) {
+            partition.forceRefresh();
+        }
+    }
+
+    @Override
+    public final void destroy() {
+        for (Partition partition : partitions) {
+            partition.destroy();
+        }
+    }
+
+    private Map<K, V> lookup(Object key) {
+        return partitions.get(partition(key)).getInstance();
+    }
+
+    /**
+     * Single partition with its own refresh life cycle.
+     */
+    private class Partition extends RefreshAwareFactoryBean<Map<K, V>> {
+
+        private final int index;
+
+        Partition(int index) {
+            this.index = index;
+        }
+
+        @NonNull
+        @Override
+        protected Map<K, V> createInstance() throws Exception {
+            return createPartition(index);
+        }
+
+        @Override
+        protected Map<K, V> refreshInstance() throws Exception {
+            return refreshPartition(index);
+        }
+
+        @Override
+        protected boolean shouldRefresh() throws Exception {
+            return PartitionedMapRefreshAwareFactoryBean.this.shouldRefresh(index);
+        }
+
+        @Override
+        protected void destroyInstance(@NonNull Map<K, V> instance) throws Exception {
+            destroyPartition(index, instance);
+        }
+
+        @Override
+        public Map<K, V> getObject() {
+            return getInstance();
+        }
+
+        @Override
+        public Class<?> getObjectType() {
+            return Map.class;
+        }
+
+    }
+
+    /**
+     * Read-only map routing lookups to partitions.
+     */
+    private class PartitionedMap extends AbstractMap<K, V> {
+
+        @Override
+        public V get(Object key) {
+            return key == null ? null : lookup(key).get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key != null && lookup(key).containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (Partition partition : partitions) {
+                size += partition.getInstance().size();
+            }
+            return size;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            for (Partition partition : partitions) {
+                if (!partition.getInstance().isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return partitions.stream()
+                            .flatMap(partition -> Collections.unmodifiableMap(partition.getInstance()).entrySet().stream())
+                            .iterator();
+                }
+
+                @Override
+                public int size() {
+                    return PartitionedMap.this.size();
+                }
+            };
+        }
+
+    }
+
+}
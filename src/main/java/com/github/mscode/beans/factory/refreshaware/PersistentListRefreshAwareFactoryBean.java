@@ -0,0 +1,80 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import com.github.mscode.beans.factory.refreshaware.collection.PersistentVector;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Convenient factory bean for large lists whose consecutive
+ * generations share unchanged elements.
+ * <p>
+ * Instances are {@link PersistentVector}s. On refresh, the new generation
+ * is derived from the current one by applying only the differences
+ * position by position, so unchanged leaves are physically shared.
+ * It suits lists which are mostly modified in place or at the end.
+ *
+ * @param <E> type of list elements
+ * @see PersistentMapRefreshAwareFactoryBean
+ */
+@SuppressWarnings("all")
+public abstract class PersistentListRefreshAwareFactoryBean<E> extends ProxyBasedRefreshAwareFactoryBean<List<E>> {
+
+    public PersistentListRefreshAwareFactoryBean() {
+    }
+
+    public PersistentListRefreshAwareFactoryBean(TaskScheduler scheduler) {
+        super(scheduler);
+    }
+
+    public PersistentListRefreshAwareFactoryBean(TaskScheduler scheduler, Duration beforeRefresh, Duration beforeDestroy) {
+        super(scheduler, beforeRefresh, beforeDestroy);
+    }
+
+    /**
+     * Template method that subclasses must override
+     * to load the whole content of the list from its source.
+     *
+     * @return list content
+     * @throws Exception in case of any error.
+     */
+    @NonNull
+    protected abstract List<E> loadContent() throws Exception;
+
+    /**
+     * Template method that subclasses may override in order to
+     * derive new generation from the current one, e.g. by applying
+     * only changed elements through {@link PersistentVector#with(int, Object)}
+     * and {@link PersistentVector#append(Object)}.
+     * <p>
+     * The default implementation loads the whole content and
+     * applies its differences with {@link PersistentVector#update(List)}.
+     *
+     * @param current current instance
+     * @return new generation, current instance if nothing is changed or
+     * {@code null} if new instance can't be created
+     * @throws Exception in case of any error. Exceptions will get logged.
+     */
+    @Nullable
+    protected PersistentVector<E> refreshInstance(@NonNull PersistentVector<E> current) throws Exception {
+        return current.update(loadContent());
+    }
+
+    @NonNull
+    @Override
+    protected final List<E> createInstance() throws Exception {
+        return PersistentVector.copyOf(loadContent());
+    }
+
+    @Override
+    protected final List<E> refreshInstance() throws Exception {
+        // dummy instance might not be persistent
+        PersistentVector<E> current = PersistentVector.copyOf(getInstance());
+        PersistentVector<E> instance = refreshInstance(current);
+        return instance != current ? instance : null;
+    }
+
+}
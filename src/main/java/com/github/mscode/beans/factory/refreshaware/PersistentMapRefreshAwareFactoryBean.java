@@ -0,0 +1,82 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import com.github.mscode.beans.factory.refreshaware.collection.PersistentHashMap;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Convenient factory bean for large maps whose consecutive
+ * generations share unchanged entries.
+ * <p>
+ * Instances are {@link PersistentHashMap}s. On refresh, the new generation
+ * is derived from the current one by applying only the differences,
+ * so unchanged subtrees are physically shared. Allocation and promotion
+ * of every refresh drop roughly in proportion to the unchanged fraction,
+ * while the loaded content itself dies young.
+ *
+ * @param <K> type of map keys
+ * @param <V> type of map values
+ * @see PersistentListRefreshAwareFactoryBean
+ */
+@SuppressWarnings("all")
+public abstract class PersistentMapRefreshAwareFactoryBean<K, V> extends ProxyBasedRefreshAwareFactoryBean<Map<K, V>> {
+
+    public PersistentMapRefreshAwareFactoryBean() {
+    }
+
+    public PersistentMapRefreshAwareFactoryBean(TaskScheduler scheduler) {
+        super(scheduler);
+    }
+
+    public PersistentMapRefreshAwareFactoryBean(TaskScheduler scheduler, Duration beforeRefresh, Duration beforeDestroy) {
+        super(scheduler, beforeRefresh, beforeDestroy);
+    }
+
+    /**
+     * Template method that subclasses must override
+     * to load the whole content of the map from its source.
+     *
+     * @return map content
+     * @throws Exception in case of any error.
+     */
+    @NonNull
+    protected abstract Map<K, V> loadContent() throws Exception;
+
+    /**
+     * Template method that subclasses may override in order to
+     * derive new generation from the current one, e.g. by applying
+     * only changed entries through {@link PersistentHashMap#with(Object, Object)}
+     * and {@link PersistentHashMap#without(Object)}.
+     * <p>
+     * The default implementation loads the whole content and
+     * applies its differences with {@link PersistentHashMap#update(Map)}.
+     *
+     * @param current current instance
+     * @return new generation, current instance if nothing is changed or
+     * {@code null} if new instance can't be created
+     * @throws Exception in case of any error. Exceptions will get logged.
+     */
+    @Nullable
+    protected PersistentHashMap<K, V> refreshInstance(@NonNull PersistentHashMap<K, V> current) throws Exception {
+        return current.update(loadContent());
+    }
+
+    @NonNull
+    @Override
+    protected final Map<K, V> createInstance() throws Exception {
+        return PersistentHashMap.copyOf(loadContent());
+    }
+
+    @Override
+    protected final Map<K, V> refreshInstance() throws Exception {
+        // dummy instance might not be persistent
+        PersistentHashMap<K, V> current = PersistentHashMap.copyOf(getInstance());
+        PersistentHashMap<K, V> instance = refreshInstance(current);
+        return instance != current ? instance : null;
+    }
+
+}
@@ -2,11 +2,20 @@ package com.github.mscode.beans.factory.refreshaware;
 
 import org.springframework.aop.TargetSource;
 import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.core.ResolvableType;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.Assert;
 
 import java.lang.reflect.Method;
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Convinient based factory bean.
@@ -29,7 +38,53 @@ public abstract class ProxyBasedRefreshAwareFactoryBean<T> extends RefreshAwareF
      * Type of object that
      * this FactoryBean creates.
      */
-    private Class<T> type;
+    private volatile ResolvableType type;
+
+    /**
+     * Records live proxy calls in shadow mode.
+     */
+    private ShadowValidator<T> shadowValidator;
+
+    /**
+     * Strategy used to create {@link #proxy}.
+     */
+    private ProxyStrategy proxyStrategy = ProxyStrategy.AOP;
+
+    /**
+     * Emits events for slow proxy calls.
+     */
+    private SlowCallInterceptor slowCalls;
+
+    /**
+     * Indexes built for every instance.
+     */
+    private final Map<String, InstanceIndexes.Definition> indexes = new LinkedHashMap<>();
+
+    /**
+     * Queries indexes of the current instance.
+     */
+    private final IndexedRefreshable<?> indexed = new IndexedRefreshable<>() {
+        @Override
+        public Object findOne(String index, Object key) {
+            return current().findOne(index, key);
+        }
+
+        @Override
+        public List<Object> findAll(String index, Object key) {
+            return current().findAll(index, key);
+        }
+
+        @Override
+        public Set<Object> keys(String index) {
+            return current().keys(index);
+        }
+
+        private InstanceIndexes<Object> current() {
+            InstanceIndexes<Object> current = (InstanceIndexes<Object>) getHolder().getAttachment();
+            Assert.state(current != null, "No indexes declared");
+            return current;
+        }
+    };
 
     public ProxyBasedRefreshAwareFactoryBean() {
     }
@@ -53,6 +108,82 @@ public abstract class ProxyBasedRefreshAwareFactoryBean<T> extends RefreshAwareF
         return proxy;
     }
 
+    /**
+     * Enables shadow mode in which a sample of live proxy calls
+     * is replayed against every refreshed instance before it is published.
+     * <p>
+     * Must be set before {@link #afterPropertiesSet()}, which fails
+     * if the validator compares neither results nor latency.
+     *
+     * @param shadowValidator validator recording proxy calls
+     */
+    public void setShadowValidator(@NonNull ShadowValidator<T> shadowValidator) {
+        this.shadowValidator = shadowValidator;
+        addValidator(shadowValidator);
+    }
+
+    /**
+     * Strategy used to create proxy. Default is {@link ProxyStrategy#AOP}.
+     * <p>
+     * Must be set before {@link #afterPropertiesSet()}.
+     *
+     * @param proxyStrategy proxy strategy
+     */
+    public void setProxyStrategy(@NonNull ProxyStrategy proxyStrategy) {
+        this.proxyStrategy = Objects.requireNonNull(proxyStrategy);
+    }
+
+    /**
+     * Enables {@link RefreshEvents.SlowProxyCallEvent} emitted
+     * for proxy calls exceeding specified threshold. Calls are
+     * measured only while the event is enabled in a JFR recording.
+     * <p>
+     * Must be set before {@link #afterPropertiesSet()}.
+     *
+     * @param threshold minimal duration of reported call or {@code null} to disable
+     */
+    public void setSlowCallThreshold(@Nullable Duration threshold) {
+        this.slowCalls = threshold != null ? new SlowCallInterceptor(threshold, this::getBeanName, this::getGeneration) : null;
+    }
+
+    /**
+     * Declares index of elements of every created instance, which must be
+     * {@link Iterable} (e.g. {@code List<Model>}) or {@link Map} whose values
+     * are indexed. Indexes are built in parallel before the instance is
+     * published and they are published together with it.
+     * Refreshed instance violating unique index is rejected.
+     * <p>
+     * Must be called before {@link #afterPropertiesSet()}.
+     *
+     * @param name   name of index
+     * @param key    extracts indexed key from element, elements with {@code null} key are not indexed
+     * @param unique whether every key identifies at most one element
+     * @param <E>    type of indexed elements
+     * @see #indexed()
+     */
+    public <E> void addIndex(@NonNull String name, @NonNull Function<? super E, ?> key, boolean unique) {
+        Assert.state(getGeneration() == 0, "Indexes must be declared before initialization");
+        Assert.isTrue(!indexes.containsKey(name), () -> "Duplicate index " + name);
+        indexes.put(name, new InstanceIndexes.Definition(name, key, unique));
+    }
+
+    /**
+     * Queries elements of the current instance through declared indexes.
+     *
+     * @param <E> type of indexed elements
+     * @return view of indexes of the current instance
+     * @see #addIndex(String, Function, boolean)
+     */
+    @NonNull
+    public final <E> IndexedRefreshable<E> indexed() {
+        return (IndexedRefreshable<E>) indexed;
+    }
+
+    @Override
+    Object prepareInstance(@NonNull T instance) throws Exception {
+        return indexes.isEmpty() ? null : InstanceIndexes.build(instance, indexes.values());
+    }
+
     @Override
     public final boolean isSingleton() {
         return true;
@@ -60,8 +191,20 @@ public abstract class ProxyBasedRefreshAwareFactoryBean<T> extends RefreshAwareF
 
     @Override
     public void afterPropertiesSet() throws Exception {
+        Assert.state(shadowValidator == null || shadowValidator.isComparing(), () -> "Shadow validator of "
+                + getClass().getSimpleName() + " compares nothing, set max mismatch ratio below 1.0 or max latency ratio");
         super.afterPropertiesSet();
-        this.proxy = (T) ProxyFactory.getProxy(new TargetSource() {
+
+        Class<T> type = getObjectType();
+        if (proxyStrategy == ProxyStrategy.JDK || (proxyStrategy == ProxyStrategy.AUTO && type.isInterface())) {
+            Assert.state(type.isInterface(), () -> "JDK proxy strategy requires interface type, but "
+                    + getClass().getSimpleName() + " creates " + type.getName());
+            this.proxy = DelegatingInvocationHandler.createProxy(type, getClass().getClassLoader(), this::getInstance, shadowValidator, slowCalls);
+            return;
+        }
+
+        ProxyFactory proxyFactory = new ProxyFactory();
+        proxyFactory.setTargetSource(new TargetSource() {
             public boolean isStatic() {
                 return false;
             }
@@ -77,6 +220,43 @@ public abstract class ProxyBasedRefreshAwareFactoryBean<T> extends RefreshAwareF
             public void releaseTarget(Object target) throws Exception {
             }
         });
+
+        if (slowCalls != null) {
+            proxyFactory.addAdvice(slowCalls);
+        }
+
+        if (shadowValidator != null) {
+            proxyFactory.addAdvice(shadowValidator);
+        }
+
+        this.proxy = (T) proxyFactory.getProxy();
+    }
+
+    /**
+     * Attempts to auto discover generic type of object
+     * managed by this factory bean, e.g. {@code List<Integer>}.
+     * <p>
+     * Type is resolved from the type argument of this class
+     * and, if it is not resolvable (e.g. raw subclass), from the return type
+     * of declared {@code createInstance} method. Resolved type is cached.
+     *
+     * @return type of object that this factory creates or
+     * {@link ResolvableType#NONE} if auto discovery fails.
+     */
+    @NonNull
+    public ResolvableType getObjectResolvableType() {
+        ResolvableType type = this.type;
+        if (type == null) {
+            ResolvableType factoryType = ResolvableType.forClass(getClass()).as(ProxyBasedRefreshAwareFactoryBean.class);
+            type = factoryType.getGeneric(0);
+            // unresolvable type variable would resolve to its bound
+            if (factoryType.hasUnresolvableGenerics()) {
+                type = resolveCreateInstanceReturnType();
+            }
+            this.type = type;
+        }
+
+        return type;
     }
 
     /**
@@ -85,39 +265,40 @@ public abstract class ProxyBasedRefreshAwareFactoryBean<T> extends RefreshAwareF
      *
      * @return type of object that this factory creates.
      * @throws IllegalStateException if auto discovery fails
+     * @see #getObjectResolvableType()
      */
     @NonNull
     @Override
     public Class<T> getObjectType() {
-        if (type != null) {
-            return type;
+        Class<?> type = getObjectResolvableType().resolve();
+        if (type == null) {
+            throw new IllegalStateException("createInstance() is not declared in " + getClass().getSimpleName() + ". " +
+                    "You should probably override getObjectType() in order to specify bean type.");
         }
 
+        return (Class<T>) type;
+    }
+
+    private ResolvableType resolveCreateInstanceReturnType() {
         Method[] methods = getClass().getDeclaredMethods();
 
-        Class<?> returnType = null;
+        Method returnType = null;
         for (Method method : methods) {
             if ("createInstance".equals(method.getName())) {
-                Class<?> type = method.getReturnType();
-
                 if (returnType == null) {
-                    returnType = type;
+                    returnType = method;
                     continue;
                 }
 
-                if (type != returnType && returnType.isAssignableFrom(type)) {
+                Class<?> type = method.getReturnType();
+                if (type != returnType.getReturnType() && returnType.getReturnType().isAssignableFrom(type)) {
                     // found more specific return type
-                    returnType = type;
+                    returnType = method;
                 }
             }
         }
 
-        if (returnType == null) {
-            throw new IllegalStateException("createInstance() is not declared in " + getClass().getSimpleName() + ". " +
-                    "You should probably override getObjectType() in order to specify bean type.");
-        }
-
-        return type = (Class<T>) returnType;
+        return returnType != null ? ResolvableType.forMethodReturnType(returnType, getClass()) : ResolvableType.NONE;
     }
 
 }
@@ -0,0 +1,27 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+/**
+ * Strategy used by {@link ProxyBasedRefreshAwareFactoryBean}
+ * to create proxy delegating calls to the most recent instance.
+ */
+public enum ProxyStrategy {
+
+    /**
+     * Spring AOP proxy. Interface types are proxied by JDK dynamic
+     * proxies and classes by CGLIB generated subclasses.
+     */
+    AOP,
+
+    /**
+     * Plain {@link java.lang.reflect.Proxy} dispatching calls through
+     * precomputed {@link java.lang.invoke.MethodHandle} table, without
+     * AOP advice chain lookup. Supports interface types only.
+     */
+    JDK,
+
+    /**
+     * {@link #JDK} for interface types, {@link #AOP} otherwise.
+     */
+    AUTO
+
+}
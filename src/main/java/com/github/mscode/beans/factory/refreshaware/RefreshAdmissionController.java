@@ -0,0 +1,188 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Bounds heap pressure caused by refreshes running at the same time.
+ * <p>
+ * During refresh the current and the new instance coexist, so several
+ * large beans refreshed at once can exhaust the heap. Every refresh
+ * reserves estimated footprint of the new instance before it is created
+ * and releases it once the replaced instance is retired. Refresh is
+ * queued while live heap, reserved and requested footprint together
+ * exceed configured fraction of the maximal heap and some other refresh
+ * is in progress, so refreshes are serialized under memory pressure.
+ * <p>
+ * Refreshes never block a thread while waiting for admission. Asynchronous
+ * refresh is rescheduled, synchronous refresh is deferred to the next
+ * {@link RefreshAwareFactoryBean#refresh()} call and refresh nested in
+ * another refresh (e.g. of derived bean notified by its upstream) is
+ * admitted immediately, since the upstream holds its permit until it returns.
+ * <p>
+ * Live heap is estimated from {@link MemoryPoolMXBean#getCollectionUsage()},
+ * i.e. usage after the last garbage collection, so garbage waiting for
+ * collection is not counted.
+ *
+ * @see RefreshAwareFactoryBean#setAdmissionController(RefreshAdmissionController)
+ * @see RefreshAwareFactoryBean#setEstimatedFootprint(long)
+ */
+@Slf4j
+public class RefreshAdmissionController {
+
+    private final double heapFraction;
+
+    private Duration maxWait = Duration.ofMinutes(1);
+
+    private final List<MemoryPoolMXBean> pools;
+
+    private final long maxHeap;
+
+    private int inFlight;
+
+    private long reserved;
+
+    /**
+     * Creates controller admitting refreshes while estimated
+     * heap usage stays below specified fraction of the maximal heap.
+     *
+     * @param heapFraction fraction of the maximal heap in range {@code (0, 1]}
+     */
+    public RefreshAdmissionController(double heapFraction) {
+        Assert.isTrue(heapFraction > 0 && heapFraction <= 1, "Heap fraction must be in range (0, 1]");
+        this.heapFraction = heapFraction;
+        this.pools = ManagementFactory.getMemoryPoolMXBeans();
+
+        long max = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax();
+        this.maxHeap = max > 0 ? max : Runtime.getRuntime().maxMemory();
+    }
+
+    /**
+     * Maximal time refresh waits for admission. Refresh
+     * is admitted anyway once the time elapses, so changes
+     * are not postponed forever.
+     */
+    public void setMaxWait(Duration maxWait) {
+        this.maxWait = Objects.requireNonNull(maxWait);
+    }
+
+    /**
+     * Admits refresh of specified footprint if it fits, without waiting.
+     * Refresh is admitted anyway once it waited for the maximal time.
+     *
+     * @param footprint estimated footprint of the new instance in bytes
+     * @param waited    time the refresh has been waiting for admission so far
+     * @return permit which must be closed once the replaced instance is retired
+     * or {@code null} if refresh has to try again later
+     */
+    @Nullable
+    public synchronized Permit tryAdmit(long footprint, @NonNull Duration waited) {
+        if (inFlight > 0 && !fits(footprint)) {
+            if (waited.compareTo(maxWait) < 0) {
+                return null;
+            }
+            log.warn("Refresh admitted after {} despite memory pressure, {} refreshes in progress", maxWait, inFlight);
+        }
+
+        return reserve(footprint);
+    }
+
+    /**
+     * Admits refresh of specified footprint unconditionally. Used for
+     * refreshes nested in another admitted refresh, e.g. of derived beans,
+     * which would otherwise wait for the refresh they are part of.
+     *
+     * @param footprint estimated footprint of the new instance in bytes
+     * @return permit which must be closed once the replaced instance is retired
+     */
+    @NonNull
+    public synchronized Permit reserve(long footprint) {
+        inFlight++;
+        reserved += footprint;
+        return new Permit(footprint);
+    }
+
+    /**
+     * Estimated live heap in bytes.
+     */
+    public long getUsedHeap() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                MemoryUsage usage = pool.getCollectionUsage();
+                used += usage != null ? usage.getUsed() : pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    /**
+     * Footprint reserved by refreshes in progress.
+     */
+    public synchronized long getReserved() {
+        return reserved;
+    }
+
+    boolean fits(long footprint) {
+        return getUsedHeap() + reserved + footprint <= (long) (maxHeap * heapFraction);
+    }
+
+    private synchronized void release(long footprint) {
+        inFlight--;
+        reserved -= footprint;
+    }
+
+    /**
+     * Bytes allocated so far by the current thread or {@code -1} if not supported.
+     * Allocations of other threads, e.g. of a pool parsing the source in parallel,
+     * are not counted, so the value is not used to size admitted refreshes.
+     */
+    static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+            if (allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled()) {
+                return allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Admission of a single refresh.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final long footprint;
+
+        private boolean released;
+
+        private Permit(long footprint) {
+            this.footprint = footprint;
+        }
+
+        /**
+         * Releases reserved footprint.
+         */
+        @Override
+        public synchronized void close() {
+            if (!released) {
+                released = true;
+                release(footprint);
+            }
+        }
+
+    }
+
+}
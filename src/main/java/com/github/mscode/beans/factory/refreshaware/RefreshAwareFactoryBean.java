@@ -1,11 +1,18 @@
 package com.github.mscode.beans.factory.refreshaware;
 
+import com.github.mscode.beans.factory.refreshaware.RefreshEvents.BuildEvent;
+import com.github.mscode.beans.factory.refreshaware.RefreshEvents.CheckEvent;
+import com.github.mscode.beans.factory.refreshaware.RefreshEvents.DestroyEvent;
+import com.github.mscode.beans.factory.refreshaware.RefreshEvents.SwapEvent;
+import com.github.mscode.beans.factory.refreshaware.RefreshEvents.WarmUpEvent;
 import com.github.mscode.beans.factory.refreshaware.configuration.RefreshableBeanAutoConfiguration;
 import com.github.mscode.beans.factory.refreshaware.configuration.RefreshableBeanProperties;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.BeanNameAware;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 import org.springframework.scheduling.TaskScheduler;
@@ -13,6 +20,14 @@ import org.springframework.util.Assert;
 
 import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Simple template factory implementation with refresh
@@ -31,14 +46,18 @@ import java.time.Duration;
  * @param <T> the bean type exposed by this factory
  * @see #createInstance()
  * @see #refreshInstance()
+ * @see #validateInstance(Object, Object)
+ * @see #warmUpInstance(Object)
  * @see #destroyInstance
  * @see #shouldRefresh()
  * @see #refresh()
+ * @see #addRefreshListener(RefreshListener)
+ * @see RefreshEvents
  */
 @Slf4j
-abstract class RefreshAwareFactoryBean<T> implements FactoryBean<T>, InitializingBean, RefreshableBean, DisposableBean {
+abstract class RefreshAwareFactoryBean<T> implements FactoryBean<T>, InitializingBean, RefreshableBean, RefreshableRef<T>, BeanNameAware, DisposableBean {
 
-    private T instance;
+    private volatile InstanceHolder<T> holder;
 
     private final Duration beforeRefresh;
 
@@ -48,6 +67,67 @@ abstract class RefreshAwareFactoryBean<T> implements FactoryBean<T>, Initializin
 
     private boolean initialized = false;
 
+    private boolean destroyed = false;
+
+    private final List<RefreshValidator<? super T>> validators = new CopyOnWriteArrayList<>();
+
+    private final List<RefreshListener<? super T>> listeners = new CopyOnWriteArrayList<>();
+
+    private final List<InstanceWarmer<? super T>> warmers = new CopyOnWriteArrayList<>();
+
+    private SubmissionPublisher<Long> publisher;
+
+    private RefreshAdmissionController admissionController;
+
+    private volatile long estimatedFootprint = -1;
+
+    private volatile InstanceSizer<? super T> sizer;
+
+    private final RefreshStatistics statistics = new RefreshStatistics();
+
+    private final LongAdder bytesRead = new LongAdder();
+
+    private final LongAdder bytesParsed = new LongAdder();
+
+    private String beanName;
+
+    private volatile RefreshBackoff backoff;
+
+    /**
+     * Consecutive build failures guarded by {@link #statistics}.
+     */
+    private int failures;
+
+    private Instant retryAt;
+
+    private Object failedFingerprint;
+
+    private static final int IDLE = 0;
+
+    private static final int RUNNING = 1;
+
+    private static final int RUNNING_PENDING = 2;
+
+    /**
+     * Whether refresh is in progress and whether it has to run once again.
+     */
+    private final AtomicInteger refreshState = new AtomicInteger(IDLE);
+
+    private static final Duration ADMISSION_RETRY = Duration.ofMillis(100);
+
+    /**
+     * Whether the current thread is building an instance,
+     * so refreshes it triggers are nested in that refresh.
+     */
+    private static final ThreadLocal<Boolean> REFRESHING = ThreadLocal.withInitial(() -> false);
+
+    /**
+     * Refresh waiting for admission, written only by the refresh in progress.
+     */
+    private volatile boolean waitingForAdmission;
+
+    private volatile long waitingSince;
+
     protected Clock clock = Clock.systemDefaultZone();
 
     /**
@@ -84,6 +164,185 @@ abstract class RefreshAwareFactoryBean<T> implements FactoryBean<T>, Initializin
         this.clock = clock;
     }
 
+    @Override
+    public void setBeanName(@NonNull String name) {
+        this.beanName = name;
+    }
+
+    /**
+     * Name of this bean used in events and logs.
+     *
+     * @return bean name or simple class name if not managed by container
+     */
+    @NonNull
+    protected String getBeanName() {
+        return beanName != null ? beanName : getClass().getSimpleName();
+    }
+
+    /**
+     * Adds validator which has to accept every refreshed
+     * instance before it is published.
+     *
+     * @param validator validator
+     * @see #validateInstance(Object, Object)
+     */
+    public void addValidator(@NonNull RefreshValidator<? super T> validator) {
+        this.validators.add(Objects.requireNonNull(validator));
+    }
+
+    /**
+     * Adds warmer which warms up every created instance
+     * after it is validated and before it is published.
+     *
+     * @param warmer warmer
+     * @see #warmUpInstance(Object)
+     */
+    public void addWarmer(@NonNull InstanceWarmer<? super T> warmer) {
+        this.warmers.add(Objects.requireNonNull(warmer));
+    }
+
+    /**
+     * Controller bounding heap pressure of concurrent refreshes.
+     * Controller configured in application context is injected automatically.
+     *
+     * @param admissionController controller or {@code null} to refresh without admission
+     * @see #setEstimatedFootprint(long)
+     */
+    @Autowired(required = false)
+    public void setAdmissionController(@Nullable RefreshAdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
+
+    /**
+     * Policy for retrying failed refreshes. Policy configured
+     * in application context is injected automatically.
+     *
+     * @param backoff policy or {@code null} to retry only when {@link #shouldRefresh()} signals it
+     * @see #getSourceFingerprint()
+     */
+    @Autowired(required = false)
+    public void setBackoff(@Nullable RefreshBackoff backoff) {
+        this.backoff = backoff;
+    }
+
+    /**
+     * Declares estimated heap footprint of a single instance. If
+     * not declared, footprint is learned from estimated size of the
+     * current instance measured by {@link #setSizer(InstanceSizer)}.
+     * Allocated bytes are not used, since allocations of threads the
+     * creation fans out to are not counted.
+     *
+     * @param estimatedFootprint footprint in bytes
+     */
+    public void setEstimatedFootprint(long estimatedFootprint) {
+        this.estimatedFootprint = estimatedFootprint;
+    }
+
+    /**
+     * Declared or learned heap footprint of a single instance.
+     *
+     * @return footprint in bytes or {@code 0} if unknown
+     */
+    public long getEstimatedFootprint() {
+        long declared = estimatedFootprint;
+        if (declared >= 0) {
+            return declared;
+        }
+
+        return Math.max(statistics.getEstimatedSize(), 0);
+    }
+
+    /**
+     * Sizer estimating heap footprint of every created
+     * instance. Size is estimated after instance is published.
+     *
+     * @param sizer sizer or {@code null} to disable estimation
+     * @see ObjectGraphSizer
+     * @see RefreshStatistics#getEstimatedSize()
+     */
+    public void setSizer(@Nullable InstanceSizer<? super T> sizer) {
+        this.sizer = sizer;
+    }
+
+    /**
+     * Statistics of this bean instances.
+     */
+    @NonNull
+    @Override
+    public RefreshStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Registers listener called after every published refresh.
+     * Listeners are called by the refreshing thread in registration order.
+     *
+     * @param listener listener
+     */
+    @Override
+    public void addRefreshListener(@NonNull RefreshListener<? super T> listener) {
+        this.listeners.add(Objects.requireNonNull(listener));
+    }
+
+    /**
+     * Generation of the current instance.
+     *
+     * @return current generation or {@code 0} if not initialized yet
+     */
+    @Override
+    public final long getGeneration() {
+        InstanceHolder<T> current = holder;
+        return current != null ? current.getGeneration() : 0;
+    }
+
+    /**
+     * Publishes generation of every refreshed instance.
+     *
+     * @return publisher of generations
+     */
+    @NonNull
+    @Override
+    public final synchronized Flow.Publisher<Long> generations() {
+        if (publisher == null) {
+            publisher = new SubmissionPublisher<>();
+            if (destroyed) {
+                publisher.close();
+            }
+        }
+        return publisher;
+    }
+
+    /**
+     * Reports source of the current instance, so it can be
+     * monitored through {@link #getStatistics()}.
+     *
+     * @param source   description of the source, e.g. file path
+     * @param modified modification time of the source content
+     */
+    protected final void reportSource(@Nullable String source, @Nullable Instant modified) {
+        statistics.setSource(source, modified);
+    }
+
+    /**
+     * Reports bytes read from the source while creating
+     * instance, recorded by {@link RefreshEvents.BuildEvent}.
+     *
+     * @param bytes number of bytes
+     */
+    protected final void reportBytesRead(long bytes) {
+        bytesRead.add(bytes);
+    }
+
+    /**
+     * Reports (decompressed) bytes passed to parser while
+     * creating instance, recorded by {@link RefreshEvents.BuildEvent}.
+     *
+     * @param bytes number of bytes
+     */
+    protected final void reportBytesParsed(long bytes) {
+        bytesParsed.add(bytes);
+    }
+
     /**
      * Template method that subclasses must override to construct
      * the object returned by this factory.
@@ -141,6 +400,63 @@ abstract class RefreshAwareFactoryBean<T> implements FactoryBean<T>, Initializin
      */
     protected abstract boolean shouldRefresh() throws Exception;
 
+    /**
+     * Template method that subclasses may override to identify
+     * the current content of the source, e.g. its modification
+     * time and size. Fingerprint has to be cheap to compute.
+     * <p>
+     * Failed builds are not retried while circuit is open
+     * and fingerprint stays the same as when the build failed.
+     * <p>
+     * The default implementation returns {@code null}, i.e. the
+     * source is considered changed whenever {@link #shouldRefresh()} signals it.
+     *
+     * @return fingerprint with proper {@code equals} or {@code null} if unknown
+     * @throws Exception in case of any error. Exceptions will get logged.
+     * @see #setBackoff(RefreshBackoff)
+     */
+    @Nullable
+    protected Object getSourceFingerprint() throws Exception {
+        return null;
+    }
+
+    /**
+     * Callback for validating a refreshed instance before it
+     * replaces the current one. Subclasses may override this
+     * to add custom checks.
+     * <p>
+     * The default implementation will call all registered {@link RefreshValidator}s.
+     *
+     * @param current   the refreshable instance currently in use
+     * @param candidate newly created instance
+     * @throws Exception if candidate should not be published. Exceptions
+     *                   will get logged and candidate will get destroyed.
+     * @see #addValidator(RefreshValidator)
+     */
+    protected void validateInstance(@NonNull T current, @NonNull T candidate) throws Exception {
+        for (RefreshValidator<? super T> validator : validators) {
+            validator.validate(current, candidate);
+        }
+    }
+
+    /**
+     * Callback for warming up a created instance before it is published,
+     * so the new generation enters service hot. Subclasses may override
+     * this to exercise the instance, e.g. to pre-touch mapped pages.
+     * <p>
+     * The default implementation will call all registered {@link InstanceWarmer}s.
+     *
+     * @param instance validated instance which is not published yet
+     * @throws Exception in case of any error. Exceptions will get logged
+     *                   and instance will get published anyway.
+     * @see #addWarmer(InstanceWarmer)
+     */
+    protected void warmUpInstance(@NonNull T instance) throws Exception {
+        for (InstanceWarmer<? super T> warmer : warmers) {
+            warmer.warmUp(instance);
+        }
+    }
+
     /**
      * Callback for destroying a refreshable instance. Subclasses may
      * override this to destroy the previously created instance.
@@ -157,6 +473,51 @@ abstract class RefreshAwareFactoryBean<T> implements FactoryBean<T>, Initializin
         }
     }
 
+    /**
+     * Prepares data published atomically with the validated instance,
+     * e.g. its indexes. Prepared data is held together with the instance,
+     * so it is never out of sync with it.
+     * <p>
+     * The default implementation prepares nothing.
+     *
+     * @param instance validated instance which is not published yet
+     * @return data held with the instance or {@code null}
+     * @throws Exception in case of any error. Refreshed instance is rejected.
+     * @see #getHolder()
+     */
+    @Nullable
+    Object prepareInstance(@NonNull T instance) throws Exception {
+        return null;
+    }
+
+    /**
+     * Called after instance created by this bean is published, i.e. it
+     * was not rejected and it is not a dummy instance. Subclasses may
+     * commit state describing the source of the published instance.
+     * <p>
+     * The default implementation does nothing.
+     */
+    void instancePublished() {
+    }
+
+    /**
+     * Called once this bean is destroyed, destruction of its instance
+     * may still be pending. Subclasses may release resources owned
+     * by the bean, e.g. thread pools.
+     * <p>
+     * The default implementation does nothing.
+     */
+    void beanDestroyed() {
+    }
+
+    /**
+     * Holder of the current instance with its prepared data.
+     */
+    final InstanceHolder<T> getHolder() {
+        Assert.state(initialized, "Refreshable instance not initialized yet");
+        return holder;
+    }
+
     /**
      * Expose current instance to subclasses.
      *
@@ -166,7 +527,27 @@ abstract class RefreshAwareFactoryBean<T> implements FactoryBean<T>, Initializin
     @NonNull
     protected final T getInstance() throws IllegalStateException {
         Assert.state(initialized, "Refreshable instance not initialized yet");
-        return instance;
+        return holder.getInstance();
+    }
+
+    /**
+     * Pins the current instance until returned snapshot is closed.
+     * Pinned instance is not destroyed before the snapshot is closed,
+     * even if it is replaced by refresh in the meantime.
+     *
+     * @throws IllegalStateException if instance not yet initialized.
+     * @see Snapshot
+     */
+    @NonNull
+    @Override
+    public final Snapshot<T> acquire() throws IllegalStateException {
+        Assert.state(initialized, "Refreshable instance not initialized yet");
+        while (true) {
+            InstanceHolder<T> current = holder;
+            if (current.retain()) {
+                return new Snapshot<>(current);
+            }
+        }
     }
 
     /**
@@ -174,13 +555,37 @@ abstract class RefreshAwareFactoryBean<T> implements FactoryBean<T>, Initializin
      */
     @Override
     public void afterPropertiesSet() throws Exception {
+        BuildEvent event = beginBuild(1);
+        statistics.recordInitialization(clock.instant());
         try {
-            this.instance = createInstance();
+            long start = System.nanoTime();
+            long allocated = RefreshAdmissionController.allocatedBytes();
+            T instance = createInstance();
+            allocated = allocatedSince(allocated);
+            Object attachment = prepareInstance(instance);
+            commitBuild(event, "published", allocated);
+            doWarmUpInstance(instance, 1);
+            this.holder = new InstanceHolder<>(instance, 1, attachment);
+            instancePublished();
+            statistics.recordRefresh(clock.instant(), Duration.ofNanos(System.nanoTime() - start));
+            statistics.setAllocatedBytes(allocated);
+            measure(holder.getInstance());
         } catch (Exception e) {
-            T dummy = createDummyInstance();
+            commitBuild(event, "failed", -1);
+            statistics.recordFailure(clock.instant(), e, true);
+            T dummy;
+            Object attachment;
+            try {
+                dummy = createDummyInstance();
+                attachment = dummy != null ? prepareInstance(dummy) : null;
+            } catch (Exception | Error dummyFailure) {
+                // keep the original failure visible
+                dummyFailure.addSuppressed(e);
+                throw dummyFailure;
+            }
             if (dummy != null) {
                 log.warn(getClass().getSimpleName() + "#createInstance() failed, using dummy instance", e);
-                this.instance = dummy;
+                this.holder = new InstanceHolder<>(dummy, 1, attachment);
             } else {
                 log.error(getClass().getSimpleName() + "#createInstance() failed, aborting", e);
                 throw new IllegalStateException(e);
@@ -191,19 +596,25 @@ abstract class RefreshAwareFactoryBean<T> implements FactoryBean<T>, Initializin
     }
 
     /**
-     * Destroy the refreshable instance, if any.
+     * Destroy the refreshable instance, if any. Destruction
+     * is postponed until all its snapshots are closed.
      *
      * @see #destroyInstance(Object)
      */
     @Override
     public final void destroy() {
-        if (instance != null) {
-            try {
-                destroyInstance(instance);
-            } catch (Exception e) {
-                log.error("{}#destroyInstance() failed", getClass().getSimpleName(), e);
+        synchronized (this) {
+            destroyed = true;
+            if (publisher != null) {
+                publisher.close();
             }
         }
+
+        InstanceHolder<T> current = holder;
+        if (current != null) {
+            current.retire(() -> doDestroyInstance(current, 0));
+        }
+        beanDestroyed();
     }
 
     /**
@@ -212,60 +623,505 @@ abstract class RefreshAwareFactoryBean<T> implements FactoryBean<T>, Initializin
      */
     @Override
     public final void refresh() {
+        CheckEvent event = new CheckEvent();
+        event.begin();
+
+        boolean modified;
         try {
-            if (shouldRefresh()) {
-                if (scheduler == null) {
-                    doRefresh();
-                } else {
-                    doRefreshAsync();
-                }
-            }
+            modified = shouldRefresh();
+            statistics.recordCheck(clock.instant());
         } catch (Exception e) {
             log.error("{}#shouldRefresh() failed", getClass().getSimpleName(), e);
+            statistics.recordFailure(clock.instant(), e, false);
+            commitCheck(event, false, true);
+            return;
+        }
+
+        commitCheck(event, modified, false);
+
+        if (shouldAttempt(modified) || isAdmissionDeferred()) {
+            forceRefresh();
+        }
+    }
+
+    /**
+     * Decides whether to build new instance, taking
+     * previous failures into account.
+     * <p>
+     * Source change is signalled only by {@link #shouldRefresh()}, so
+     * its stability checks are never bypassed. Fingerprint only tells
+     * whether the signalled change differs from the failed content, in
+     * which case the delay is skipped and open circuit is closed.
+     */
+    private boolean shouldAttempt(boolean modified) {
+        RefreshBackoff backoff = this.backoff;
+        if (backoff == null) {
+            return modified;
+        }
+
+        synchronized (statistics) {
+            if (failures == 0) {
+                return modified;
+            }
+        }
+
+        Object fingerprint = modified ? fingerprint() : null;
+        synchronized (statistics) {
+            boolean changed = modified && (fingerprint == null || !fingerprint.equals(failedFingerprint));
+            if (changed || (!backoff.isOpen(failures) && !clock.instant().isBefore(retryAt))) {
+                return true;
+            }
+        }
+
+        log.debug("{}#refresh() skipped after {} consecutive failures", getClass().getSimpleName(), failures);
+        return false;
+    }
+
+    @Nullable
+    private Object fingerprint() {
+        try {
+            return getSourceFingerprint();
+        } catch (Exception e) {
+            log.warn("{}#getSourceFingerprint() failed", getClass().getSimpleName(), e);
+            return null;
+        }
+    }
+
+    private void recordBuildFailure(Exception e, @Nullable Object fingerprint) {
+        Instant now = clock.instant();
+        statistics.recordFailure(now, e, true);
+
+        RefreshBackoff backoff = this.backoff;
+        if (backoff == null) {
+            return;
+        }
+
+        synchronized (statistics) {
+            failures++;
+            retryAt = now.plus(backoff.getDelay(failures));
+            failedFingerprint = fingerprint;
+            statistics.setFailures(failures, retryAt, backoff.isOpen(failures));
+            if (backoff.isOpen(failures)) {
+                log.warn("{} circuit opened after {} consecutive failures, waiting for source change", getClass().getSimpleName(), failures);
+            }
+        }
+    }
+
+    private void recordBuildSuccess() {
+        synchronized (statistics) {
+            failures = 0;
+            retryAt = null;
+            failedFingerprint = null;
+            statistics.setFailures(0, null, false);
+        }
+    }
+
+    /**
+     * Recreates instance regardless of {@link #shouldRefresh()}.
+     * Refresh is asynchronous in case of async support.
+     * <p>
+     * Refreshes of this bean never run concurrently. Refresh requested
+     * while another one is in progress is coalesced into a single
+     * refresh which starts after the running one is published.
+     */
+    @Override
+    public final void forceRefresh() {
+        if (!enterRefresh()) {
+            log.debug("{}#forceRefresh() joined refresh in progress", getClass().getSimpleName());
+            return;
+        }
+
+        if (scheduler == null) {
+            doRefresh();
+        } else {
+            doRefreshAsync();
+        }
+    }
+
+    /**
+     * Starts refresh unless another one is in progress,
+     * in which case it is asked to run once again.
+     *
+     * @return whether caller owns the refresh
+     */
+    private boolean enterRefresh() {
+        while (true) {
+            int state = refreshState.get();
+            if (state == IDLE) {
+                if (refreshState.compareAndSet(IDLE, RUNNING)) {
+                    return true;
+                }
+            } else if (state == RUNNING_PENDING || refreshState.compareAndSet(RUNNING, RUNNING_PENDING)) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Finishes refresh owned by caller.
+     *
+     * @return whether refresh was requested in the meantime and caller has to run it
+     */
+    private boolean exitRefresh() {
+        while (true) {
+            int state = refreshState.get();
+            if (state == RUNNING_PENDING) {
+                if (refreshState.compareAndSet(RUNNING_PENDING, RUNNING)) {
+                    return true;
+                }
+            } else if (refreshState.compareAndSet(RUNNING, IDLE)) {
+                return false;
+            }
         }
     }
 
     private void doRefresh() {
         try {
-            T newInstance = refreshInstance();
-            if (newInstance != null) {
-                T oldInstance = instance;
-                instance = newInstance;
-                if (oldInstance != null) {
-                    try {
-                        destroyInstance(oldInstance);
-                    } catch (Exception e) {
-                        log.error("{}#destroyInstance() failed", getClass().getSimpleName(), e);
+            do {
+                AutoCloseable permit = tryAdmit();
+                if (permit == null) {
+                    // requests in the meantime are covered by the deferred refresh
+                    log.debug("{}#refresh() deferred until admitted", getClass().getSimpleName());
+                    refreshState.set(IDLE);
+                    return;
+                }
+
+                try {
+                    InstanceHolder<T> oldHolder = doRefreshInstance();
+                    if (oldHolder != null) {
+                        retire(oldHolder);
                     }
+                } finally {
+                    release(permit);
                 }
-            }
-        } catch (Exception e) {
-            log.error("{}#refreshInstance() failed", getClass().getSimpleName(), e);
+            } while (exitRefresh());
+        } catch (RuntimeException | Error e) {
+            refreshState.set(IDLE);
+            throw e;
         }
     }
 
-    @SuppressWarnings("ConstantConditions")
     private void doRefreshAsync() {
+        scheduleRefresh(clock.instant().plus(beforeRefresh));
+    }
+
+    private void scheduleRefresh(Instant startTime) {
         scheduler.schedule(() -> {
+            boolean admitted;
             try {
-                T newInstance = refreshInstance();
-                if (newInstance != null) {
-                    T oldInstance = instance;
-                    instance = newInstance;
-                    if (oldInstance != null) {
-                        scheduler.schedule(() -> {
-                            try {
-                                destroyInstance(oldInstance);
-                            } catch (Exception e) {
-                                log.error("{}#destroyInstance() failed", getClass().getSimpleName(), e);
-                            }
-                        }, clock.instant().plus(beforeDestroy));
-                    }
+                admitted = refreshAsync();
+            } catch (RuntimeException | Error e) {
+                refreshState.set(IDLE);
+                throw e;
+            }
+
+            if (!admitted) {
+                // scheduler thread is not blocked, so permits held by its other tasks are released
+                scheduleRefresh(clock.instant().plus(ADMISSION_RETRY));
+            } else if (exitRefresh()) {
+                doRefreshAsync();
+            }
+        }, startTime);
+    }
+
+    /**
+     * @return {@code false} if refresh was not admitted yet
+     */
+    private boolean refreshAsync() {
+        AutoCloseable permit = tryAdmit();
+        if (permit == null) {
+            return false;
+        }
+
+        InstanceHolder<T> oldHolder;
+        try {
+            oldHolder = doRefreshInstance();
+        } catch (RuntimeException e) {
+            release(permit);
+            throw e;
+        }
+
+        if (oldHolder != null) {
+            // reserved footprint is released once both instances stop coexisting
+            scheduler.schedule(() -> {
+                try {
+                    retire(oldHolder);
+                } finally {
+                    release(permit);
                 }
+            }, clock.instant().plus(beforeDestroy));
+        } else {
+            release(permit);
+        }
+        return true;
+    }
+
+    /**
+     * Admits refresh without waiting.
+     *
+     * @return permit or {@code null} if refresh has to try again later
+     */
+    @Nullable
+    private AutoCloseable tryAdmit() {
+        RefreshAdmissionController controller = admissionController;
+        if (controller == null) {
+            return () -> {
+            };
+        }
+
+        long footprint = getEstimatedFootprint();
+        if (REFRESHING.get()) {
+            // upstream holds its permit until this refresh returns
+            return controller.reserve(footprint);
+        }
+
+        long now = System.nanoTime();
+        if (!waitingForAdmission) {
+            waitingForAdmission = true;
+            waitingSince = now;
+        }
+
+        AutoCloseable permit = controller.tryAdmit(footprint, Duration.ofNanos(now - waitingSince));
+        if (permit != null) {
+            waitingForAdmission = false;
+        }
+        return permit;
+    }
+
+    /**
+     * Whether synchronous refresh was not admitted and has to be retried.
+     */
+    private boolean isAdmissionDeferred() {
+        return waitingForAdmission && refreshState.get() == IDLE;
+    }
+
+    private void release(AutoCloseable permit) {
+        try {
+            permit.close();
+        } catch (Exception e) {
+            log.error("{}#release() failed", getClass().getSimpleName(), e);
+        }
+    }
+
+    private static long allocatedSince(long allocatedBefore) {
+        return allocatedBefore >= 0 ? RefreshAdmissionController.allocatedBytes() - allocatedBefore : -1;
+    }
+
+    private void commitCheck(CheckEvent event, boolean modified, boolean failed) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.beanName = getBeanName();
+            event.generation = getGeneration();
+            event.modified = modified;
+            event.failed = failed;
+            event.commit();
+        }
+    }
+
+    private BuildEvent beginBuild(long generation) {
+        bytesRead.reset();
+        bytesParsed.reset();
+
+        BuildEvent event = new BuildEvent();
+        event.generation = generation;
+        event.begin();
+        return event;
+    }
+
+    private void commitBuild(BuildEvent event, String outcome, long allocated) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.beanName = getBeanName();
+            event.outcome = outcome;
+            event.allocatedBytes = allocated;
+            event.bytesRead = bytesRead.sum();
+            event.bytesParsed = bytesParsed.sum();
+            event.commit();
+        }
+    }
+
+    private void doWarmUpInstance(T instance, long generation) {
+        WarmUpEvent event = new WarmUpEvent();
+        event.begin();
+
+        long start = System.nanoTime();
+        try {
+            warmUpInstance(instance);
+        } catch (Exception e) {
+            log.warn("{}#warmUpInstance() failed, publishing cold instance", getClass().getSimpleName(), e);
+            event.failed = true;
+        }
+
+        if (!warmers.isEmpty()) {
+            statistics.setLastWarmUpDuration(Duration.ofNanos(System.nanoTime() - start));
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.beanName = getBeanName();
+            event.generation = generation;
+            event.commit();
+        }
+    }
+
+    private void measure(T instance) {
+        InstanceSizer<? super T> current = sizer;
+        if (current != null) {
+            try {
+                statistics.setEstimatedSize(current.sizeOf(instance));
+            } catch (RuntimeException e) {
+                log.error("{}#measure() failed", getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    /**
+     * Creates, validates and publishes new instance.
+     *
+     * @return holder of replaced instance or {@code null} if nothing is published
+     */
+    @Nullable
+    private InstanceHolder<T> doRefreshInstance() {
+        boolean nested = REFRESHING.get();
+        REFRESHING.set(true);
+        try {
+            return buildAndPublishInstance();
+        } finally {
+            REFRESHING.set(nested);
+        }
+    }
+
+    @Nullable
+    private InstanceHolder<T> buildAndPublishInstance() {
+        long start = System.nanoTime();
+        InstanceHolder<T> oldHolder = holder;
+        Object fingerprint = backoff != null ? fingerprint() : null;
+        BuildEvent event = beginBuild(oldHolder.getGeneration() + 1);
+
+        T newInstance;
+        long allocated;
+        try {
+            allocated = RefreshAdmissionController.allocatedBytes();
+            newInstance = refreshInstance();
+            allocated = allocatedSince(allocated);
+        } catch (Exception e) {
+            log.error("{}#refreshInstance() failed", getClass().getSimpleName(), e);
+            recordBuildFailure(e, fingerprint);
+            commitBuild(event, "failed", -1);
+            return null;
+        }
+
+        if (newInstance == null) {
+            commitBuild(event, "unchanged", allocated);
+            recordBuildSuccess();
+            return null;
+        }
+
+        Object attachment;
+        try {
+            validateInstance(oldHolder.getInstance(), newInstance);
+        } catch (Exception e) {
+            log.error("{}#validateInstance() rejected new instance", getClass().getSimpleName(), e);
+            return rejectInstance(newInstance, e, fingerprint, event, allocated);
+        }
+        try {
+            attachment = prepareInstance(newInstance);
+        } catch (InstanceIndexes.DuplicateKeyException e) {
+            log.error("{}#prepareInstance() rejected new instance violating unique index {}", getClass().getSimpleName(), e.getIndex(), e);
+            return rejectInstance(newInstance, e, fingerprint, event, allocated);
+        } catch (Exception e) {
+            log.error("{}#prepareInstance() failed", getClass().getSimpleName(), e);
+            return rejectInstance(newInstance, e, fingerprint, event, allocated);
+        }
+
+        commitBuild(event, "published", allocated);
+        recordBuildSuccess();
+        doWarmUpInstance(newInstance, oldHolder.getGeneration() + 1);
+
+        SwapEvent swap = new SwapEvent();
+        swap.begin();
+
+        InstanceHolder<T> newHolder = new InstanceHolder<>(newInstance, oldHolder.getGeneration() + 1, attachment);
+        holder = newHolder;
+        oldHolder.markReplaced();
+        instancePublished();
+        statistics.recordRefresh(clock.instant(), Duration.ofNanos(System.nanoTime() - start));
+        statistics.setAllocatedBytes(allocated);
+        notifyListeners(oldHolder, newHolder);
+
+        swap.end();
+        if (swap.shouldCommit()) {
+            swap.beanName = getBeanName();
+            swap.generation = newHolder.getGeneration();
+            swap.previousGeneration = oldHolder.getGeneration();
+            swap.commit();
+        }
+
+        measure(newInstance);
+        return oldHolder;
+    }
+
+    @Nullable
+    private InstanceHolder<T> rejectInstance(T newInstance, Exception e, @Nullable Object fingerprint, BuildEvent event, long allocated) {
+        recordBuildFailure(e, fingerprint);
+        commitBuild(event, "rejected", allocated);
+        doDestroyInstance(newInstance);
+        return null;
+    }
+
+    /**
+     * Notifies listeners and subscribers about published instance.
+     * Replaced instance is not retired yet, so it is still usable.
+     */
+    private void notifyListeners(InstanceHolder<T> oldHolder, InstanceHolder<T> newHolder) {
+        for (RefreshListener<? super T> listener : listeners) {
+            try {
+                listener.onRefresh(oldHolder.getInstance(), newHolder.getInstance(), newHolder.getGeneration());
             } catch (Exception e) {
-                log.error("{}#refreshInstance() failed", getClass().getSimpleName(), e);
+                log.error("{}#notifyListeners() failed", getClass().getSimpleName(), e);
+            }
+        }
+
+        synchronized (this) {
+            if (publisher != null && !destroyed) {
+                // never block refresh on slow subscribers
+                publisher.offer(newHolder.getGeneration(), (subscriber, generation) -> false);
             }
-        }, clock.instant().plus(beforeRefresh));
+        }
+    }
+
+    /**
+     * Destroys replaced instance once all its snapshots are closed.
+     */
+    private void retire(InstanceHolder<T> oldHolder) {
+        oldHolder.retire(() -> {
+            long overlap = System.nanoTime() - oldHolder.getReplacedAt();
+            doDestroyInstance(oldHolder, overlap);
+            statistics.setOverlap(Duration.ofNanos(overlap));
+        });
+    }
+
+    private void doDestroyInstance(InstanceHolder<T> retired, long overlap) {
+        DestroyEvent event = new DestroyEvent();
+        event.begin();
+
+        doDestroyInstance(retired.getInstance());
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.beanName = getBeanName();
+            event.generation = retired.getGeneration();
+            event.overlap = overlap;
+            event.commit();
+        }
+    }
+
+    private void doDestroyInstance(T instance) {
+        try {
+            destroyInstance(instance);
+        } catch (Exception e) {
+            log.error("{}#destroyInstance() failed", getClass().getSimpleName(), e);
+        }
     }
 
 }
@@ -0,0 +1,78 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Policy for retrying failed refreshes.
+ * <p>
+ * After a failed build (exception or rejected instance) the refresh
+ * is retried with exponentially growing delay capped by maximal delay,
+ * even if the source is not modified again, so transient failures are
+ * recovered. After configured number of consecutive failures the circuit
+ * is opened and builds are skipped until fingerprint of the source
+ * changes, so a broken source no longer wastes CPU and I/O by being
+ * rebuilt on every tick. Modified fingerprint retries immediately.
+ *
+ * @see RefreshAwareFactoryBean#setBackoff(RefreshBackoff)
+ * @see RefreshAwareFactoryBean#getSourceFingerprint()
+ */
+public class RefreshBackoff {
+
+    private final Duration initialDelay;
+
+    private final Duration maxDelay;
+
+    private final int circuitThreshold;
+
+    /**
+     * @param initialDelay     delay before the first retry
+     * @param maxDelay         maximal delay between retries
+     * @param circuitThreshold consecutive failures opening circuit or {@code 0} to never open it
+     */
+    public RefreshBackoff(Duration initialDelay, Duration maxDelay, int circuitThreshold) {
+        Assert.isTrue(!initialDelay.isNegative(), "Initial delay must not be negative");
+        Assert.isTrue(maxDelay.compareTo(initialDelay) >= 0, "Maximal delay must not be shorter than initial delay");
+        Assert.isTrue(circuitThreshold >= 0, "Circuit threshold must not be negative");
+        this.initialDelay = Objects.requireNonNull(initialDelay);
+        this.maxDelay = Objects.requireNonNull(maxDelay);
+        this.circuitThreshold = circuitThreshold;
+    }
+
+    public Duration getInitialDelay() {
+        return initialDelay;
+    }
+
+    public Duration getMaxDelay() {
+        return maxDelay;
+    }
+
+    public int getCircuitThreshold() {
+        return circuitThreshold;
+    }
+
+    /**
+     * Delay before the next retry.
+     *
+     * @param failures number of consecutive failures, at least 1
+     * @return delay doubled with every failure and capped by maximal delay
+     */
+    public Duration getDelay(int failures) {
+        int exponent = Math.min(Math.max(failures - 1, 0), 62);
+        long initial = initialDelay.toMillis();
+        if (initial > 0 && initial > maxDelay.toMillis() >> exponent) {
+            return maxDelay;
+        }
+        return Duration.ofMillis(initial << exponent);
+    }
+
+    /**
+     * Whether circuit is open after specified number of consecutive failures.
+     */
+    public boolean isOpen(int failures) {
+        return circuitThreshold > 0 && failures >= circuitThreshold;
+    }
+
+}
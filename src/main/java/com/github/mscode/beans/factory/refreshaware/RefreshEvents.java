@@ -0,0 +1,156 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder events emitted during life cycle of refreshable beans.
+ * <p>
+ * Events are disabled unless a recording enables them, e.g.
+ * {@code -XX:StartFlightRecording}, so they are almost free in production.
+ * Every event carries start time and duration, so refreshes can be
+ * correlated with request latency in JDK Mission Control.
+ */
+final class RefreshEvents {
+
+    static final String CATEGORY = "Refreshable Beans";
+
+    private RefreshEvents() {
+    }
+
+    @Name("com.github.mscode.refreshaware.Check")
+    @Label("Refresh Check")
+    @Description("Modification check of refreshable bean source")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class CheckEvent extends Event {
+
+        @Label("Bean Name")
+        String beanName;
+
+        @Label("Generation")
+        long generation;
+
+        @Label("Modified")
+        boolean modified;
+
+        @Label("Failed")
+        boolean failed;
+
+    }
+
+    @Name("com.github.mscode.refreshaware.Build")
+    @Label("Refresh Build")
+    @Description("Creation and validation of new instance")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class BuildEvent extends Event {
+
+        @Label("Bean Name")
+        String beanName;
+
+        @Label("Generation")
+        @Description("Generation of the new instance")
+        long generation;
+
+        @Label("Outcome")
+        @Description("published, unchanged, rejected or failed")
+        String outcome;
+
+        @Label("Allocated")
+        @Description("Allocated by the building thread, allocations of other threads are not counted")
+        @DataAmount
+        long allocatedBytes;
+
+        @Label("Bytes Read")
+        @Description("Bytes read from the source")
+        @DataAmount
+        long bytesRead;
+
+        @Label("Bytes Parsed")
+        @Description("Decompressed bytes passed to parser")
+        @DataAmount
+        long bytesParsed;
+
+    }
+
+    @Name("com.github.mscode.refreshaware.WarmUp")
+    @Label("Refresh Warm-Up")
+    @Description("Warm-up of new instance before it is published")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class WarmUpEvent extends Event {
+
+        @Label("Bean Name")
+        String beanName;
+
+        @Label("Generation")
+        long generation;
+
+        @Label("Failed")
+        boolean failed;
+
+    }
+
+    @Name("com.github.mscode.refreshaware.Swap")
+    @Label("Refresh Swap")
+    @Description("Publication of new instance including notification of listeners")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class SwapEvent extends Event {
+
+        @Label("Bean Name")
+        String beanName;
+
+        @Label("Generation")
+        long generation;
+
+        @Label("Previous Generation")
+        long previousGeneration;
+
+    }
+
+    @Name("com.github.mscode.refreshaware.Destroy")
+    @Label("Refresh Destroy")
+    @Description("Destruction of replaced instance")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class DestroyEvent extends Event {
+
+        @Label("Bean Name")
+        String beanName;
+
+        @Label("Generation")
+        long generation;
+
+        @Label("Overlap")
+        @Description("Time during which replaced instance coexisted with its replacement")
+        @Timespan
+        long overlap;
+
+    }
+
+    @Name("com.github.mscode.refreshaware.SlowProxyCall")
+    @Label("Slow Proxy Call")
+    @Description("Proxy call exceeding configured threshold")
+    @Category(CATEGORY)
+    static class SlowProxyCallEvent extends Event {
+
+        @Label("Bean Name")
+        String beanName;
+
+        @Label("Generation")
+        long generation;
+
+        @Label("Method")
+        String method;
+
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.springframework.lang.NonNull;
+
+/**
+ * Notified after refreshed instance is published.
+ * <p>
+ * Listener is called exactly once per published generation, so derived
+ * structures (indexes, caches) can be rebuilt or invalidated precisely
+ * instead of being recomputed defensively. Previous instance is still
+ * alive during the call, but it may be destroyed right after it.
+ *
+ * @param <T> type of refreshable instance
+ * @see RefreshableRef#addRefreshListener(RefreshListener)
+ */
+@FunctionalInterface
+public interface RefreshListener<T> {
+
+    /**
+     * Called after new instance replaced the previous one.
+     *
+     * @param previous   replaced instance
+     * @param current    newly published instance
+     * @param generation generation of newly published instance
+     * @throws Exception in case of any error. Exceptions will get logged.
+     */
+    void onRefresh(@NonNull T previous, @NonNull T current, long generation) throws Exception;
+
+}
@@ -0,0 +1,239 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Statistics of refreshable bean instances and refreshes.
+ * <p>
+ * Footprint values describe the most recently created instance
+ * and the most recently destroyed instance respectively.
+ *
+ * @see RefreshableBean#getStatistics()
+ */
+public final class RefreshStatistics {
+
+    private volatile long estimatedSize = -1;
+
+    private volatile long allocatedBytes = -1;
+
+    private volatile Duration overlap;
+
+    private volatile Instant initialized;
+
+    private volatile Instant lastCheck;
+
+    private volatile Instant lastRefresh;
+
+    private volatile Duration lastRefreshDuration;
+
+    private volatile Duration lastWarmUpDuration;
+
+    private volatile Instant lastErrorTime;
+
+    private volatile String lastError;
+
+    private volatile boolean checkFailed;
+
+    private volatile boolean buildFailed;
+
+    private volatile String source;
+
+    private volatile Instant sourceModified;
+
+    private volatile int consecutiveFailures;
+
+    private volatile Instant nextRetry;
+
+    private volatile boolean circuitOpen;
+
+    RefreshStatistics() {
+    }
+
+    /**
+     * Estimated retained size of the current instance.
+     *
+     * @return size in bytes or {@code -1} if no sizer is configured
+     * @see RefreshAwareFactoryBean#setSizer(InstanceSizer)
+     */
+    public long getEstimatedSize() {
+        return estimatedSize;
+    }
+
+    /**
+     * Bytes allocated by the thread which created the current instance,
+     * including temporary garbage produced by parsing. Allocations of other
+     * threads the creation fans out to (e.g. parallel parsing, executors)
+     * are not counted, so it is a lower bound for such instances.
+     *
+     * @return allocated bytes or {@code -1} if not supported by JVM
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Time during which the last replaced instance coexisted
+     * with its replacement, i.e. from publishing the new instance
+     * until the replaced one was destroyed.
+     *
+     * @return overlap or {@code null} if no instance is replaced yet
+     */
+    public Duration getOverlap() {
+        return overlap;
+    }
+
+    /**
+     * Time when the initial instance was being created,
+     * regardless whether its creation succeeded.
+     */
+    public Instant getInitialized() {
+        return initialized;
+    }
+
+    /**
+     * Time of the last successful refresh attempt, including
+     * attempts which found no modification.
+     */
+    public Instant getLastCheck() {
+        return lastCheck;
+    }
+
+    /**
+     * Time when the current instance was published.
+     */
+    public Instant getLastRefresh() {
+        return lastRefresh;
+    }
+
+    /**
+     * Time needed to create, validate and warm up the current instance.
+     */
+    public Duration getLastRefreshDuration() {
+        return lastRefreshDuration;
+    }
+
+    /**
+     * Time needed to warm up the current instance.
+     *
+     * @return duration or {@code null} if no warmer is registered
+     * @see RefreshAwareFactoryBean#addWarmer(InstanceWarmer)
+     */
+    public Duration getLastWarmUpDuration() {
+        return lastWarmUpDuration;
+    }
+
+    /**
+     * Time of the last failure.
+     */
+    public Instant getLastErrorTime() {
+        return lastErrorTime;
+    }
+
+    /**
+     * Description of the last failure.
+     */
+    public String getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Whether the last modification check failed or the last
+     * modification was not published because of a failure.
+     */
+    public boolean isFailing() {
+        return checkFailed || buildFailed;
+    }
+
+    /**
+     * Description of the source, e.g. file path or URI.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Modification time of the source observed by the last check.
+     */
+    public Instant getSourceModified() {
+        return sourceModified;
+    }
+
+    /**
+     * Number of consecutive failed builds.
+     */
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * Time of the next retry of failed build.
+     *
+     * @return retry time or {@code null} if not failing or no backoff is configured
+     * @see RefreshAwareFactoryBean#setBackoff(RefreshBackoff)
+     */
+    public Instant getNextRetry() {
+        return nextRetry;
+    }
+
+    /**
+     * Whether builds are skipped until the source fingerprint changes.
+     */
+    public boolean isCircuitOpen() {
+        return circuitOpen;
+    }
+
+    void recordInitialization(Instant now) {
+        this.initialized = now;
+    }
+
+    void recordCheck(Instant now) {
+        this.lastCheck = now;
+        this.checkFailed = false;
+    }
+
+    void recordRefresh(Instant now, Duration duration) {
+        this.lastRefresh = now;
+        this.lastRefreshDuration = duration;
+        this.buildFailed = false;
+        recordCheck(now);
+    }
+
+    void recordFailure(Instant now, Exception e, boolean build) {
+        this.lastErrorTime = now;
+        this.lastError = e.toString();
+        if (build) {
+            this.buildFailed = true;
+        } else {
+            this.checkFailed = true;
+        }
+    }
+
+    void setFailures(int consecutiveFailures, Instant nextRetry, boolean circuitOpen) {
+        this.consecutiveFailures = consecutiveFailures;
+        this.nextRetry = nextRetry;
+        this.circuitOpen = circuitOpen;
+    }
+
+    void setSource(String source, Instant sourceModified) {
+        this.source = source;
+        this.sourceModified = sourceModified;
+    }
+
+    void setLastWarmUpDuration(Duration lastWarmUpDuration) {
+        this.lastWarmUpDuration = lastWarmUpDuration;
+    }
+
+    void setEstimatedSize(long estimatedSize) {
+        this.estimatedSize = estimatedSize;
+    }
+
+    void setAllocatedBytes(long allocatedBytes) {
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    void setOverlap(Duration overlap) {
+        this.overlap = overlap;
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.springframework.lang.NonNull;
+
+/**
+ * Validates refreshed instance before it replaces the current one.
+ * <p>
+ * Rejected instance is never exposed and the current instance
+ * stays in use until the next successful refresh.
+ *
+ * @param <T> type of validated object
+ * @see RefreshValidators
+ * @see RefreshAwareFactoryBean#addValidator(RefreshValidator)
+ */
+@FunctionalInterface
+public interface RefreshValidator<T> {
+
+    /**
+     * Validates newly created instance.
+     *
+     * @param current   instance currently in use
+     * @param candidate newly created instance
+     * @throws Exception if candidate should be rejected
+     */
+    void validate(@NonNull T current, @NonNull T candidate) throws Exception;
+
+}
@@ -0,0 +1,140 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.springframework.lang.NonNull;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Factory methods for commonly used {@link RefreshValidator}s.
+ */
+public final class RefreshValidators {
+
+    private RefreshValidators() {
+    }
+
+    /**
+     * Rejects candidate smaller than {@code minSize}.
+     *
+     * @param size    function measuring instance size
+     * @param minSize minimal accepted size
+     * @param <T>     type of validated object
+     * @return validator
+     */
+    @NonNull
+    public static <T> RefreshValidator<T> minSize(@NonNull ToLongFunction<? super T> size, long minSize) {
+        Objects.requireNonNull(size);
+        return (current, candidate) -> {
+            long candidateSize = size.applyAsLong(candidate);
+            if (candidateSize < minSize) {
+                throw new IllegalStateException("Size " + candidateSize + " is less than required " + minSize);
+            }
+        };
+    }
+
+    /**
+     * Rejects candidate whose size differs too much from the current instance,
+     * e.g. truncated file parsed into a tiny list.
+     *
+     * @param size      function measuring instance size
+     * @param maxShrink maximal accepted relative decrease, e.g. {@code 0.5} for 50%
+     * @param maxGrowth maximal accepted relative increase, e.g. {@code 1.0} for 100%
+     * @param <T>       type of validated object
+     * @return validator
+     */
+    @NonNull
+    public static <T> RefreshValidator<T> sizeDelta(@NonNull ToLongFunction<? super T> size, double maxShrink, double maxGrowth) {
+        Objects.requireNonNull(size);
+        return (current, candidate) -> {
+            long currentSize = size.applyAsLong(current);
+            long candidateSize = size.applyAsLong(candidate);
+            if (currentSize == 0) {
+                return;
+            }
+
+            double delta = (double) (candidateSize - currentSize) / currentSize;
+            if (delta < -maxShrink || delta > maxGrowth) {
+                throw new IllegalStateException("Size changed from " + currentSize + " to " + candidateSize +
+                        ", which exceeds allowed delta [-" + maxShrink + ", " + maxGrowth + "]");
+            }
+        };
+    }
+
+    /**
+     * Rejects candidate which does not satisfy specified condition.
+     *
+     * @param condition   condition every published instance has to satisfy
+     * @param description description used in rejection message
+     * @param <T>         type of validated object
+     * @return validator
+     */
+    @NonNull
+    public static <T> RefreshValidator<T> require(@NonNull Predicate<? super T> condition, @NonNull String description) {
+        Objects.requireNonNull(condition);
+        return (current, candidate) -> {
+            if (!condition.test(candidate)) {
+                throw new IllegalStateException("Instance does not satisfy: " + description);
+            }
+        };
+    }
+
+    /**
+     * Schema check which rejects candidate if any of its elements
+     * does not satisfy specified condition (e.g. missing required field).
+     *
+     * @param elements    function extracting elements from instance
+     * @param condition   condition every element has to satisfy
+     * @param description description used in rejection message
+     * @param <T>         type of validated object
+     * @param <E>         type of element
+     * @return validator
+     */
+    @NonNull
+    public static <T, E> RefreshValidator<T> requireAll(@NonNull Function<? super T, ? extends Iterable<? extends E>> elements,
+                                                        @NonNull Predicate<? super E> condition, @NonNull String description) {
+        Objects.requireNonNull(elements);
+        Objects.requireNonNull(condition);
+        return (current, candidate) -> {
+            long index = 0;
+            for (E element : elements.apply(candidate)) {
+                if (!condition.test(element)) {
+                    throw new IllegalStateException("Element " + index + " (" + element + ") does not satisfy: " + description);
+                }
+                index++;
+            }
+        };
+    }
+
+    /**
+     * Measures size of {@link Collection}, {@link Map}, {@link CharSequence}
+     * or array instances.
+     *
+     * @param <T> type of measured object
+     * @return size function
+     * @throws IllegalArgumentException when applied on unsupported type
+     */
+    @NonNull
+    public static <T> ToLongFunction<T> size() {
+        return instance -> {
+            if (instance instanceof Collection) {
+                return ((Collection<?>) instance).size();
+            }
+            if (instance instanceof Map) {
+                return ((Map<?, ?>) instance).size();
+            }
+            if (instance instanceof CharSequence) {
+                return ((CharSequence) instance).length();
+            }
+            if (instance != null && instance.getClass().isArray()) {
+                return Array.getLength(instance);
+            }
+            throw new IllegalArgumentException("Unable to measure size of " + instance);
+        };
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.github.mscode.beans.factory.refreshaware;
 
 import com.github.mscode.beans.factory.refreshaware.configuration.RefreshableBeanProperties;
+import org.springframework.lang.Nullable;
 
 /**
  * Interface intended to be implemented by beans that wants to refresh current state.
@@ -19,4 +20,25 @@ public interface RefreshableBean {
      */
     void refresh() throws Exception;
 
+    /**
+     * Refreshes state immediately, even if it is not modified.
+     * <p>
+     * The default implementation will call {@link #refresh()}.
+     *
+     * @throws Exception in case of refreshing error.
+     */
+    default void forceRefresh() throws Exception {
+        refresh();
+    }
+
+    /**
+     * Statistics of this bean instances.
+     *
+     * @return statistics or {@code null} if not collected
+     */
+    @Nullable
+    default RefreshStatistics getStatistics() {
+        return null;
+    }
+
 }
@@ -0,0 +1,58 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.springframework.lang.NonNull;
+
+import java.util.concurrent.Flow;
+
+/**
+ * Gives access to the raw instances managed by a refreshable factory bean.
+ * <p>
+ * Implemented by every {@link RefreshAwareFactoryBean}, so it can be injected
+ * instead of the proxy when hot code needs to bypass per-call proxy indirection:
+ * <pre class="code">
+ * &#064;Autowired
+ * public NumbersService(RefreshableRef&lt;List&lt;Integer&gt;&gt; numbers) {
+ *     this.numbers = numbers;
+ * }
+ * </pre>
+ *
+ * @param <T> type of managed instance
+ */
+public interface RefreshableRef<T> {
+
+    /**
+     * Pins the current instance until returned snapshot is closed.
+     *
+     * @return snapshot of the current instance
+     */
+    @NonNull
+    Snapshot<T> acquire();
+
+    /**
+     * Generation of the current instance. Initial instance is
+     * generation {@code 1} and every published refresh increments it.
+     *
+     * @return current generation or {@code 0} if not initialized yet
+     */
+    long getGeneration();
+
+    /**
+     * Registers listener called after every published refresh.
+     *
+     * @param listener listener
+     */
+    void addRefreshListener(@NonNull RefreshListener<? super T> listener);
+
+    /**
+     * Publishes generation of every refreshed instance. Items are
+     * delivered asynchronously and generations are dropped for
+     * subscribers which fall behind, so they should compare received
+     * generation with {@link #getGeneration()} when in doubt.
+     * Publisher completes once the factory bean is destroyed.
+     *
+     * @return publisher of generations
+     */
+    @NonNull
+    Flow.Publisher<Long> generations();
+
+}
@@ -0,0 +1,224 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.lang.NonNull;
+import org.springframework.util.Assert;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+/**
+ * Validator which records a sample of live proxy calls and replays
+ * them against both current and newly created instance before it is published.
+ * <p>
+ * Candidate is rejected if too many results differ from the results
+ * of the current instance or if it answers too slowly. Replayed methods
+ * should be free of side effects, by default only methods with return
+ * value are recorded.
+ * <p>
+ * Nothing is compared by default, so at least one of
+ * {@link #setMaxMismatchRatio(double)} and {@link #setMaxLatencyRatio(double)}
+ * must be set, otherwise the factory bean fails on initialization.
+ *
+ * @param <T> type of validated object
+ * @see ProxyBasedRefreshAwareFactoryBean#setShadowValidator(ShadowValidator)
+ */
+@Slf4j
+public class ShadowValidator<T> implements RefreshValidator<T>, MethodInterceptor {
+
+    private final AtomicReferenceArray<Call> samples;
+
+    /**
+     * Number of recorded calls, touched only by sampled calls.
+     */
+    private final AtomicLong recorded = new AtomicLong();
+
+    private int sampleInterval = 100;
+
+    private double maxMismatchRatio = 1.0;
+
+    private double maxLatencyRatio = Double.POSITIVE_INFINITY;
+
+    private Predicate<Method> methodFilter = method -> method.getReturnType() != void.class;
+
+    /**
+     * @param capacity maximal number of recorded calls
+     */
+    public ShadowValidator(int capacity) {
+        Assert.isTrue(capacity > 0, "Capacity must be positive");
+        this.samples = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Record on average every {@code sampleInterval}-th call. Calls
+     * are sampled randomly, so callers never contend on a shared counter.
+     * Default is 100.
+     */
+    public void setSampleInterval(int sampleInterval) {
+        Assert.isTrue(sampleInterval > 0, "Sample interval must be positive");
+        this.sampleInterval = sampleInterval;
+    }
+
+    /**
+     * Maximal accepted ratio of replayed calls with different results.
+     * Default is 1.0, results are not compared.
+     * Results are compared with ratio below 1.0.
+     */
+    public void setMaxMismatchRatio(double maxMismatchRatio) {
+        this.maxMismatchRatio = maxMismatchRatio;
+    }
+
+    /**
+     * Maximal accepted ratio between candidate and current instance
+     * replay time, e.g. 2.0 rejects candidate twice as slow as the
+     * current instance. Latency is not compared by default.
+     */
+    public void setMaxLatencyRatio(double maxLatencyRatio) {
+        this.maxLatencyRatio = maxLatencyRatio;
+    }
+
+    /**
+     * Filter of recorded methods. Recorded methods should be free of side effects.
+     */
+    public void setMethodFilter(@NonNull Predicate<Method> methodFilter) {
+        this.methodFilter = Objects.requireNonNull(methodFilter);
+    }
+
+    /**
+     * Whether results or latency of the candidate are compared.
+     */
+    boolean isComparing() {
+        return maxMismatchRatio < 1.0 || maxLatencyRatio != Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public Object invoke(@NonNull MethodInvocation invocation) throws Throwable {
+        record(invocation.getMethod(), invocation.getArguments());
+        return invocation.proceed();
+    }
+
+    /**
+     * Records the call if it is sampled.
+     *
+     * @param method invoked method
+     * @param args   invocation arguments
+     */
+    void record(Method method, Object[] args) {
+        if ((sampleInterval == 1 || ThreadLocalRandom.current().nextInt(sampleInterval) == 0) && methodFilter.test(method)) {
+            int index = (int) (recorded.getAndIncrement() % samples.length());
+            samples.set(index, new Call(method, args == null ? new Object[0] : args.clone()));
+        }
+    }
+
+    /**
+     * Replays recorded calls against both instances. Results are compared
+     * in the first pass, which also warms up both instances. Latency is
+     * measured in the second pass, alternating which instance is called first.
+     */
+    @Override
+    public void validate(@NonNull T current, @NonNull T candidate) {
+        List<Call> calls = new ArrayList<>(samples.length());
+        for (int i = 0; i < samples.length(); i++) {
+            Call call = samples.get(i);
+            if (call != null) {
+                calls.add(call);
+            }
+        }
+
+        if (calls.isEmpty()) {
+            return;
+        }
+
+        int mismatches = 0;
+        for (Call call : calls) {
+            if (!Objects.deepEquals(call.replay(current), call.replay(candidate))) {
+                mismatches++;
+            }
+        }
+
+        double mismatchRatio = (double) mismatches / calls.size();
+        log.debug("Replayed {} calls, mismatch ratio {}", calls.size(), mismatchRatio);
+
+        if (mismatchRatio > maxMismatchRatio) {
+            throw new IllegalStateException("Results of " + mismatches + " out of " + calls.size() +
+                    " replayed calls differ from current instance");
+        }
+
+        if (maxLatencyRatio == Double.POSITIVE_INFINITY) {
+            return;
+        }
+
+        long currentNanos = 0;
+        long candidateNanos = 0;
+        for (int i = 0; i < calls.size(); i++) {
+            Call call = calls.get(i);
+            boolean currentFirst = i % 2 == 0;
+            long first = time(call, currentFirst ? current : candidate);
+            long second = time(call, currentFirst ? candidate : current);
+            currentNanos += currentFirst ? first : second;
+            candidateNanos += currentFirst ? second : first;
+        }
+
+        double latencyRatio = currentNanos > 0 ? (double) candidateNanos / currentNanos : 1.0;
+        log.debug("Replayed {} calls, latency ratio {}", calls.size(), latencyRatio);
+
+        if (latencyRatio > maxLatencyRatio) {
+            throw new IllegalStateException("Replayed calls are " + latencyRatio + " times slower than on current instance");
+        }
+    }
+
+    private static long time(Call call, Object target) {
+        long start = System.nanoTime();
+        call.replay(target);
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Replays recorded calls against specified instance, ignoring results.
+     *
+     * @param instance replayed instance
+     * @see InstanceWarmers#replay(ShadowValidator)
+     */
+    void replay(@NonNull Object instance) {
+        for (int i = 0; i < samples.length(); i++) {
+            Call call = samples.get(i);
+            if (call != null) {
+                call.replay(instance);
+            }
+        }
+    }
+
+    private static class Call {
+
+        private final Method method;
+
+        private final Object[] args;
+
+        Call(Method method, Object[] args) {
+            this.method = method;
+            this.args = args;
+        }
+
+        /**
+         * @return result or exception type thrown by invocation
+         */
+        Object replay(Object target) {
+            try {
+                return AopUtils.invokeJoinpointUsingReflection(target, method, args);
+            } catch (Throwable e) {
+                return e.getClass();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import com.github.mscode.beans.factory.refreshaware.RefreshEvents.SlowProxyCallEvent;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.lang.NonNull;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Emits {@link SlowProxyCallEvent} for proxy calls exceeding threshold.
+ * Calls are measured only while the event is enabled in a recording.
+ *
+ * @see ProxyBasedRefreshAwareFactoryBean#setSlowCallThreshold(Duration)
+ */
+final class SlowCallInterceptor implements MethodInterceptor {
+
+    private final long threshold;
+
+    private final Supplier<String> beanName;
+
+    private final LongSupplier generation;
+
+    SlowCallInterceptor(Duration threshold, Supplier<String> beanName, LongSupplier generation) {
+        this.threshold = threshold.toNanos();
+        this.beanName = beanName;
+        this.generation = generation;
+    }
+
+    @Override
+    public Object invoke(@NonNull MethodInvocation invocation) throws Throwable {
+        return invoke(invocation.getMethod(), invocation::proceed);
+    }
+
+    Object invoke(Method method, Call call) throws Throwable {
+        SlowProxyCallEvent event = new SlowProxyCallEvent();
+        if (!event.isEnabled()) {
+            return call.proceed();
+        }
+
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            return call.proceed();
+        } finally {
+            if (System.nanoTime() - start >= threshold && event.shouldCommit()) {
+                event.beanName = beanName.get();
+                event.generation = generation.getAsLong();
+                event.method = method.getDeclaringClass().getSimpleName() + "#" + method.getName();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Proxied call.
+     */
+    interface Call {
+
+        Object proceed() throws Throwable;
+
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.springframework.lang.NonNull;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pins a single refreshable instance for a batch of work.
+ * <p>
+ * Instance obtained through {@link #get()} is the raw instance,
+ * not a proxy, so calls on it run without any indirection and
+ * always see the same data even if the factory bean is refreshed
+ * in the meantime. Pinned instance is not destroyed until snapshot is closed.
+ * <pre class="code">
+ * try (Snapshot&lt;List&lt;Integer&gt;&gt; snapshot = numbers.acquire()) {
+ *     for (Integer number : snapshot.get()) {
+ *         // ...
+ *     }
+ * }
+ * </pre>
+ *
+ * @param <T> type of pinned instance
+ * @see RefreshableRef#acquire()
+ */
+public final class Snapshot<T> implements AutoCloseable {
+
+    private final InstanceHolder<T> holder;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    Snapshot(InstanceHolder<T> holder) {
+        this.holder = holder;
+    }
+
+    /**
+     * Pinned instance.
+     *
+     * @throws IllegalStateException if snapshot is already closed
+     */
+    @NonNull
+    public T get() {
+        Assert.state(!closed.get(), "Snapshot is already closed");
+        return holder.getInstance();
+    }
+
+    /**
+     * Indexes of pinned instance, so lookups see the same data as {@link #get()}.
+     *
+     * @param <E> type of indexed elements
+     * @throws IllegalStateException if snapshot is already closed or no indexes are declared
+     * @see ProxyBasedRefreshAwareFactoryBean#addIndex(String, java.util.function.Function, boolean)
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public <E> IndexedRefreshable<E> indexed() {
+        Assert.state(!closed.get(), "Snapshot is already closed");
+        Object attachment = holder.getAttachment();
+        Assert.state(attachment instanceof InstanceIndexes, "No indexes declared");
+        return (IndexedRefreshable<E>) attachment;
+    }
+
+    /**
+     * Generation of pinned instance.
+     *
+     * @see RefreshableRef#getGeneration()
+     */
+    public long getGeneration() {
+        return holder.getGeneration();
+    }
+
+    /**
+     * Releases pinned instance, so it can be destroyed.
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            holder.release();
+        }
+    }
+
+}
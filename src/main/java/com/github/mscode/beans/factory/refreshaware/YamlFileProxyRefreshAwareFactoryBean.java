@@ -1,19 +1,37 @@
 package com.github.mscode.beans.factory.refreshaware;
 
+import com.github.mscode.beans.factory.refreshaware.collection.CompactCollections;
+import com.github.mscode.beans.factory.refreshaware.collection.CompactHashMap;
+import com.github.mscode.beans.factory.refreshaware.collection.CompactList;
+import com.github.mscode.beans.factory.refreshaware.collection.SortedArrayMap;
+import org.springframework.core.ResolvableType;
 import org.springframework.lang.NonNull;
 import org.springframework.scheduling.TaskScheduler;
 import org.yaml.snakeyaml.Yaml;
 
 import java.io.Reader;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
 
 public class YamlFileProxyRefreshAwareFactoryBean<T> extends FileProxyRefreshAwareFactoryBean<T> {
 
+    /**
+     * Mutable types parsed before copying into compact collections.
+     */
+    private static final Map<Class<?>, Class<?>> COMPACT_TYPES = Map.of(
+            CompactList.class, ArrayList.class,
+            CompactHashMap.class, LinkedHashMap.class,
+            SortedArrayMap.class, TreeMap.class);
+
     private final Yaml yaml;
     private final Class<T> type;
+    private final Class<?> loadType;
+    private boolean compactCollections;
 
     public YamlFileProxyRefreshAwareFactoryBean(Path filepath, Class<T> type) {
         this(filepath, type, null);
@@ -27,16 +45,36 @@ public class YamlFileProxyRefreshAwareFactoryBean<T> extends FileProxyRefreshAwa
         super(filepath, scheduler, beforeRefresh, beforeDestroy);
         this.type = Objects.requireNonNull(type);
         this.yaml = new Yaml();
+        this.loadType = COMPACT_TYPES.getOrDefault(type, type);
+    }
+
+    /**
+     * Whether to replace all lists and maps of parsed document
+     * with compact collections. Enabled implicitly when
+     * the type itself is a compact collection.
+     *
+     * @see CompactCollections#compact(Object)
+     */
+    public void setCompactCollections(boolean compactCollections) {
+        this.compactCollections = compactCollections;
     }
 
     @NonNull
     @Override
     protected T createInstance(@NonNull Path filepath) throws Exception {
-        try (Reader reader = Files.newBufferedReader(filepath, charset)) {
-            return yaml.loadAs(reader, type);
+        try (Reader reader = openReader(filepath)) {
+            Object instance = yaml.loadAs(reader, loadType);
+            // snakeyaml can't construct immutable collections, so they are copied afterwards
+            return type.cast(compactCollections || loadType != type ? CompactCollections.compact(instance) : instance);
         }
     }
 
+    @NonNull
+    @Override
+    public ResolvableType getObjectResolvableType() {
+        return ResolvableType.forClass(type);
+    }
+
     @NonNull
     @Override
     public Class<T> getObjectType() {
@@ -0,0 +1,60 @@
+package com.github.mscode.beans.factory.refreshaware.collection;
+
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Utility methods for compact collections.
+ */
+public final class CompactCollections {
+
+    private CompactCollections() {
+    }
+
+    /**
+     * Recursively replaces lists and maps of specified object graph,
+     * e.g. parsed document, with compact collections. Lists become
+     * {@link CompactList}s, sorted maps {@link SortedArrayMap}s and
+     * other maps {@link CompactHashMap}s preserving iteration order.
+     * Other objects are returned as they are.
+     *
+     * @param object object graph
+     * @return compacted object graph
+     */
+    @Nullable
+    public static Object compact(@Nullable Object object) {
+        if (object instanceof CompactList || object instanceof CompactHashMap || object instanceof SortedArrayMap) {
+            return object;
+        }
+
+        if (object instanceof List) {
+            List<?> list = (List<?>) object;
+            CompactList.Builder<Object> builder = CompactList.builder(list.size());
+            for (Object element : list) {
+                builder.add(compact(element));
+            }
+            return builder.build();
+        }
+
+        if (object instanceof SortedMap) {
+            SortedMap<?, ?> map = (SortedMap<?, ?>) object;
+            @SuppressWarnings("unchecked")
+            SortedArrayMap.Builder<Object, Object> builder = SortedArrayMap.builder(map.size(), (java.util.Comparator<Object>) map.comparator());
+            map.forEach((key, value) -> builder.put(key, compact(value)));
+            return builder.build();
+        }
+
+        if (object instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) object;
+            CompactHashMap.Builder<Object, Object> builder = CompactHashMap.builder(map.size());
+            map.forEach((key, value) -> builder.put(key, compact(value)));
+            return builder.build();
+        }
+
+        return object;
+    }
+
+}
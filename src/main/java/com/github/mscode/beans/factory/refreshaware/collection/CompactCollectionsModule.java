@@ -0,0 +1,135 @@
+package com.github.mscode.beans.factory.refreshaware.collection;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.KeyDeserializer;
+import com.fasterxml.jackson.databind.deser.Deserializers;
+import com.fasterxml.jackson.databind.deser.std.StdDelegatingDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import com.fasterxml.jackson.databind.type.MapType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.databind.util.Converter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Jackson module deserializing {@link CompactList}, {@link CompactHashMap}
+ * and {@link SortedArrayMap}, so documents can be parsed directly into
+ * compact collections, e.g. by {@code JsonFileProxyRefreshAwareFactoryBean}.
+ * <p>
+ * Content is parsed into a temporary mutable collection first,
+ * which is then copied into compact one of exact size.
+ * <p>
+ * Optionally abstract types {@link List}, {@link Collection}, {@link Map}
+ * and {@link SortedMap} (e.g. fields of parsed objects) are deserialized
+ * as compact collections as well.
+ */
+public class CompactCollectionsModule extends SimpleModule {
+
+    private final boolean abstractTypes;
+
+    /**
+     * Creates module deserializing only explicitly requested compact collections.
+     */
+    public CompactCollectionsModule() {
+        this(false);
+    }
+
+    /**
+     * @param abstractTypes whether to deserialize abstract collection and map types as compact collections
+     */
+    public CompactCollectionsModule(boolean abstractTypes) {
+        super(CompactCollectionsModule.class.getSimpleName());
+        this.abstractTypes = abstractTypes;
+    }
+
+    @Override
+    public void setupModule(SetupContext context) {
+        super.setupModule(context);
+        context.addDeserializers(new CompactDeserializers(abstractTypes));
+    }
+
+    private static class CompactDeserializers extends Deserializers.Base {
+
+        private final boolean abstractTypes;
+
+        CompactDeserializers(boolean abstractTypes) {
+            this.abstractTypes = abstractTypes;
+        }
+
+        @Override
+        public JsonDeserializer<?> findCollectionDeserializer(CollectionType type, DeserializationConfig config, BeanDescription beanDesc,
+                                                              TypeDeserializer elementTypeDeserializer, JsonDeserializer<?> elementDeserializer) {
+            Class<?> raw = type.getRawClass();
+            if (raw == CompactList.class || (abstractTypes && (raw == List.class || raw == Collection.class))) {
+                JavaType input = config.getTypeFactory().constructCollectionType(ArrayList.class, type.getContentType());
+                return new StdDelegatingDeserializer<>(new CopyConverter<List<Object>>(input, type, CompactList::copyOf));
+            }
+            return null;
+        }
+
+        @Override
+        public JsonDeserializer<?> findMapDeserializer(MapType type, DeserializationConfig config, BeanDescription beanDesc,
+                                                       KeyDeserializer keyDeserializer, TypeDeserializer elementTypeDeserializer,
+                                                       JsonDeserializer<?> elementDeserializer) {
+            Class<?> raw = type.getRawClass();
+            TypeFactory typeFactory = config.getTypeFactory();
+            if (raw == CompactHashMap.class || (abstractTypes && raw == Map.class)) {
+                JavaType input = typeFactory.constructMapType(LinkedHashMap.class, type.getKeyType(), type.getContentType());
+                return new StdDelegatingDeserializer<>(new CopyConverter<Map<Object, Object>>(input, type, CompactHashMap::copyOf));
+            }
+            if (raw == SortedArrayMap.class || (abstractTypes && raw == SortedMap.class)) {
+                JavaType input = typeFactory.constructMapType(TreeMap.class, type.getKeyType(), type.getContentType());
+                return new StdDelegatingDeserializer<>(new CopyConverter<Map<Object, Object>>(input, type, SortedArrayMap::copyOf));
+            }
+            return null;
+        }
+
+    }
+
+    /**
+     * Copies parsed mutable collection into compact one.
+     */
+    private static class CopyConverter<I> implements Converter<I, Object> {
+
+        private final JavaType input;
+
+        private final JavaType output;
+
+        private final Function<I, Object> copy;
+
+        CopyConverter(JavaType input, JavaType output, Function<I, Object> copy) {
+            this.input = input;
+            this.output = output;
+            this.copy = copy;
+        }
+
+        @Override
+        public Object convert(I value) {
+            return copy.apply(value);
+        }
+
+        @Override
+        public JavaType getInputType(TypeFactory typeFactory) {
+            return input;
+        }
+
+        @Override
+        public JavaType getOutputType(TypeFactory typeFactory) {
+            return output;
+        }
+
+    }
+
+}
@@ -0,0 +1,388 @@
+package com.github.mscode.beans.factory.refreshaware.collection;
+
+import org.springframework.lang.NonNull;
+import org.springframework.util.Assert;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+/**
+ * Immutable hash map with open addressing.
+ * <p>
+ * Keys and values are kept in two arrays in insertion order and
+ * looked up through a table of indexes with linear probing, so the
+ * map needs no per-entry objects and iterates in insertion order.
+ * Arrays are sized exactly once the map is built. Intended for
+ * data built once by refresh and read-only afterwards.
+ * <p>
+ * Null keys are not permitted, null values are.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ * @see #builder(int)
+ * @see #toCompactHashMap(Function, Function)
+ */
+public final class CompactHashMap<K, V> extends AbstractMap<K, V> {
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private static final int[] EMPTY_TABLE = new int[1];
+
+    private static final CompactHashMap<?, ?> EMPTY_MAP = new CompactHashMap<>(EMPTY, EMPTY, EMPTY_TABLE);
+
+    private final Object[] keys;
+
+    private final Object[] values;
+
+    /**
+     * Indexes of entries incremented by one, zero marks empty slot.
+     */
+    private final int[] table;
+
+    private CompactHashMap(Object[] keys, Object[] values, int[] table) {
+        this.keys = keys;
+        this.values = values;
+        this.table = table;
+    }
+
+    /**
+     * Empty map.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public static <K, V> CompactHashMap<K, V> of() {
+        return (CompactHashMap<K, V>) EMPTY_MAP;
+    }
+
+    /**
+     * Copies specified map.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public static <K, V> CompactHashMap<K, V> copyOf(@NonNull Map<? extends K, ? extends V> map) {
+        if (map instanceof CompactHashMap) {
+            return (CompactHashMap<K, V>) map;
+        }
+        Builder<K, V> builder = builder(map.size());
+        map.forEach(builder::put);
+        return builder.build();
+    }
+
+    /**
+     * Creates builder sized for specified number of entries.
+     *
+     * @param expectedSize expected number of entries
+     */
+    @NonNull
+    public static <K, V> Builder<K, V> builder(int expectedSize) {
+        return new Builder<>(expectedSize);
+    }
+
+    /**
+     * Collects stream elements into compact hash map. Value of
+     * duplicate key replaces the previous one.
+     *
+     * @param keyMapper   function producing keys
+     * @param valueMapper function producing values
+     */
+    @NonNull
+    public static <T, K, V> Collector<T, ?, CompactHashMap<K, V>> toCompactHashMap(@NonNull Function<? super T, ? extends K> keyMapper,
+                                                                                   @NonNull Function<? super T, ? extends V> valueMapper) {
+        return Collector.of(() -> new Builder<K, V>(16),
+                (builder, element) -> builder.put(keyMapper.apply(element), valueMapper.apply(element)),
+                Builder::putAll,
+                Builder::build);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int index = indexOf(key);
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(Object key, V defaultValue) {
+        int index = indexOf(key);
+        return index >= 0 ? (V) values[index] : defaultValue;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (Object current : values) {
+            if (Objects.equals(value, current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            action.accept((K) keys[i], (V) values[i]);
+        }
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new ArrayIterator<>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    Entry<K, V> get(int index) {
+                        return new SimpleImmutableEntry<>((K) keys[index], (V) values[index]);
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Entry)) {
+                    return false;
+                }
+                Entry<?, ?> entry = (Entry<?, ?>) o;
+                int index = indexOf(entry.getKey());
+                return index >= 0 && Objects.equals(values[index], entry.getValue());
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+        };
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<K> iterator() {
+                return new ArrayIterator<>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    K get(int index) {
+                        return (K) keys[index];
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+        };
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ArrayIterator<>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    V get(int index) {
+                        return (V) values[index];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return values.length;
+            }
+        };
+    }
+
+    private int indexOf(Object key) {
+        if (key == null) {
+            return -1;
+        }
+
+        int mask = table.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int index = table[slot] - 1;
+            if (index < 0) {
+                return -1;
+            }
+            if (key.equals(keys[index])) {
+                return index;
+            }
+        }
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Table with at most half of the slots occupied, so probe sequences stay short.
+     */
+    private static int[] createTable(Object[] keys, int size) {
+        int[] table = new int[tableCapacity(size)];
+        for (int i = 0; i < size; i++) {
+            insert(table, keys, i);
+        }
+        return table;
+    }
+
+    private static int tableCapacity(int size) {
+        return Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+    }
+
+    private static void insert(int[] table, Object[] keys, int index) {
+        int mask = table.length - 1;
+        int slot = hash(keys[index]) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = index + 1;
+    }
+
+    /**
+     * Iterator over entry indexes.
+     */
+    private abstract class ArrayIterator<T> implements Iterator<T> {
+
+        private int index;
+
+        @Override
+        public boolean hasNext() {
+            return index < keys.length;
+        }
+
+        @Override
+        public T next() {
+            if (index >= keys.length) {
+                throw new NoSuchElementException();
+            }
+            return get(index++);
+        }
+
+        abstract T get(int index);
+
+    }
+
+    /**
+     * Builds map of exactly the number of distinct keys.
+     */
+    public static final class Builder<K, V> {
+
+        private Object[] keys;
+
+        private Object[] values;
+
+        private int[] table;
+
+        private int size;
+
+        private Builder(int expectedSize) {
+            Assert.isTrue(expectedSize >= 0, "Expected size must not be negative");
+            this.keys = new Object[expectedSize];
+            this.values = new Object[expectedSize];
+            this.table = new int[tableCapacity(expectedSize)];
+        }
+
+        /**
+         * Adds entry, value of duplicate key replaces the previous one.
+         */
+        @NonNull
+        public Builder<K, V> put(@NonNull K key, V value) {
+            Objects.requireNonNull(key, "Null keys are not permitted");
+
+            int mask = table.length - 1;
+            int slot = hash(key) & mask;
+            for (; table[slot] != 0; slot = (slot + 1) & mask) {
+                int index = table[slot] - 1;
+                if (key.equals(keys[index])) {
+                    values[index] = value;
+                    return this;
+                }
+            }
+
+            if (size == keys.length) {
+                int capacity = Math.max(8, size + (size >> 1));
+                keys = Arrays.copyOf(keys, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+
+            keys[size] = key;
+            values[size] = value;
+            if ((size + 1) * 2 > table.length) {
+                table = createTable(keys, size + 1);
+            } else {
+                table[slot] = size + 1;
+            }
+            size++;
+            return this;
+        }
+
+        @NonNull
+        public Builder<K, V> putAll(@NonNull Map<? extends K, ? extends V> map) {
+            map.forEach(this::put);
+            return this;
+        }
+
+        @NonNull
+        @SuppressWarnings("unchecked")
+        Builder<K, V> putAll(@NonNull Builder<K, V> other) {
+            for (int i = 0; i < other.size; i++) {
+                put((K) other.keys[i], (V) other.values[i]);
+            }
+            return this;
+        }
+
+        /**
+         * Builds map trimmed to the number of distinct keys.
+         * Builder must not be used afterwards.
+         */
+        @NonNull
+        public CompactHashMap<K, V> build() {
+            if (size == 0) {
+                return of();
+            }
+
+            Object[] builtKeys = size == keys.length ? keys : Arrays.copyOf(keys, size);
+            Object[] builtValues = size == values.length ? values : Arrays.copyOf(values, size);
+            int[] builtTable = table.length == tableCapacity(size) ? table : createTable(builtKeys, size);
+            keys = null;
+            values = null;
+            table = null;
+            return new CompactHashMap<>(builtKeys, builtValues, builtTable);
+        }
+
+    }
+
+}
@@ -0,0 +1,189 @@
+package com.github.mscode.beans.factory.refreshaware.collection;
+
+import org.springframework.lang.NonNull;
+import org.springframework.util.Assert;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+
+/**
+ * Immutable list backed by an array of exactly its size.
+ * <p>
+ * Intended for data built once by refresh and read-only
+ * afterwards, so it has no resize slack and no modification tracking.
+ * Null elements are permitted.
+ *
+ * @param <E> type of elements
+ * @see #builder(int)
+ * @see #toCompactList()
+ */
+public final class CompactList<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private static final CompactList<?> EMPTY_LIST = new CompactList<>(EMPTY);
+
+    private final Object[] elements;
+
+    private CompactList(Object[] elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * Empty list.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public static <E> CompactList<E> of() {
+        return (CompactList<E>) EMPTY_LIST;
+    }
+
+    /**
+     * Copies specified collection.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public static <E> CompactList<E> copyOf(@NonNull Collection<? extends E> collection) {
+        if (collection instanceof CompactList) {
+            return (CompactList<E>) collection;
+        }
+        Object[] elements = collection.toArray();
+        if (elements.length == 0) {
+            return of();
+        }
+        if (elements.getClass() != Object[].class) {
+            elements = Arrays.copyOf(elements, elements.length, Object[].class);
+        }
+        return new CompactList<>(elements);
+    }
+
+    /**
+     * Creates builder sized for specified number of elements.
+     *
+     * @param expectedSize expected number of elements
+     */
+    @NonNull
+    public static <E> Builder<E> builder(int expectedSize) {
+        return new Builder<>(expectedSize);
+    }
+
+    /**
+     * Collects stream elements into compact list.
+     */
+    @NonNull
+    public static <E> Collector<E, ?, CompactList<E>> toCompactList() {
+        return Collector.of(() -> new Builder<E>(16), Builder::add, Builder::addAll, Builder::build);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Objects.checkIndex(index, elements.length);
+        return (E) elements[index];
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        for (int i = 0; i < elements.length; i++) {
+            if (Objects.equals(o, elements[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        for (int i = elements.length - 1; i >= 0; i--) {
+            if (Objects.equals(o, elements[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public Object[] toArray() {
+        return elements.clone();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super E> action) {
+        for (Object element : elements) {
+            action.accept((E) element);
+        }
+    }
+
+    /**
+     * Builds list of exactly the number of added elements.
+     */
+    public static final class Builder<E> {
+
+        private Object[] elements;
+
+        private int size;
+
+        private Builder(int expectedSize) {
+            Assert.isTrue(expectedSize >= 0, "Expected size must not be negative");
+            this.elements = expectedSize == 0 ? EMPTY : new Object[expectedSize];
+        }
+
+        @NonNull
+        public Builder<E> add(E element) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, Math.max(8, size + (size >> 1)));
+            }
+            elements[size++] = element;
+            return this;
+        }
+
+        @NonNull
+        public Builder<E> addAll(@NonNull Iterable<? extends E> elements) {
+            for (E element : elements) {
+                add(element);
+            }
+            return this;
+        }
+
+        @NonNull
+        @SuppressWarnings("unchecked")
+        Builder<E> addAll(@NonNull Builder<E> other) {
+            for (int i = 0; i < other.size; i++) {
+                add((E) other.elements[i]);
+            }
+            return this;
+        }
+
+        /**
+         * Builds list trimmed to the number of added elements.
+         * Builder must not be used afterwards.
+         */
+        @NonNull
+        public CompactList<E> build() {
+            if (size == 0) {
+                return of();
+            }
+            Object[] built = size == elements.length ? elements : Arrays.copyOf(elements, size);
+            elements = null;
+            return new CompactList<>(built);
+        }
+
+    }
+
+}
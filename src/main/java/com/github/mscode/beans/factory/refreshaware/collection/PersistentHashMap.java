@@ -0,0 +1,473 @@
+package com.github.mscode.beans.factory.refreshaware.collection;
+
+import org.springframework.lang.NonNull;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable hash array mapped trie (HAMT).
+ * <p>
+ * Every modification returns a new map which shares all unchanged nodes
+ * with the original one and copies only the path to the modified entry,
+ * so consecutive refresh generations differing in a few keys share almost
+ * the whole structure. Modification storing a value equal to the current
+ * one returns the same map and keeps the current value instance.
+ * <p>
+ * Null keys are not permitted, null values are.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ * @see #update(Map)
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+
+    private static final Object NOT_FOUND = new Object();
+
+    private static final PersistentHashMap<?, ?> EMPTY_MAP = new PersistentHashMap<>(BitmapNode.EMPTY, 0);
+
+    private final Node root;
+
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Empty map.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> of() {
+        return (PersistentHashMap<K, V>) EMPTY_MAP;
+    }
+
+    /**
+     * Persistent copy of specified map. Persistent map is returned as it is.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> copyOf(@NonNull Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentHashMap) {
+            return (PersistentHashMap<K, V>) map;
+        }
+        return PersistentHashMap.<K, V>of().withAll(map);
+    }
+
+    /**
+     * Map with specified key mapped to specified value.
+     *
+     * @return this map if the key is already mapped to equal value
+     */
+    @NonNull
+    public PersistentHashMap<K, V> with(@NonNull K key, V value) {
+        Objects.requireNonNull(key, "Null keys are not permitted");
+        boolean[] added = new boolean[1];
+        Node node = root.with(0, hash(key), key, value, added);
+        return node == root ? this : new PersistentHashMap<>(node, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Map with all entries of specified map added or replaced.
+     */
+    @NonNull
+    public PersistentHashMap<K, V> withAll(@NonNull Map<? extends K, ? extends V> map) {
+        PersistentHashMap<K, V> result = this;
+        for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            result = result.with(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Map without specified key.
+     *
+     * @return this map if the key is not mapped
+     */
+    @NonNull
+    public PersistentHashMap<K, V> without(Object key) {
+        if (key == null) {
+            return this;
+        }
+        Node node = root.without(0, hash(key), key);
+        if (node == root) {
+            return this;
+        }
+        return new PersistentHashMap<>(node != null ? node : BitmapNode.EMPTY, size - 1);
+    }
+
+    /**
+     * Map equal to specified content derived from this map by applying
+     * differences only, so nodes of unchanged entries are shared and
+     * values equal to the current ones are kept.
+     *
+     * @param content new content
+     * @return map equal to the content or this map if nothing is changed
+     */
+    @NonNull
+    public PersistentHashMap<K, V> update(@NonNull Map<? extends K, ? extends V> content) {
+        PersistentHashMap<K, V> result = withAll(content);
+        if (result.size == content.size()) {
+            return result;
+        }
+
+        // removed keys are the only ones which are not in the content
+        for (K key : keySet()) {
+            if (!content.containsKey(key)) {
+                result = result.without(key);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public V get(Object key) {
+        return getOrDefault(key, null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(Object key, V defaultValue) {
+        if (key == null) {
+            return defaultValue;
+        }
+        Object value = root.find(0, hash(key), key);
+        return value != NOT_FOUND ? (V) value : defaultValue;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key != null && root.find(0, hash(key), key) != NOT_FOUND;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        root.forEach((BiConsumer<Object, Object>) action);
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator<>(root);
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Entry)) {
+                    return false;
+                }
+                Entry<?, ?> entry = (Entry<?, ?>) o;
+                Object key = entry.getKey();
+                return containsKey(key) && Objects.equals(get(key), entry.getValue());
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & 0x1f);
+    }
+
+    private static Object[] set(Object[] array, int index, Object value) {
+        Object[] copy = array.clone();
+        copy[index] = value;
+        return copy;
+    }
+
+    private static Node createNode(int shift, Object key1, Object value1, int hash2, Object key2, Object value2) {
+        int hash1 = hash(key1);
+        if (hash1 == hash2) {
+            return new CollisionNode(hash1, new Object[]{key1, value1, key2, value2});
+        }
+        boolean[] added = new boolean[1];
+        return BitmapNode.EMPTY
+                .with(shift, hash1, key1, value1, added)
+                .with(shift, hash2, key2, value2, added);
+    }
+
+    /**
+     * Trie node keeping key and value pairs in a single array.
+     * Pair with {@code null} key refers to child node.
+     */
+    private abstract static class Node {
+
+        final Object[] array;
+
+        Node(Object[] array) {
+            this.array = array;
+        }
+
+        abstract Object find(int shift, int hash, Object key);
+
+        abstract Node with(int shift, int hash, Object key, Object value, boolean[] added);
+
+        /**
+         * @return this node if key is not found or {@code null} if the node becomes empty
+         */
+        abstract Node without(int shift, int hash, Object key);
+
+        void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) {
+                    ((Node) array[i + 1]).forEach(action);
+                } else {
+                    action.accept(array[i], array[i + 1]);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Node with up to 32 pairs selected by 5 bits of hash.
+     */
+    private static final class BitmapNode extends Node {
+
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+
+        BitmapNode(int bitmap, Object[] array) {
+            super(array);
+            this.bitmap = bitmap;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return NOT_FOUND;
+            }
+
+            int index = 2 * index(bit);
+            Object k = array[index];
+            if (k == null) {
+                return ((Node) array[index + 1]).find(shift + BITS, hash, key);
+            }
+            return key.equals(k) ? array[index + 1] : NOT_FOUND;
+        }
+
+        @Override
+        Node with(int shift, int hash, Object key, Object value, boolean[] added) {
+            int bit = bit(hash, shift);
+            int index = 2 * index(bit);
+
+            if ((bitmap & bit) == 0) {
+                Object[] copy = new Object[array.length + 2];
+                System.arraycopy(array, 0, copy, 0, index);
+                copy[index] = key;
+                copy[index + 1] = value;
+                System.arraycopy(array, index, copy, index + 2, array.length - index);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, copy);
+            }
+
+            Object k = array[index];
+            Object v = array[index + 1];
+            if (k == null) {
+                Node child = ((Node) v).with(shift + BITS, hash, key, value, added);
+                return child == v ? this : new BitmapNode(bitmap, set(array, index + 1, child));
+            }
+
+            if (key.equals(k)) {
+                return Objects.equals(value, v) ? this : new BitmapNode(bitmap, set(array, index + 1, value));
+            }
+
+            added[0] = true;
+            Object[] copy = set(array, index, null);
+            copy[index + 1] = createNode(shift + BITS, k, v, hash, key, value);
+            return new BitmapNode(bitmap, copy);
+        }
+
+        @Override
+        Node without(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+
+            int index = 2 * index(bit);
+            Object k = array[index];
+            if (k == null) {
+                Node child = ((Node) array[index + 1]).without(shift + BITS, hash, key);
+                if (child == array[index + 1]) {
+                    return this;
+                }
+                if (child != null) {
+                    return new BitmapNode(bitmap, set(array, index + 1, child));
+                }
+            } else if (!key.equals(k)) {
+                return this;
+            }
+
+            if (bitmap == bit) {
+                return null;
+            }
+
+            Object[] copy = new Object[array.length - 2];
+            System.arraycopy(array, 0, copy, 0, index);
+            System.arraycopy(array, index + 2, copy, index, array.length - index - 2);
+            return new BitmapNode(bitmap ^ bit, copy);
+        }
+
+    }
+
+    /**
+     * Node with pairs of keys sharing the whole hash.
+     */
+    private static final class CollisionNode extends Node {
+
+        private final int hash;
+
+        CollisionNode(int hash, Object[] array) {
+            super(array);
+            this.hash = hash;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int index = hash == this.hash ? indexOf(key) : -1;
+            return index >= 0 ? array[index + 1] : NOT_FOUND;
+        }
+
+        @Override
+        Node with(int shift, int hash, Object key, Object value, boolean[] added) {
+            if (hash != this.hash) {
+                // nest this node one level deeper, next to the new key
+                return new BitmapNode(bit(this.hash, shift), new Object[]{null, this})
+                        .with(shift, hash, key, value, added);
+            }
+
+            int index = indexOf(key);
+            if (index >= 0) {
+                return Objects.equals(value, array[index + 1]) ? this : new CollisionNode(hash, set(array, index + 1, value));
+            }
+
+            Object[] copy = new Object[array.length + 2];
+            System.arraycopy(array, 0, copy, 0, array.length);
+            copy[array.length] = key;
+            copy[array.length + 1] = value;
+            added[0] = true;
+            return new CollisionNode(hash, copy);
+        }
+
+        @Override
+        Node without(int shift, int hash, Object key) {
+            int index = hash == this.hash ? indexOf(key) : -1;
+            if (index < 0) {
+                return this;
+            }
+            if (array.length == 2) {
+                return null;
+            }
+
+            Object[] copy = new Object[array.length - 2];
+            System.arraycopy(array, 0, copy, 0, index);
+            System.arraycopy(array, index + 2, copy, index, array.length - index - 2);
+            return new CollisionNode(hash, copy);
+        }
+
+    }
+
+    /**
+     * Depth first iterator over trie nodes.
+     */
+    private static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+
+        /**
+         * Trie is at most 7 bitmap levels deep followed by a collision node.
+         */
+        private final Object[][] arrays = new Object[8][];
+
+        private final int[] positions = new int[8];
+
+        private int depth;
+
+        private Entry<K, V> next;
+
+        EntryIterator(Node root) {
+            arrays[0] = root.array;
+            advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                Object[] array = arrays[depth];
+                int position = positions[depth];
+                if (position >= array.length) {
+                    depth--;
+                    continue;
+                }
+
+                positions[depth] = position + 2;
+                if (array[position] == null) {
+                    depth++;
+                    arrays[depth] = ((Node) array[position + 1]).array;
+                    positions[depth] = 0;
+                } else {
+                    next = new SimpleImmutableEntry<>((K) array[position], (V) array[position + 1]);
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> entry = next;
+            advance();
+            return entry;
+        }
+
+    }
+
+}
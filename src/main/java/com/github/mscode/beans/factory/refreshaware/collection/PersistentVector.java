@@ -0,0 +1,306 @@
+package com.github.mscode.beans.factory.refreshaware.collection;
+
+import org.springframework.lang.NonNull;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list backed by a 32-way trie with a separate tail.
+ * <p>
+ * Every modification returns a new list which shares all unchanged
+ * leaves with the original one and copies only the path to the modified
+ * element, so consecutive refresh generations differing in a few elements
+ * share almost the whole structure. Appending and removing the last
+ * element copies only the tail in most cases.
+ *
+ * @param <E> type of elements
+ * @see #update(List)
+ */
+public final class PersistentVector<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final int BITS = 5;
+
+    private static final int WIDTH = 1 << BITS;
+
+    private static final int MASK = WIDTH - 1;
+
+    private static final Object[] EMPTY_NODE = new Object[WIDTH];
+
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, BITS, EMPTY_NODE, new Object[0]);
+
+    private final int size;
+
+    private final int shift;
+
+    private final Object[] root;
+
+    private final Object[] tail;
+
+    private PersistentVector(int size, int shift, Object[] root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    /**
+     * Empty list.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> of() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    /**
+     * Persistent copy of specified collection. Persistent list is returned as it is.
+     * Trie is built bottom up, so no intermediate lists are created.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> copyOf(@NonNull Collection<? extends E> collection) {
+        if (collection instanceof PersistentVector) {
+            return (PersistentVector<E>) collection;
+        }
+
+        Object[] elements = collection.toArray();
+        int size = elements.length;
+        if (size == 0) {
+            return of();
+        }
+
+        int tailOffset = tailOffset(size);
+        List<Object[]> nodes = new ArrayList<>(tailOffset / WIDTH);
+        for (int i = 0; i < tailOffset; i += WIDTH) {
+            nodes.add(Arrays.copyOfRange(elements, i, i + WIDTH));
+        }
+
+        int shift = BITS;
+        while (nodes.size() > WIDTH) {
+            List<Object[]> parents = new ArrayList<>((nodes.size() + MASK) / WIDTH);
+            for (int i = 0; i < nodes.size(); i += WIDTH) {
+                Object[] parent = new Object[WIDTH];
+                int end = Math.min(i + WIDTH, nodes.size());
+                for (int j = i; j < end; j++) {
+                    parent[j - i] = nodes.get(j);
+                }
+                parents.add(parent);
+            }
+            nodes = parents;
+            shift += BITS;
+        }
+
+        Object[] root = nodes.isEmpty() ? EMPTY_NODE : Arrays.copyOf(nodes.toArray(), WIDTH);
+        return new PersistentVector<>(size, shift, root, Arrays.copyOfRange(elements, tailOffset, size));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        return (E) leafFor(index)[index & MASK];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * List with element at specified index replaced.
+     *
+     * @return this list if the element is equal to the current one
+     */
+    @NonNull
+    public PersistentVector<E> with(int index, E element) {
+        Objects.checkIndex(index, size);
+        if (Objects.equals(get(index), element)) {
+            return this;
+        }
+
+        if (index >= tailOffset(size)) {
+            Object[] newTail = tail.clone();
+            newTail[index & MASK] = element;
+            return new PersistentVector<>(size, shift, root, newTail);
+        }
+
+        return new PersistentVector<>(size, shift, set(shift, root, index, element), tail);
+    }
+
+    /**
+     * List with specified element appended.
+     */
+    @NonNull
+    public PersistentVector<E> append(E element) {
+        if (size - tailOffset(size) < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = element;
+            return new PersistentVector<>(size + 1, shift, root, newTail);
+        }
+
+        // full tail is pushed into the trie
+        Object[] newRoot;
+        int newShift = shift;
+        if ((size >>> BITS) > (1 << shift)) {
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(shift, root, tail);
+        }
+
+        return new PersistentVector<>(size + 1, newShift, newRoot, new Object[]{element});
+    }
+
+    /**
+     * List without the last element.
+     *
+     * @throws IllegalStateException if the list is empty
+     */
+    @NonNull
+    public PersistentVector<E> removeLast() {
+        if (size == 0) {
+            throw new IllegalStateException("List is empty");
+        } else if (size == 1) {
+            return of();
+        }
+
+        if (size - tailOffset(size) > 1) {
+            return new PersistentVector<>(size - 1, shift, root, Arrays.copyOf(tail, tail.length - 1));
+        }
+
+        // the last leaf becomes the tail
+        Object[] newTail = leafFor(size - 2);
+        Object[] newRoot = popTail(shift, root);
+        int newShift = shift;
+        if (newRoot == null) {
+            newRoot = EMPTY_NODE;
+        }
+        if (shift > BITS && newRoot[1] == null) {
+            newRoot = (Object[]) newRoot[0];
+            newShift -= BITS;
+        }
+        return new PersistentVector<>(size - 1, newShift, newRoot, newTail);
+    }
+
+    /**
+     * List equal to specified content derived from this list by applying
+     * differences position by position, so leaves of unchanged ranges
+     * are shared and elements equal to the current ones are kept.
+     *
+     * @param content new content
+     * @return list equal to the content or this list if nothing is changed
+     */
+    @NonNull
+    public PersistentVector<E> update(@NonNull List<? extends E> content) {
+        PersistentVector<E> result = this;
+        int index = 0;
+        for (E element : content) {
+            result = index < size ? result.with(index, element) : result.append(element);
+            index++;
+        }
+        while (result.size > index) {
+            result = result.removeLast();
+        }
+        return result;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+
+            private int index;
+
+            private Object[] leaf;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                Objects.checkIndex(index, size);
+                if ((index & MASK) == 0 || leaf == null) {
+                    leaf = leafFor(index);
+                }
+                return (E) leaf[index++ & MASK];
+            }
+        };
+    }
+
+    private static int tailOffset(int size) {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    private Object[] leafFor(int index) {
+        if (index >= tailOffset(size)) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    private static Object[] set(int level, Object[] node, int index, Object element) {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[index & MASK] = element;
+        } else {
+            int child = (index >>> level) & MASK;
+            copy[child] = set(level - BITS, (Object[]) node[child], index, element);
+        }
+        return copy;
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] leaf) {
+        int child = ((size - 1) >>> level) & MASK;
+        Object[] copy = parent.clone();
+        if (level == BITS) {
+            copy[child] = leaf;
+        } else {
+            Object[] node = (Object[]) parent[child];
+            copy[child] = node != null ? pushTail(level - BITS, node, leaf) : newPath(level - BITS, leaf);
+        }
+        return copy;
+    }
+
+    private static Object[] newPath(int level, Object[] leaf) {
+        if (level == 0) {
+            return leaf;
+        }
+        Object[] node = new Object[WIDTH];
+        node[0] = newPath(level - BITS, leaf);
+        return node;
+    }
+
+    private Object[] popTail(int level, Object[] node) {
+        int child = ((size - 2) >>> level) & MASK;
+        if (level > BITS) {
+            Object[] newChild = popTail(level - BITS, (Object[]) node[child]);
+            if (newChild == null && child == 0) {
+                return null;
+            }
+            Object[] copy = node.clone();
+            copy[child] = newChild;
+            return copy;
+        } else if (child == 0) {
+            return null;
+        }
+        Object[] copy = node.clone();
+        copy[child] = null;
+        return copy;
+    }
+
+}
@@ -0,0 +1,461 @@
+package com.github.mscode.beans.factory.refreshaware.collection;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+/**
+ * Immutable sorted map backed by two arrays of sorted keys
+ * and their values, with lookups by binary search.
+ * <p>
+ * Needs no per-entry objects and its range views share the arrays.
+ * Arrays are sized exactly once the map is built. Intended for data
+ * built once by refresh and read-only afterwards, especially when range
+ * queries are needed or input is already sorted. Range views are
+ * clipped to the range of the viewed map.
+ * <p>
+ * Null keys are not permitted, null values are.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ * @see #builder(int, Comparator)
+ * @see #toSortedArrayMap(Function, Function, Comparator)
+ */
+public final class SortedArrayMap<K, V> extends AbstractMap<K, V> implements SortedMap<K, V> {
+
+    private final Object[] keys;
+
+    private final Object[] values;
+
+    private final int from;
+
+    private final int to;
+
+    private final Comparator<? super K> comparator;
+
+    private SortedArrayMap(Object[] keys, Object[] values, int from, int to, @Nullable Comparator<? super K> comparator) {
+        this.keys = keys;
+        this.values = values;
+        this.from = from;
+        this.to = to;
+        this.comparator = comparator;
+    }
+
+    /**
+     * Copies specified map.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public static <K, V> SortedArrayMap<K, V> copyOf(@NonNull Map<? extends K, ? extends V> map) {
+        if (map instanceof SortedArrayMap) {
+            return (SortedArrayMap<K, V>) map;
+        }
+        Comparator<? super K> comparator = map instanceof SortedMap ? ((SortedMap<K, ?>) map).comparator() : null;
+        Builder<K, V> builder = builder(map.size(), comparator);
+        map.forEach(builder::put);
+        return builder.build();
+    }
+
+    /**
+     * Creates builder sized for specified number of entries.
+     *
+     * @param expectedSize expected number of entries
+     * @param comparator   comparator of keys or {@code null} for natural ordering
+     */
+    @NonNull
+    public static <K, V> Builder<K, V> builder(int expectedSize, @Nullable Comparator<? super K> comparator) {
+        return new Builder<>(expectedSize, comparator);
+    }
+
+    /**
+     * Collects stream elements into sorted array map. Value of
+     * duplicate key replaces the previous one.
+     *
+     * @param keyMapper   function producing keys
+     * @param valueMapper function producing values
+     * @param comparator  comparator of keys or {@code null} for natural ordering
+     */
+    @NonNull
+    public static <T, K, V> Collector<T, ?, SortedArrayMap<K, V>> toSortedArrayMap(@NonNull Function<? super T, ? extends K> keyMapper,
+                                                                                   @NonNull Function<? super T, ? extends V> valueMapper,
+                                                                                   @Nullable Comparator<? super K> comparator) {
+        return Collector.of(() -> new Builder<K, V>(16, comparator),
+                (builder, element) -> builder.put(keyMapper.apply(element), valueMapper.apply(element)),
+                Builder::putAll,
+                Builder::build);
+    }
+
+    @Override
+    public Comparator<? super K> comparator() {
+        return comparator;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int index = indexOf(key);
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (int i = from; i < to; i++) {
+            action.accept((K) keys[i], (V) values[i]);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code fromKey} is greater than {@code toKey}
+     */
+    @NonNull
+    @Override
+    public SortedArrayMap<K, V> subMap(K fromKey, K toKey) {
+        Objects.requireNonNull(fromKey, "Null keys are not permitted");
+        Objects.requireNonNull(toKey, "Null keys are not permitted");
+        Assert.isTrue(compare(comparator, fromKey, toKey) <= 0, "From key must not be greater than to key");
+        return range(lowerBound(fromKey), lowerBound(toKey));
+    }
+
+    @NonNull
+    @Override
+    public SortedArrayMap<K, V> headMap(K toKey) {
+        return range(from, lowerBound(toKey));
+    }
+
+    @NonNull
+    @Override
+    public SortedArrayMap<K, V> tailMap(K fromKey) {
+        return range(lowerBound(fromKey), to);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public K firstKey() {
+        if (from == to) {
+            throw new NoSuchElementException();
+        }
+        return (K) keys[from];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public K lastKey() {
+        if (from == to) {
+            throw new NoSuchElementException();
+        }
+        return (K) keys[to - 1];
+    }
+
+    @NonNull
+    @Override
+    public Set<K> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<K> iterator() {
+                return new RangeIterator<>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    K get(int index) {
+                        return (K) keys[index];
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public int size() {
+                return SortedArrayMap.this.size();
+            }
+        };
+    }
+
+    @NonNull
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new RangeIterator<>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    V get(int index) {
+                        return (V) values[index];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return SortedArrayMap.this.size();
+            }
+        };
+    }
+
+    @NonNull
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new RangeIterator<>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    Entry<K, V> get(int index) {
+                        return new SimpleImmutableEntry<>((K) keys[index], (V) values[index]);
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Entry)) {
+                    return false;
+                }
+                Entry<?, ?> entry = (Entry<?, ?>) o;
+                int index = indexOf(entry.getKey());
+                return index >= 0 && Objects.equals(values[index], entry.getValue());
+            }
+
+            @Override
+            public int size() {
+                return SortedArrayMap.this.size();
+            }
+        };
+    }
+
+    private SortedArrayMap<K, V> range(int from, int to) {
+        return new SortedArrayMap<>(keys, values, from, Math.max(from, to), comparator);
+    }
+
+    private int indexOf(Object key) {
+        return key == null ? -1 : search(key);
+    }
+
+    /**
+     * Index of the first key not less than specified key.
+     */
+    private int lowerBound(Object key) {
+        Objects.requireNonNull(key, "Null keys are not permitted");
+        int index = search(key);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int search(Object key) {
+        // null comparator means natural ordering
+        return Arrays.binarySearch(keys, from, to, key, (Comparator<Object>) comparator);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> int compare(@Nullable Comparator<? super K> comparator, Object a, Object b) {
+        return comparator != null ? comparator.compare((K) a, (K) b) : ((Comparable<Object>) a).compareTo(b);
+    }
+
+    /**
+     * Iterator over entry indexes of this range.
+     */
+    private abstract class RangeIterator<T> implements Iterator<T> {
+
+        private int index = from;
+
+        @Override
+        public boolean hasNext() {
+            return index < to;
+        }
+
+        @Override
+        public T next() {
+            if (index >= to) {
+                throw new NoSuchElementException();
+            }
+            return get(index++);
+        }
+
+        abstract T get(int index);
+
+    }
+
+    /**
+     * Builds map of exactly the number of distinct keys. Entries
+     * added in ascending order are not sorted again.
+     */
+    public static final class Builder<K, V> {
+
+        private static final int INSERTION_SORT_THRESHOLD = 7;
+
+        private final Comparator<? super K> comparator;
+
+        private Object[] keys;
+
+        private Object[] values;
+
+        private int size;
+
+        private boolean sorted = true;
+
+        private Builder(int expectedSize, @Nullable Comparator<? super K> comparator) {
+            Assert.isTrue(expectedSize >= 0, "Expected size must not be negative");
+            this.comparator = comparator;
+            this.keys = new Object[expectedSize];
+            this.values = new Object[expectedSize];
+        }
+
+        /**
+         * Adds entry, value of duplicate key replaces the previous one.
+         */
+        @NonNull
+        public Builder<K, V> put(@NonNull K key, V value) {
+            Objects.requireNonNull(key, "Null keys are not permitted");
+
+            if (sorted && size > 0) {
+                int order = compare(comparator, keys[size - 1], key);
+                if (order == 0) {
+                    values[size - 1] = value;
+                    return this;
+                }
+                sorted = order < 0;
+            }
+
+            if (size == keys.length) {
+                int capacity = Math.max(8, size + (size >> 1));
+                keys = Arrays.copyOf(keys, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+
+            keys[size] = key;
+            values[size] = value;
+            size++;
+            return this;
+        }
+
+        @NonNull
+        public Builder<K, V> putAll(@NonNull Map<? extends K, ? extends V> map) {
+            map.forEach(this::put);
+            return this;
+        }
+
+        @NonNull
+        @SuppressWarnings("unchecked")
+        Builder<K, V> putAll(@NonNull Builder<K, V> other) {
+            for (int i = 0; i < other.size; i++) {
+                put((K) other.keys[i], (V) other.values[i]);
+            }
+            return this;
+        }
+
+        /**
+         * Builds map trimmed to the number of distinct keys.
+         * Builder must not be used afterwards.
+         */
+        @NonNull
+        public SortedArrayMap<K, V> build() {
+            if (!sorted) {
+                sort();
+            }
+
+            Object[] builtKeys = size == keys.length ? keys : Arrays.copyOf(keys, size);
+            Object[] builtValues = size == values.length ? values : Arrays.copyOf(values, size);
+            keys = null;
+            values = null;
+            return new SortedArrayMap<>(builtKeys, builtValues, 0, size, comparator);
+        }
+
+        /**
+         * Sorts entries by key, keeping the last value of duplicate keys.
+         */
+        private void sort() {
+            // stable sort keeps duplicates in insertion order
+            mergeSort(Arrays.copyOf(keys, size), Arrays.copyOf(values, size), keys, values, 0, size);
+
+            int distinct = 0;
+            for (int i = 0; i < size; i++) {
+                if (distinct > 0 && compare(comparator, keys[distinct - 1], keys[i]) == 0) {
+                    values[distinct - 1] = values[i];
+                } else {
+                    keys[distinct] = keys[i];
+                    values[distinct] = values[i];
+                    distinct++;
+                }
+            }
+
+            Arrays.fill(keys, distinct, size, null);
+            Arrays.fill(values, distinct, size, null);
+            size = distinct;
+        }
+
+        /**
+         * Stable merge sort of keys moving values along, both source
+         * and target must contain the same entries in the range.
+         */
+        private void mergeSort(Object[] sourceKeys, Object[] sourceValues, Object[] targetKeys, Object[] targetValues, int low, int high) {
+            if (high - low < INSERTION_SORT_THRESHOLD) {
+                for (int i = low + 1; i < high; i++) {
+                    for (int j = i; j > low && compare(comparator, targetKeys[j - 1], targetKeys[j]) > 0; j--) {
+                        swap(targetKeys, j, j - 1);
+                        swap(targetValues, j, j - 1);
+                    }
+                }
+                return;
+            }
+
+            int mid = (low + high) >>> 1;
+            mergeSort(targetKeys, targetValues, sourceKeys, sourceValues, low, mid);
+            mergeSort(targetKeys, targetValues, sourceKeys, sourceValues, mid, high);
+
+            if (compare(comparator, sourceKeys[mid - 1], sourceKeys[mid]) <= 0) {
+                System.arraycopy(sourceKeys, low, targetKeys, low, high - low);
+                System.arraycopy(sourceValues, low, targetValues, low, high - low);
+                return;
+            }
+
+            for (int i = low, p = low, q = mid; i < high; i++) {
+                if (q >= high || p < mid && compare(comparator, sourceKeys[p], sourceKeys[q]) <= 0) {
+                    targetKeys[i] = sourceKeys[p];
+                    targetValues[i] = sourceValues[p++];
+                } else {
+                    targetKeys[i] = sourceKeys[q];
+                    targetValues[i] = sourceValues[q++];
+                }
+            }
+        }
+
+        private static void swap(Object[] array, int i, int j) {
+            Object tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.github.mscode.beans.factory.refreshaware.collection;
+
+import org.springframework.lang.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of canonical instances of immutable values, e.g. repeated strings
+ * of parsed documents such as country codes or categories.
+ * <p>
+ * Pooled values are weakly referenced, so they are retained only while
+ * some instance still uses them. Pool shared by consecutive refreshes
+ * makes the new instance reuse values of the current one, so values are
+ * not duplicated while both generations coexist and the new generation
+ * does not retain its own copies.
+ * <p>
+ * Pool is split into independently locked segments,
+ * so concurrent refreshes do not contend on a single lock.
+ *
+ * @see ValuePoolModule
+ */
+public class ValuePool {
+
+    private static final int SEGMENTS = 64;
+
+    private static final ValuePool SHARED = new ValuePool();
+
+    @SuppressWarnings("unchecked")
+    private final Map<Object, WeakReference<Object>>[] segments = new Map[SEGMENTS];
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    public ValuePool() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new WeakHashMap<>();
+        }
+    }
+
+    /**
+     * Pool shared by the whole JVM.
+     */
+    public static ValuePool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns canonical instance equal to specified value.
+     * Value is pooled if no equal value is pooled yet.
+     *
+     * @param value immutable value
+     * @return canonical instance
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T canonicalize(@Nullable T value) {
+        if (value == null) {
+            return null;
+        }
+
+        int hash = value.hashCode();
+        Map<Object, WeakReference<Object>> segment = segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+        synchronized (segment) {
+            WeakReference<Object> reference = segment.get(value);
+            Object canonical = reference != null ? reference.get() : null;
+            if (canonical != null) {
+                hits.increment();
+                return (T) canonical;
+            }
+            segment.put(value, new WeakReference<>(value));
+        }
+
+        misses.increment();
+        return value;
+    }
+
+    /**
+     * Number of pooled values still in use.
+     */
+    public int size() {
+        int size = 0;
+        for (Map<Object, WeakReference<Object>> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Number of values replaced by canonical instance.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Number of values added to the pool.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.github.mscode.beans.factory.refreshaware.collection;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.KeyDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Jackson module canonicalizing deserialized strings and
+ * map keys through {@link ValuePool}, so repeated values
+ * share a single instance within and across documents.
+ * <p>
+ * Strings longer than maximal length are rarely repeated,
+ * so they are not pooled.
+ */
+public class ValuePoolModule extends SimpleModule {
+
+    private static final int DEFAULT_MAX_LENGTH = 256;
+
+    /**
+     * Creates module pooling strings of at most 256 characters.
+     *
+     * @param pool pool of canonical values
+     */
+    public ValuePoolModule(ValuePool pool) {
+        this(pool, DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * @param pool      pool of canonical values
+     * @param maxLength maximal length of pooled strings
+     */
+    public ValuePoolModule(ValuePool pool, int maxLength) {
+        super(ValuePoolModule.class.getSimpleName());
+        Assert.isTrue(maxLength >= 0, "Maximal length must not be negative");
+        Objects.requireNonNull(pool);
+        addDeserializer(String.class, new PooledStringDeserializer(pool, maxLength));
+        addKeyDeserializer(String.class, new PooledKeyDeserializer(pool, maxLength));
+    }
+
+    private static String canonicalize(ValuePool pool, int maxLength, String value) {
+        return value != null && value.length() <= maxLength ? pool.canonicalize(value) : value;
+    }
+
+    private static class PooledStringDeserializer extends StdScalarDeserializer<String> {
+
+        private final ValuePool pool;
+
+        private final int maxLength;
+
+        PooledStringDeserializer(ValuePool pool, int maxLength) {
+            super(String.class);
+            this.pool = pool;
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public String deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return canonicalize(pool, maxLength, StringDeserializer.instance.deserialize(p, ctxt));
+        }
+
+    }
+
+    private static class PooledKeyDeserializer extends KeyDeserializer {
+
+        private final ValuePool pool;
+
+        private final int maxLength;
+
+        PooledKeyDeserializer(ValuePool pool, int maxLength) {
+            this.pool = pool;
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public Object deserializeKey(String key, DeserializationContext ctxt) {
+            return canonicalize(pool, maxLength, key);
+        }
+
+    }
+
+}
@@ -1,21 +1,41 @@
 package com.github.mscode.beans.factory.refreshaware.configuration;
 
+import com.github.mscode.beans.factory.refreshaware.RefreshAdmissionController;
+import com.github.mscode.beans.factory.refreshaware.RefreshBackoff;
 import com.github.mscode.beans.factory.refreshaware.RefreshableBean;
+import com.github.mscode.beans.factory.refreshaware.collection.ValuePool;
+import com.github.mscode.beans.factory.refreshaware.configuration.RefreshableBeanProperties.Stagger;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.event.ApplicationStartedEvent;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.EventListener;
+import org.springframework.lang.Nullable;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.Trigger;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.support.CronExpression;
 import org.springframework.scheduling.support.CronTrigger;
 import org.springframework.scheduling.support.PeriodicTrigger;
 import org.springframework.util.CollectionUtils;
 
-import java.util.List;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Configuration(proxyBeanMethods = false)
@@ -24,31 +44,248 @@ import java.util.List;
 public class RefreshableBeanAutoConfiguration {
 
     private final TaskScheduler scheduler;
-    private final List<RefreshableBean> beans;
+    private final Map<String, RefreshableBean> beans;
     private final RefreshableBeanProperties properties;
 
+    private volatile Map<String, Long> offsets;
+
+    private volatile Instant scheduledAt;
+
+    private volatile Instant lastStart;
+
+    private volatile Instant lastCompletion;
+
     @Autowired
     public RefreshableBeanAutoConfiguration(RefreshableBeanProperties properties,
-                                            List<RefreshableBean> beans, TaskScheduler scheduler) {
-        this.beans = beans;
+                                            Map<String, RefreshableBean> beans, TaskScheduler scheduler) {
+        this.beans = new LinkedHashMap<>();
         this.scheduler = scheduler;
         this.properties = properties;
+
+        beans.forEach((name, bean) -> this.beans.put(BeanFactoryUtils.transformedBeanName(name), bean));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "beans.factory.refresh.admission", name = "enabled", havingValue = "true")
+    public static RefreshAdmissionController refreshAdmissionController(RefreshableBeanProperties properties) {
+        RefreshAdmissionController controller = new RefreshAdmissionController(properties.getAdmission().getHeapFraction());
+        controller.setMaxWait(properties.getAdmission().getMaxWait());
+        return controller;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "beans.factory.refresh.backoff", name = "enabled", havingValue = "true")
+    public static RefreshBackoff refreshBackoff(RefreshableBeanProperties properties) {
+        RefreshableBeanProperties.Backoff backoff = properties.getBackoff();
+        return new RefreshBackoff(backoff.getInitialDelay(), backoff.getMaxDelay(), backoff.getCircuitThreshold());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "beans.factory.refresh.value-pool", name = "enabled", havingValue = "true")
+    public static ValuePool refreshableValuePool() {
+        return new ValuePool();
     }
 
     @EventListener(ApplicationStartedEvent.class)
     public void schedule() {
         if (properties.isEnabled() && !CollectionUtils.isEmpty(beans)) {
-            scheduler.schedule(() -> callRefresh(beans), createTrigger(properties));
+            scheduledAt = Instant.now();
+            if (isSpread(properties)) {
+                Map<String, Long> offsets = createOffsets(beans, properties);
+                this.offsets = offsets;
+                if (isFixedDelay(properties)) {
+                    // following rounds are scheduled once all refreshes of the previous one complete
+                    scheduler.schedule(() -> callRefresh(beans, offsets), scheduledAt.plus(properties.getInitialDelay()));
+                } else {
+                    scheduler.schedule(() -> callRefresh(beans, offsets), createTrigger(properties));
+                }
+            } else {
+                scheduler.schedule(() -> callRefresh(beans), createTrigger(properties));
+            }
         }
     }
 
-    private static void callRefresh(List<RefreshableBean> beans) {
-        for (RefreshableBean bean : beans) {
-            try {
-                bean.refresh();
-            } catch (Exception e) {
-                log.error("{}#refresh() failed", bean.getClass().getSimpleName(), e);
+    /**
+     * Estimates next scheduled refresh of specified bean.
+     * Random jitter is not included.
+     *
+     * @param name bean name
+     * @return next refresh or {@code null} if bean refresh is not scheduled
+     */
+    @Nullable
+    public Instant getNextRefresh(String name) {
+        Instant start = scheduledAt;
+        if (start == null || !beans.containsKey(name)) {
+            return null;
+        }
+
+        Instant next;
+        if (properties.getCron() != null) {
+            ZonedDateTime time = CronExpression.parse(properties.getCron()).next(ZonedDateTime.now());
+            next = time != null ? time.toInstant() : null;
+        } else if (properties.getFixedDelay() != null) {
+            Instant completion = lastCompletion;
+            next = completion != null ? completion.plus(properties.getFixedDelay()) : start.plus(properties.getInitialDelay());
+        } else {
+            Instant previous = lastStart;
+            next = previous != null ? previous.plus(properties.getFixedRate()) : start.plus(properties.getInitialDelay());
+        }
+
+        Map<String, Long> offsets = this.offsets;
+        if (next != null && offsets != null) {
+            next = next.plusMillis(clamp(offsets.get(name), resolveInterval(properties)));
+        }
+
+        return next;
+    }
+
+    private void callRefresh(Map<String, RefreshableBean> beans) {
+        lastStart = Instant.now();
+        for (RefreshableBean bean : beans.values()) {
+            callRefresh(bean);
+        }
+        lastCompletion = Instant.now();
+    }
+
+    /**
+     * Refreshes every bean after its offset and random jitter. Round is
+     * completed once the last delayed refresh completes, delays are kept
+     * below the refresh interval, so refreshes of consecutive rounds never overlap.
+     */
+    private void callRefresh(Map<String, RefreshableBean> beans, Map<String, Long> offsets) {
+        Instant now = Instant.now();
+        lastStart = now;
+
+        long interval = resolveInterval(properties);
+        long jitter = properties.getJitter().toMillis();
+        AtomicInteger remaining = new AtomicInteger(beans.size());
+
+        beans.forEach((name, bean) -> {
+            long delay = offsets.get(name);
+            if (jitter > 0) {
+                delay += ThreadLocalRandom.current().nextLong(jitter);
             }
+            delay = clamp(delay, interval);
+
+            Runnable refresh = () -> {
+                try {
+                    callRefresh(bean);
+                } finally {
+                    if (remaining.decrementAndGet() == 0) {
+                        completeRound(beans, offsets);
+                    }
+                }
+            };
+
+            if (delay > 0) {
+                scheduler.schedule(refresh, now.plusMillis(delay));
+            } else {
+                refresh.run();
+            }
+        });
+    }
+
+    private void completeRound(Map<String, RefreshableBean> beans, Map<String, Long> offsets) {
+        Instant completion = Instant.now();
+        lastCompletion = completion;
+        if (isFixedDelay(properties)) {
+            scheduler.schedule(() -> callRefresh(beans, offsets), completion.plus(properties.getFixedDelay()));
+        }
+    }
+
+    private static void callRefresh(RefreshableBean bean) {
+        try {
+            bean.refresh();
+        } catch (Exception e) {
+            log.error("{}#refresh() failed", bean.getClass().getSimpleName(), e);
+        }
+    }
+
+    private static boolean isSpread(RefreshableBeanProperties properties) {
+        return properties.getStagger() != Stagger.NONE || !properties.getJitter().isZero();
+    }
+
+    private static boolean isFixedDelay(RefreshableBeanProperties properties) {
+        return properties.getCron() == null && properties.getFixedDelay() != null;
+    }
+
+    /**
+     * Interval between consecutive rounds in milliseconds, in case
+     * of cron the interval between its two following executions.
+     */
+    private static long resolveInterval(RefreshableBeanProperties properties) {
+        if (properties.getCron() != null) {
+            CronExpression cron = CronExpression.parse(properties.getCron());
+            ZonedDateTime next = cron.next(ZonedDateTime.now());
+            ZonedDateTime following = next != null ? cron.next(next) : null;
+            return following != null ? Duration.between(next, following).toMillis() : Long.MAX_VALUE;
+        }
+
+        if (properties.getFixedDelay() != null) {
+            return properties.getFixedDelay().toMillis();
+        }
+
+        return properties.getFixedRate().toMillis();
+    }
+
+    /**
+     * Keeps refresh delay below the interval.
+     */
+    private static long clamp(long delay, long interval) {
+        return Math.max(0, Math.min(delay, interval - 1));
+    }
+
+    /**
+     * Calculates deterministic refresh offset for every bean,
+     * so the same bean is always refreshed at the same moment
+     * of {@link RefreshableBeanProperties#getStaggerWindow()}.
+     */
+    private static Map<String, Long> createOffsets(Map<String, RefreshableBean> beans, RefreshableBeanProperties properties) {
+        Map<String, Long> offsets = new LinkedHashMap<>();
+
+        Stagger stagger = properties.getStagger();
+        long window = resolveStaggerWindow(properties).toMillis();
+        String nodeId = stagger == Stagger.CLUSTER ? resolveNodeId(properties) : null;
+
+        for (String name : beans.keySet()) {
+            if (stagger == Stagger.NONE || window <= 0) {
+                offsets.put(name, 0L);
+                continue;
+            }
+
+            String key = nodeId != null ? name + "@" + nodeId : name;
+            UUID hash = UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8));
+            offsets.put(name, Math.floorMod(hash.getLeastSignificantBits(), window));
+        }
+
+        return offsets;
+    }
+
+    private static Duration resolveStaggerWindow(RefreshableBeanProperties properties) {
+        if (properties.getStaggerWindow() != null) {
+            return properties.getStaggerWindow();
+        }
+
+        if (properties.getFixedDelay() != null) {
+            return properties.getFixedDelay();
+        }
+
+        return properties.getFixedRate();
+    }
+
+    private static String resolveNodeId(RefreshableBeanProperties properties) {
+        if (properties.getNodeId() != null) {
+            return properties.getNodeId();
+        }
+
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            log.warn("Unable to resolve host name, using bean name only for refresh stagger", e);
+            return "";
         }
     }
 
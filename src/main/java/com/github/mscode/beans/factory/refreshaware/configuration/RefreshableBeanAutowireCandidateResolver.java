@@ -0,0 +1,87 @@
+package com.github.mscode.beans.factory.refreshaware.configuration;
+
+import com.github.mscode.beans.factory.refreshaware.ProxyBasedRefreshAwareFactoryBean;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.DependencyDescriptor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.ContextAnnotationAutowireCandidateResolver;
+import org.springframework.core.ResolvableType;
+import org.springframework.lang.Nullable;
+
+import java.lang.reflect.Method;
+
+/**
+ * Autowire candidate resolver which matches generic type of objects
+ * created by {@link ProxyBasedRefreshAwareFactoryBean}s, so e.g.
+ * {@code List<Integer>} and {@code List<String>} beans can be
+ * autowired by type without additional qualifiers.
+ * <p>
+ * Default resolver matches factory bean objects by their raw type only.
+ */
+public class RefreshableBeanAutowireCandidateResolver extends ContextAnnotationAutowireCandidateResolver {
+
+    @Override
+    protected boolean checkGenericTypeMatch(BeanDefinitionHolder bdHolder, DependencyDescriptor descriptor) {
+        ResolvableType dependencyType = descriptor.getResolvableType();
+        if (!(dependencyType.getType() instanceof Class)) {
+            ResolvableType objectType = resolveObjectType(bdHolder);
+            if (objectType != null) {
+                if (descriptor.fallbackMatchAllowed() && objectType.hasUnresolvableGenerics()) {
+                    return true;
+                }
+                return dependencyType.isAssignableFrom(objectType);
+            }
+        }
+
+        return super.checkGenericTypeMatch(bdHolder, descriptor);
+    }
+
+    @Nullable
+    private ResolvableType resolveObjectType(BeanDefinitionHolder bdHolder) {
+        String beanName = bdHolder.getBeanName();
+        BeanFactory beanFactory = getBeanFactory();
+        if (BeanFactoryUtils.isFactoryDereference(beanName)
+                || !(beanFactory instanceof ConfigurableListableBeanFactory)
+                || !(bdHolder.getBeanDefinition() instanceof RootBeanDefinition)) {
+            return null;
+        }
+
+        // created factory bean knows its exact type
+        ConfigurableListableBeanFactory listableBeanFactory = (ConfigurableListableBeanFactory) beanFactory;
+        if (listableBeanFactory.containsSingleton(beanName)) {
+            Object singleton = listableBeanFactory.getSingleton(beanName);
+            if (singleton instanceof ProxyBasedRefreshAwareFactoryBean) {
+                // unresolvable generics are already resolved from createInstance return type
+                ResolvableType objectType = ((ProxyBasedRefreshAwareFactoryBean<?>) singleton).getObjectResolvableType();
+                return objectType.resolve() != null ? objectType : null;
+            }
+            return null;
+        }
+
+        // otherwise resolve type from declared generics
+        RootBeanDefinition definition = (RootBeanDefinition) bdHolder.getBeanDefinition();
+        Method factoryMethod = definition.getResolvedFactoryMethod();
+
+        ResolvableType factoryType;
+        if (factoryMethod != null) {
+            factoryType = ResolvableType.forMethodReturnType(factoryMethod);
+        } else if (definition.hasBeanClass()) {
+            factoryType = ResolvableType.forClass(definition.getBeanClass());
+        } else {
+            return null;
+        }
+
+        if (!ProxyBasedRefreshAwareFactoryBean.class.isAssignableFrom(factoryType.toClass())) {
+            return null;
+        }
+
+        // unresolvable type variable would resolve to its bound and match anything
+        ResolvableType objectFactoryType = factoryType.as(FactoryBean.class);
+        return objectFactoryType.hasUnresolvableGenerics() ? null : objectFactoryType.getGeneric();
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.github.mscode.beans.factory.refreshaware.configuration;
+
+import com.github.mscode.beans.factory.refreshaware.RefreshableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+/**
+ * Registers actuator endpoint and health indicator of refreshable beans
+ * when Spring Boot Actuator is on the classpath.
+ *
+ * @see RefreshableBeansEndpoint
+ * @see RefreshableBeansHealthIndicator
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(Endpoint.class)
+@EnableConfigurationProperties(RefreshableBeanProperties.class)
+public class RefreshableBeanEndpointAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnAvailableEndpoint
+    public RefreshableBeansEndpoint refreshableBeansEndpoint(Map<String, RefreshableBean> beans,
+                                                             ObjectProvider<RefreshableBeanAutoConfiguration> configuration) {
+        return new RefreshableBeansEndpoint(beans, name -> {
+            RefreshableBeanAutoConfiguration autoConfiguration = configuration.getIfAvailable();
+            return autoConfiguration != null ? autoConfiguration.getNextRefresh(name) : null;
+        });
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(HealthIndicator.class)
+    @ConditionalOnProperty(prefix = "beans.factory.refresh.health", name = "enabled", havingValue = "true")
+    static class RefreshableBeansHealthConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(name = "refreshablesHealthIndicator")
+        public RefreshableBeansHealthIndicator refreshablesHealthIndicator(Map<String, RefreshableBean> beans,
+                                                                           RefreshableBeanProperties properties) {
+            return new RefreshableBeansHealthIndicator(beans, properties.getHealth().getMaxAge());
+        }
+
+    }
+
+}
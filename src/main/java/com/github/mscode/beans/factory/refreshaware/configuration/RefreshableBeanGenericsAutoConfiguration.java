@@ -0,0 +1,34 @@
+package com.github.mscode.beans.factory.refreshaware.configuration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ContextAnnotationAutowireCandidateResolver;
+
+/**
+ * Enables autowiring of refreshable beans by their generic type.
+ *
+ * @see RefreshableBeanAutowireCandidateResolver
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+public class RefreshableBeanGenericsAutoConfiguration {
+
+    @Bean
+    public static BeanFactoryPostProcessor refreshableBeanAutowireCandidateResolverPostProcessor() {
+        return beanFactory -> {
+            if (beanFactory instanceof DefaultListableBeanFactory) {
+                DefaultListableBeanFactory listableBeanFactory = (DefaultListableBeanFactory) beanFactory;
+                // do not override custom resolvers
+                if (listableBeanFactory.getAutowireCandidateResolver().getClass() == ContextAnnotationAutowireCandidateResolver.class) {
+                    listableBeanFactory.setAutowireCandidateResolver(new RefreshableBeanAutowireCandidateResolver());
+                } else {
+                    log.debug("Custom autowire candidate resolver detected, refreshable beans are matched by raw type");
+                }
+            }
+        };
+    }
+
+}
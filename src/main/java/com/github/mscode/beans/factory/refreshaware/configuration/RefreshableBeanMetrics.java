@@ -0,0 +1,76 @@
+package com.github.mscode.beans.factory.refreshaware.configuration;
+
+import com.github.mscode.beans.factory.refreshaware.RefreshStatistics;
+import com.github.mscode.beans.factory.refreshaware.RefreshableBean;
+import com.github.mscode.beans.factory.refreshaware.RefreshableRef;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes {@link RefreshStatistics} of every refreshable bean as gauges
+ * tagged by bean name. Unknown values are reported as {@code NaN}.
+ */
+public class RefreshableBeanMetrics implements MeterBinder {
+
+    private final Map<String, RefreshableBean> beans = new LinkedHashMap<>();
+
+    public RefreshableBeanMetrics(Map<String, RefreshableBean> beans) {
+        beans.forEach((name, bean) -> this.beans.put(BeanFactoryUtils.transformedBeanName(name), bean));
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        beans.forEach((name, bean) -> {
+            Tags tags = Tags.of("bean", name);
+
+            if (bean instanceof RefreshableRef) {
+                Gauge.builder("refreshable.generation", (RefreshableRef<?>) bean, RefreshableRef::getGeneration)
+                        .description("Generation of the current instance")
+                        .tags(tags)
+                        .register(registry);
+            }
+
+            RefreshStatistics statistics = bean.getStatistics();
+            if (statistics == null) {
+                return;
+            }
+
+            Gauge.builder("refreshable.instance.size", statistics, s -> known(s.getEstimatedSize()))
+                    .description("Estimated retained size of the current instance")
+                    .baseUnit(BaseUnits.BYTES)
+                    .tags(tags)
+                    .register(registry);
+
+            Gauge.builder("refreshable.build.allocated", statistics, s -> known(s.getAllocatedBytes()))
+                    .description("Bytes allocated by the thread which created the current instance")
+                    .baseUnit(BaseUnits.BYTES)
+                    .tags(tags)
+                    .register(registry);
+
+            TimeGauge.builder("refreshable.overlap", statistics, TimeUnit.NANOSECONDS, s -> nanos(s.getOverlap()))
+                    .description("Time during which the last replaced instance coexisted with its replacement")
+                    .tags(tags)
+                    .register(registry);
+        });
+    }
+
+    private static double known(long value) {
+        return value >= 0 ? value : Double.NaN;
+    }
+
+    private static double nanos(Duration duration) {
+        return duration != null ? duration.toNanos() : Double.NaN;
+    }
+
+}
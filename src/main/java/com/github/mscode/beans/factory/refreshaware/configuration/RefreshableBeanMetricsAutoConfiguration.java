@@ -0,0 +1,27 @@
+package com.github.mscode.beans.factory.refreshaware.configuration;
+
+import com.github.mscode.beans.factory.refreshaware.RefreshableBean;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+/**
+ * Registers refreshable bean metrics when Micrometer is on the classpath.
+ *
+ * @see RefreshableBeanMetrics
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(MeterBinder.class)
+public class RefreshableBeanMetricsAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RefreshableBeanMetrics refreshableBeanMetrics(Map<String, RefreshableBean> beans) {
+        return new RefreshableBeanMetrics(beans);
+    }
+
+}
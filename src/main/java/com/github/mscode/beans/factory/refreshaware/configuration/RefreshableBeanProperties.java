@@ -39,4 +39,148 @@ public class RefreshableBeanProperties {
      */
     private Duration initialDelay = Duration.ofMinutes(1);
 
+    /**
+     * Maximal random delay added before every bean refresh.
+     * <p>
+     * Each bean gets a new random delay on every execution.
+     */
+    private Duration jitter = Duration.ZERO;
+
+    /**
+     * Spread bean refreshes across the {@link #staggerWindow}
+     * instead of refreshing all beans at the same moment.
+     */
+    private Stagger stagger = Stagger.NONE;
+
+    /**
+     * Window across which staggered refreshes are spread.
+     * <p>
+     * Defaults to {@link #fixedDelay} or {@link #fixedRate}
+     * and should be set explicitly in case of cron usage.
+     */
+    private Duration staggerWindow;
+
+    /**
+     * Identifier of this application instance used by {@link Stagger#CLUSTER}.
+     * <p>
+     * Defaults to local host name.
+     */
+    private String nodeId;
+
+    /**
+     * Memory pressure aware refresh admission.
+     */
+    private Admission admission = new Admission();
+
+    /**
+     * Retrying of failed refreshes.
+     */
+    private Backoff backoff = new Backoff();
+
+    /**
+     * Health indicator of refreshable beans.
+     */
+    private Health health = new Health();
+
+    /**
+     * Canonicalization of values parsed by refreshable beans.
+     */
+    private ValuePool valuePool = new ValuePool();
+
+    public enum Stagger {
+
+        /**
+         * All beans are refreshed at the beginning of every execution.
+         */
+        NONE,
+
+        /**
+         * Every bean is refreshed with a fixed offset derived from its name.
+         */
+        BEAN,
+
+        /**
+         * Every bean is refreshed with a fixed offset derived from its name
+         * and {@link #nodeId}, so the same bean is refreshed at different
+         * moments on different application instances.
+         */
+        CLUSTER
+
+    }
+
+    @Data
+    public static class Admission {
+
+        /**
+         * Queue refreshes which would exceed {@link #heapFraction}.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Fraction of the maximal heap which live heap together with
+         * estimated footprint of refreshes in progress should not exceed.
+         */
+        private double heapFraction = 0.7;
+
+        /**
+         * Maximal time refresh waits for admission.
+         */
+        private Duration maxWait = Duration.ofMinutes(1);
+
+    }
+
+    @Data
+    public static class Backoff {
+
+        /**
+         * Retry failed refreshes with exponential backoff and open
+         * circuit after {@link #circuitThreshold} consecutive failures.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Delay before the first retry.
+         */
+        private Duration initialDelay = Duration.ofMinutes(1);
+
+        /**
+         * Maximal delay between retries.
+         */
+        private Duration maxDelay = Duration.ofHours(1);
+
+        /**
+         * Consecutive failures after which builds are skipped until
+         * the source fingerprint changes. Zero never opens circuit.
+         */
+        private int circuitThreshold = 5;
+
+    }
+
+    @Data
+    public static class Health {
+
+        /**
+         * Register health indicator reporting failing and stale beans.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Bean is stale if it was not successfully checked for modification
+         * within this time. If not specified, staleness is not checked.
+         */
+        private Duration maxAge;
+
+    }
+
+    @Data
+    public static class ValuePool {
+
+        /**
+         * Share a single pool of canonical strings among all
+         * beans parsing json, so repeated values are stored once.
+         */
+        private boolean enabled = false;
+
+    }
+
 }
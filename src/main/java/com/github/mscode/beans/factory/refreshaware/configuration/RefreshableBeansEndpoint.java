@@ -0,0 +1,231 @@
+package com.github.mscode.beans.factory.refreshaware.configuration;
+
+import com.github.mscode.beans.factory.refreshaware.RefreshStatistics;
+import com.github.mscode.beans.factory.refreshaware.RefreshableBean;
+import com.github.mscode.beans.factory.refreshaware.RefreshableRef;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * Actuator endpoint exposing state of refreshable beans
+ * and forcing their immediate refresh.
+ * <p>
+ * Forced refreshes block the calling thread unless the bean refreshes
+ * asynchronously, so they run on a small executor kept apart from the
+ * task scheduler and never delay scheduled refreshes. Concurrent refreshes
+ * of the same bean are coalesced by the bean itself.
+ */
+@Slf4j
+@Endpoint(id = "refreshables")
+public class RefreshableBeansEndpoint implements DisposableBean {
+
+    private final Map<String, RefreshableBean> beans = new LinkedHashMap<>();
+
+    private final Function<String, Instant> nextRefresh;
+
+    private final Executor executor;
+
+    /**
+     * Whether executor was created by this endpoint, so it is shut down on {@link #destroy()}.
+     */
+    private final boolean ownsExecutor;
+
+    /**
+     * Runs forced refreshes on executor owned by this endpoint.
+     *
+     * @param beans       refreshable beans by name
+     * @param nextRefresh resolves next scheduled refresh of bean by its name
+     */
+    public RefreshableBeansEndpoint(Map<String, RefreshableBean> beans, Function<String, Instant> nextRefresh) {
+        this(beans, nextRefresh, createExecutor(), true);
+    }
+
+    /**
+     * @param beans       refreshable beans by name
+     * @param nextRefresh resolves next scheduled refresh of bean by its name
+     * @param executor    executor running forced refreshes
+     */
+    public RefreshableBeansEndpoint(Map<String, RefreshableBean> beans, Function<String, Instant> nextRefresh, Executor executor) {
+        this(beans, nextRefresh, executor, false);
+    }
+
+    private RefreshableBeansEndpoint(Map<String, RefreshableBean> beans, Function<String, Instant> nextRefresh, Executor executor, boolean ownsExecutor) {
+        this.nextRefresh = nextRefresh;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+
+        beans.forEach((name, bean) -> this.beans.put(BeanFactoryUtils.transformedBeanName(name), bean));
+    }
+
+    @ReadOperation
+    public Map<String, RefreshableBeanDescriptor> refreshables() {
+        Map<String, RefreshableBeanDescriptor> descriptors = new LinkedHashMap<>();
+        beans.forEach((name, bean) -> descriptors.put(name, describe(name, bean)));
+        return descriptors;
+    }
+
+    @Nullable
+    @ReadOperation
+    public RefreshableBeanDescriptor refreshable(@Selector String name) {
+        RefreshableBean bean = beans.get(name);
+        return bean != null ? describe(name, bean) : null;
+    }
+
+    /**
+     * Forces asynchronous refresh of all beans.
+     *
+     * @return names of beans scheduled for refresh
+     */
+    @WriteOperation
+    public List<String> refreshAll() {
+        beans.forEach(this::forceRefresh);
+        return new ArrayList<>(beans.keySet());
+    }
+
+    /**
+     * Forces asynchronous refresh of a single bean.
+     *
+     * @return names of beans scheduled for refresh or {@code null} if bean does not exist
+     */
+    @Nullable
+    @WriteOperation
+    public List<String> refresh(@Selector String name) {
+        RefreshableBean bean = beans.get(name);
+        if (bean == null) {
+            return null;
+        }
+
+        forceRefresh(name, bean);
+        return List.of(name);
+    }
+
+    private void forceRefresh(String name, RefreshableBean bean) {
+        try {
+            executor.execute(() -> {
+                try {
+                    bean.forceRefresh();
+                } catch (Exception e) {
+                    log.error("{}#forceRefresh() failed", bean.getClass().getSimpleName(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Refresh of {} rejected, too many refreshes pending", name);
+        }
+    }
+
+    /**
+     * Shuts down executor created by this endpoint, supplied executor is left running.
+     */
+    @Override
+    public void destroy() {
+        if (ownsExecutor) {
+            ((ThreadPoolTaskExecutor) executor).shutdown();
+        }
+    }
+
+    private static ThreadPoolTaskExecutor createExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("refreshables-endpoint-");
+        executor.setDaemon(true);
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(256);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.initialize();
+        return executor;
+    }
+
+    private RefreshableBeanDescriptor describe(String name, RefreshableBean bean) {
+        RefreshableBeanDescriptor descriptor = new RefreshableBeanDescriptor();
+
+        Class<?> type = bean instanceof FactoryBean ? ((FactoryBean<?>) bean).getObjectType() : bean.getClass();
+        descriptor.setType(type != null ? type.getName() : null);
+        descriptor.setNextRefresh(nextRefresh.apply(name));
+
+        if (bean instanceof RefreshableRef) {
+            descriptor.setGeneration(((RefreshableRef<?>) bean).getGeneration());
+        }
+
+        RefreshStatistics statistics = bean.getStatistics();
+        if (statistics != null) {
+            descriptor.setLastCheck(statistics.getLastCheck());
+            descriptor.setLastRefresh(statistics.getLastRefresh());
+            descriptor.setLastRefreshDuration(statistics.getLastRefreshDuration());
+            descriptor.setLastError(statistics.getLastError());
+            descriptor.setLastErrorTime(statistics.getLastErrorTime());
+            descriptor.setFailing(statistics.isFailing());
+            descriptor.setConsecutiveFailures(statistics.getConsecutiveFailures());
+            descriptor.setNextRetry(statistics.getNextRetry());
+            descriptor.setCircuitOpen(statistics.isCircuitOpen());
+            descriptor.setSource(statistics.getSource());
+            descriptor.setSourceModified(statistics.getSourceModified());
+            descriptor.setEstimatedSize(statistics.getEstimatedSize() >= 0 ? statistics.getEstimatedSize() : null);
+            descriptor.setAllocatedBytes(statistics.getAllocatedBytes() >= 0 ? statistics.getAllocatedBytes() : null);
+            descriptor.setOverlap(statistics.getOverlap());
+        }
+
+        return descriptor;
+    }
+
+    /**
+     * State of a single refreshable bean.
+     */
+    @Data
+    public static class RefreshableBeanDescriptor {
+
+        private String type;
+
+        private Long generation;
+
+        private Instant lastCheck;
+
+        private Instant lastRefresh;
+
+        private Duration lastRefreshDuration;
+
+        private String lastError;
+
+        private Instant lastErrorTime;
+
+        private boolean failing;
+
+        private int consecutiveFailures;
+
+        private Instant nextRetry;
+
+        private boolean circuitOpen;
+
+        private String source;
+
+        private Instant sourceModified;
+
+        private Instant nextRefresh;
+
+        private Long estimatedSize;
+
+        private Long allocatedBytes;
+
+        private Duration overlap;
+
+    }
+
+}
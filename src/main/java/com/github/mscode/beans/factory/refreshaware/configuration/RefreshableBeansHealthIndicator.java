@@ -0,0 +1,86 @@
+package com.github.mscode.beans.factory.refreshaware.configuration;
+
+import com.github.mscode.beans.factory.refreshaware.RefreshStatistics;
+import com.github.mscode.beans.factory.refreshaware.RefreshableBean;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.lang.Nullable;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reports refreshable beans as down if their refresh is failing
+ * or if they were not successfully checked for modification
+ * within configured maximal age. Bean which was never checked
+ * successfully is measured from its initialization.
+ * <p>
+ * Failing bean still serves its last successfully created instance.
+ */
+public class RefreshableBeansHealthIndicator extends AbstractHealthIndicator {
+
+    private final Map<String, RefreshableBean> beans = new LinkedHashMap<>();
+
+    private final Duration maxAge;
+
+    private final Clock clock;
+
+    /**
+     * Fallback for beans which are not initialized yet.
+     */
+    private final Instant created;
+
+    public RefreshableBeansHealthIndicator(Map<String, RefreshableBean> beans, @Nullable Duration maxAge) {
+        this(beans, maxAge, Clock.systemUTC());
+    }
+
+    public RefreshableBeansHealthIndicator(Map<String, RefreshableBean> beans, @Nullable Duration maxAge, Clock clock) {
+        super("Refreshable beans health check failed");
+        this.maxAge = maxAge;
+        this.clock = clock;
+        this.created = clock.instant();
+
+        beans.forEach((name, bean) -> this.beans.put(BeanFactoryUtils.transformedBeanName(name), bean));
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        List<String> failing = new ArrayList<>();
+        List<String> stale = new ArrayList<>();
+
+        Instant oldest = maxAge != null ? clock.instant().minus(maxAge) : null;
+        beans.forEach((name, bean) -> {
+            RefreshStatistics statistics = bean.getStatistics();
+            if (statistics == null) {
+                return;
+            }
+
+            if (statistics.isFailing()) {
+                failing.add(name);
+            }
+
+            Instant lastCheck = statistics.getLastCheck();
+            if (lastCheck == null) {
+                lastCheck = statistics.getInitialized() != null ? statistics.getInitialized() : created;
+            }
+            if (oldest != null && lastCheck.isBefore(oldest)) {
+                stale.add(name);
+            }
+        });
+
+        if (failing.isEmpty() && stale.isEmpty()) {
+            builder.up();
+        } else {
+            builder.down();
+        }
+
+        builder.withDetail("failing", failing).withDetail("stale", stale);
+    }
+
+}
@@ -0,0 +1,240 @@
+package com.github.mscode.beans.factory.refreshaware.parser;
+
+import org.springframework.lang.NonNull;
+import org.springframework.util.Assert;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reader of CSV records with columns of declared types.
+ * <p>
+ * Quoted values may contain separators, newlines and doubled quotes.
+ * Empty unquoted values are passed as {@link RecordSink#onNull(int)},
+ * columns without declared type or of type {@link FieldType#SKIP} are
+ * ignored. Empty lines are skipped.
+ * <pre class="code">
+ * new CsvRecordReader(FieldType.LONG, FieldType.BYTES, FieldType.DOUBLE);
+ * </pre>
+ */
+public class CsvRecordReader implements RecordReader {
+
+    /**
+     * Type of column values.
+     */
+    public enum FieldType {
+
+        /**
+         * Passed as {@link RecordSink#onLong(int, long)}.
+         */
+        LONG,
+
+        /**
+         * Passed as {@link RecordSink#onDouble(int, double)}.
+         */
+        DOUBLE,
+
+        /**
+         * {@code true} or {@code false} ignoring case,
+         * passed as {@link RecordSink#onBoolean(int, boolean)}.
+         */
+        BOOLEAN,
+
+        /**
+         * Passed as {@link RecordSink#onBytes(int, ByteBuffer)}.
+         */
+        BYTES,
+
+        /**
+         * Not passed at all.
+         */
+        SKIP
+
+    }
+
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+    private final FieldType[] types;
+
+    private byte separator = ',';
+
+    private byte quote = '"';
+
+    public CsvRecordReader(@NonNull FieldType... types) {
+        this.types = types.clone();
+    }
+
+    /**
+     * Separator of values. Default is {@code ','}.
+     */
+    public void setSeparator(char separator) {
+        Assert.isTrue(separator > 0 && separator < 0x80 && separator != '\n' && separator != '\r', "Separator must be an ASCII character");
+        this.separator = (byte) separator;
+    }
+
+    /**
+     * Quote of values. Default is {@code '"'}.
+     */
+    public void setQuote(char quote) {
+        Assert.isTrue(quote > 0 && quote < 0x80 && quote != '\n' && quote != '\r', "Quote must be an ASCII character");
+        this.quote = (byte) quote;
+    }
+
+    @Override
+    public long read(@NonNull ByteBuffer buffer, boolean last, @NonNull RecordSink sink) {
+        ByteBuffer value = buffer.asReadOnlyBuffer();
+        Utf8.Scratch scratch = new Utf8.Scratch();
+        long records = 0;
+
+        int position = buffer.position();
+        int limit = buffer.limit();
+        while (position < limit) {
+            int end = recordEnd(buffer, position, limit);
+            if (end < 0) {
+                if (!last) {
+                    break;
+                }
+                end = limit;
+            }
+
+            int next = Math.min(end + 1, limit);
+            if (end > position && buffer.get(end - 1) == '\r') {
+                end--;
+            }
+            if (end > position) {
+                parseRecord(buffer, position, end, value, scratch, sink);
+                records++;
+            }
+            position = next;
+        }
+
+        buffer.position(position);
+        return records;
+    }
+
+    /**
+     * Offset of the newline terminating the record or {@code -1} if the record is incomplete.
+     */
+    private int recordEnd(ByteBuffer buffer, int from, int to) {
+        boolean quoted = false;
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b == quote) {
+                quoted = !quoted;
+            } else if (b == '\n' && !quoted) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void parseRecord(ByteBuffer buffer, int from, int to, ByteBuffer value, Utf8.Scratch scratch, RecordSink sink) {
+        int field = 0;
+        int i = from;
+        while (true) {
+            if (i < to && buffer.get(i) == quote) {
+                scratch.reset();
+                boolean escaped = false;
+                int segment = i + 1;
+                int j = segment;
+                while (true) {
+                    if (j >= to) {
+                        throw new IllegalArgumentException("Unterminated quoted value at offset " + i);
+                    } else if (buffer.get(j) != quote) {
+                        j++;
+                    } else if (j + 1 < to && buffer.get(j + 1) == quote) {
+                        // doubled quote is unescaped into scratch
+                        scratch.append(buffer, segment, j + 1);
+                        escaped = true;
+                        j += 2;
+                        segment = j;
+                    } else {
+                        break;
+                    }
+                }
+
+                ByteBuffer bytes;
+                if (escaped) {
+                    scratch.append(buffer, segment, j);
+                    bytes = scratch.view();
+                } else {
+                    value.limit(j).position(i + 1);
+                    bytes = value;
+                }
+                emit(field, bytes, true, sink);
+
+                i = j + 1;
+                if (i < to && buffer.get(i) != separator) {
+                    throw new IllegalArgumentException("Unexpected character after quoted value at offset " + i);
+                }
+            } else {
+                int j = i;
+                while (j < to && buffer.get(j) != separator) {
+                    j++;
+                }
+                value.limit(j).position(i);
+                emit(field, value, false, sink);
+                i = j;
+            }
+
+            if (i >= to) {
+                break;
+            }
+            // skips separator, trailing one is followed by empty value
+            i++;
+            field++;
+        }
+        sink.endRecord();
+    }
+
+    private void emit(int field, ByteBuffer bytes, boolean quoted, RecordSink sink) {
+        FieldType type = field < types.length ? types[field] : FieldType.SKIP;
+        if (type == FieldType.SKIP) {
+            return;
+        }
+
+        int from = bytes.position();
+        int to = bytes.limit();
+        if (from == to && (!quoted || type != FieldType.BYTES)) {
+            sink.onNull(field);
+            return;
+        }
+
+        switch (type) {
+            case LONG:
+                sink.onLong(field, Utf8.parseLong(bytes, from, to));
+                break;
+            case DOUBLE:
+                sink.onDouble(field, Utf8.parseDouble(bytes, from, to));
+                break;
+            case BOOLEAN:
+                sink.onBoolean(field, parseBoolean(bytes, from, to));
+                break;
+            default:
+                sink.onBytes(field, bytes);
+        }
+    }
+
+    private static boolean parseBoolean(ByteBuffer bytes, int from, int to) {
+        if (equalsIgnoreCase(bytes, from, to, TRUE)) {
+            return true;
+        } else if (equalsIgnoreCase(bytes, from, to, FALSE)) {
+            return false;
+        }
+        throw new IllegalArgumentException("Invalid boolean \"" + Utf8.toString(bytes, from, to) + "\" at offset " + from);
+    }
+
+    private static boolean equalsIgnoreCase(ByteBuffer buffer, int from, int to, byte[] lowerCase) {
+        if (to - from != lowerCase.length) {
+            return false;
+        }
+        for (int i = 0; i < lowerCase.length; i++) {
+            if ((buffer.get(from + i) | 0x20) != lowerCase[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,360 @@
+package com.github.mscode.beans.factory.refreshaware.parser;
+
+import org.springframework.lang.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reader of newline-delimited JSON objects, one record per line.
+ * <p>
+ * Members are matched by name against fields given to the reader and their
+ * values are passed with the index of the field, unknown members are skipped.
+ * Strings are passed unescaped as {@link RecordSink#onBytes(int, ByteBuffer)},
+ * integral numbers as {@link RecordSink#onLong(int, long)}, other numbers as
+ * {@link RecordSink#onDouble(int, double)} and nested objects or arrays as raw
+ * JSON bytes. Empty lines are skipped.
+ * <pre class="code">
+ * new NdjsonRecordReader("id", "name", "price");
+ * </pre>
+ */
+public class NdjsonRecordReader implements RecordReader {
+
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+    private final byte[][] fields;
+
+    public NdjsonRecordReader(@NonNull String... fields) {
+        this.fields = new byte[fields.length][];
+        for (int i = 0; i < fields.length; i++) {
+            this.fields[i] = fields[i].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Override
+    public long read(@NonNull ByteBuffer buffer, boolean last, @NonNull RecordSink sink) {
+        Parser parser = new Parser(buffer, sink);
+        long records = 0;
+
+        int position = buffer.position();
+        int limit = buffer.limit();
+        while (position < limit) {
+            // newline can't be part of any JSON token
+            int end = position;
+            while (end < limit && buffer.get(end) != '\n') {
+                end++;
+            }
+            if (end == limit && !last) {
+                break;
+            }
+
+            if (parser.parseRecord(position, end)) {
+                records++;
+            }
+            position = Math.min(end + 1, limit);
+        }
+
+        buffer.position(position);
+        return records;
+    }
+
+    /**
+     * State of a single {@link #read(ByteBuffer, boolean, RecordSink)} call.
+     */
+    private class Parser {
+
+        private final ByteBuffer buffer;
+
+        private final ByteBuffer value;
+
+        private final RecordSink sink;
+
+        private final Utf8.Scratch scratch = new Utf8.Scratch();
+
+        private int position;
+
+        private int end;
+
+        Parser(ByteBuffer buffer, RecordSink sink) {
+            this.buffer = buffer;
+            this.value = buffer.asReadOnlyBuffer();
+            this.sink = sink;
+        }
+
+        /**
+         * @return {@code false} if the line is blank
+         */
+        boolean parseRecord(int from, int to) {
+            position = from;
+            end = to;
+
+            skipWhitespace();
+            if (position == end) {
+                return false;
+            }
+
+            expect('{');
+            skipWhitespace();
+            if (peek() == '}') {
+                position++;
+            } else {
+                while (true) {
+                    int field = parseName();
+                    skipWhitespace();
+                    expect(':');
+                    skipWhitespace();
+                    parseValue(field);
+                    skipWhitespace();
+                    if (peek() == ',') {
+                        position++;
+                        skipWhitespace();
+                    } else {
+                        expect('}');
+                        break;
+                    }
+                }
+            }
+
+            skipWhitespace();
+            if (position != end) {
+                throw unexpected();
+            }
+            sink.endRecord();
+            return true;
+        }
+
+        private int parseName() {
+            ByteBuffer name = parseString();
+            for (int i = 0; i < fields.length; i++) {
+                if (Utf8.equals(name, name.position(), name.limit(), fields[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void parseValue(int field) {
+            int start = position;
+            byte b = peek();
+            if (b == '"') {
+                ByteBuffer string = parseString();
+                if (field >= 0) {
+                    sink.onBytes(field, string);
+                }
+            } else if (b == '{' || b == '[') {
+                skipNested();
+                if (field >= 0) {
+                    value.limit(position).position(start);
+                    sink.onBytes(field, value);
+                }
+            } else if (b == 't') {
+                literal(TRUE);
+                if (field >= 0) {
+                    sink.onBoolean(field, true);
+                }
+            } else if (b == 'f') {
+                literal(FALSE);
+                if (field >= 0) {
+                    sink.onBoolean(field, false);
+                }
+            } else if (b == 'n') {
+                literal(NULL);
+                if (field >= 0) {
+                    sink.onNull(field);
+                }
+            } else {
+                parseNumber(field);
+            }
+        }
+
+        private void parseNumber(int field) {
+            int start = position;
+            boolean integral = true;
+            while (position < end) {
+                byte b = buffer.get(position);
+                if (b == '.' || b == 'e' || b == 'E') {
+                    integral = false;
+                } else if ((b < '0' || b > '9') && b != '-' && b != '+') {
+                    break;
+                }
+                position++;
+            }
+            if (position == start) {
+                throw unexpected();
+            }
+
+            if (field < 0) {
+                return;
+            } else if (integral && position - start < 19) {
+                sink.onLong(field, Utf8.parseLong(buffer, start, position));
+            } else if (integral) {
+                // may exceed long
+                long parsed;
+                try {
+                    parsed = Utf8.parseLong(buffer, start, position);
+                } catch (NumberFormatException e) {
+                    sink.onDouble(field, Utf8.parseDouble(buffer, start, position));
+                    return;
+                }
+                sink.onLong(field, parsed);
+            } else {
+                sink.onDouble(field, Utf8.parseDouble(buffer, start, position));
+            }
+        }
+
+        /**
+         * Parses string at the position, unescaped into scratch if needed.
+         *
+         * @return view of the string content
+         */
+        private ByteBuffer parseString() {
+            expect('"');
+            int start = position;
+            boolean escaped = false;
+            while (true) {
+                if (position >= end) {
+                    throw new IllegalArgumentException("Unterminated string at offset " + start);
+                }
+                byte b = buffer.get(position);
+                if (b == '"') {
+                    break;
+                } else if (b == '\\') {
+                    escaped = true;
+                    position++;
+                }
+                position++;
+            }
+
+            int stop = position++;
+            if (!escaped) {
+                value.limit(stop).position(start);
+                return value;
+            }
+            return unescape(start, stop);
+        }
+
+        private ByteBuffer unescape(int from, int to) {
+            scratch.reset();
+            int segment = from;
+            int i = from;
+            while (i < to) {
+                if (buffer.get(i) != '\\') {
+                    i++;
+                    continue;
+                }
+
+                scratch.append(buffer, segment, i);
+                byte escape = buffer.get(i + 1);
+                i += 2;
+                switch (escape) {
+                    case 'b':
+                        scratch.append((byte) '\b');
+                        break;
+                    case 'f':
+                        scratch.append((byte) '\f');
+                        break;
+                    case 'n':
+                        scratch.append((byte) '\n');
+                        break;
+                    case 'r':
+                        scratch.append((byte) '\r');
+                        break;
+                    case 't':
+                        scratch.append((byte) '\t');
+                        break;
+                    case 'u':
+                        int codePoint = hex(i, to);
+                        i += 4;
+                        if (Character.isHighSurrogate((char) codePoint) && i + 6 <= to
+                                && buffer.get(i) == '\\' && buffer.get(i + 1) == 'u') {
+                            int low = hex(i + 2, to);
+                            if (Character.isLowSurrogate((char) low)) {
+                                codePoint = Character.toCodePoint((char) codePoint, (char) low);
+                                i += 6;
+                            }
+                        }
+                        scratch.appendCodePoint(codePoint);
+                        break;
+                    default:
+                        // quote, backslash and slash stand for themselves
+                        scratch.append(escape);
+                }
+                segment = i;
+            }
+            scratch.append(buffer, segment, to);
+            return scratch.view();
+        }
+
+        private int hex(int from, int to) {
+            if (from + 4 > to) {
+                throw new IllegalArgumentException("Invalid unicode escape at offset " + from);
+            }
+            int codePoint = 0;
+            for (int i = from; i < from + 4; i++) {
+                int digit = Character.digit(buffer.get(i), 16);
+                if (digit < 0) {
+                    throw new IllegalArgumentException("Invalid unicode escape at offset " + from);
+                }
+                codePoint = codePoint << 4 | digit;
+            }
+            return codePoint;
+        }
+
+        private void skipNested() {
+            int depth = 0;
+            do {
+                byte b = peek();
+                if (b == '"') {
+                    parseString();
+                    continue;
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    depth--;
+                }
+                position++;
+            } while (depth > 0);
+        }
+
+        private void literal(byte[] literal) {
+            if (!Utf8.equals(buffer, position, Math.min(position + literal.length, end), literal)) {
+                throw unexpected();
+            }
+            position += literal.length;
+        }
+
+        private void skipWhitespace() {
+            while (position < end) {
+                byte b = buffer.get(position);
+                if (b != ' ' && b != '\t' && b != '\r') {
+                    break;
+                }
+                position++;
+            }
+        }
+
+        private byte peek() {
+            if (position >= end) {
+                throw new IllegalArgumentException("Unexpected end of record at offset " + position);
+            }
+            return buffer.get(position);
+        }
+
+        private void expect(char expected) {
+            if (peek() != expected) {
+                throw unexpected();
+            }
+            position++;
+        }
+
+        private IllegalArgumentException unexpected() {
+            return new IllegalArgumentException("Unexpected character '" + (char) buffer.get(position) + "' at offset " + position);
+        }
+
+    }
+
+}
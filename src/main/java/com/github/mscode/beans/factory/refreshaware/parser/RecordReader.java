@@ -0,0 +1,31 @@
+package com.github.mscode.beans.factory.refreshaware.parser;
+
+import org.springframework.lang.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Parser of newline-separated records of UTF-8 bytes which passes
+ * values to {@link RecordSink} without creating intermediate objects.
+ * <p>
+ * Implementations are stateless and can be shared by concurrent refreshes.
+ *
+ * @see CsvRecordReader
+ * @see NdjsonRecordReader
+ */
+public interface RecordReader {
+
+    /**
+     * Parses complete records from the position of the buffer and advances
+     * the position past the last parsed record. Trailing incomplete record
+     * is left in the buffer unless it is the last one.
+     *
+     * @param buffer bytes of records
+     * @param last   whether the buffer ends at the end of input
+     * @param sink   receives values of parsed records
+     * @return number of parsed records
+     * @throws IllegalArgumentException if a record is malformed
+     */
+    long read(@NonNull ByteBuffer buffer, boolean last, @NonNull RecordSink sink);
+
+}
@@ -0,0 +1,45 @@
+package com.github.mscode.beans.factory.refreshaware.parser;
+
+import org.springframework.lang.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Callbacks receiving typed values of parsed records, so records can be
+ * written straight into the final structure without intermediate strings
+ * or maps. Fields are identified by their index given to the reader.
+ * <p>
+ * Values of unhandled types are ignored by default.
+ *
+ * @see RecordReader
+ */
+public interface RecordSink {
+
+    default void onLong(int field, long value) {
+    }
+
+    default void onDouble(int field, double value) {
+    }
+
+    default void onBoolean(int field, boolean value) {
+    }
+
+    /**
+     * UTF-8 bytes of a text value between position and limit of the buffer.
+     * Buffer is reused by the reader, so it must not be retained.
+     *
+     * @param field index of field
+     * @param value read-only bytes of the value
+     */
+    default void onBytes(int field, @NonNull ByteBuffer value) {
+    }
+
+    default void onNull(int field) {
+    }
+
+    /**
+     * Called after all values of the record.
+     */
+    void endRecord();
+
+}
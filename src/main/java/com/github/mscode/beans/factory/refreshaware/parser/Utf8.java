@@ -0,0 +1,196 @@
+package com.github.mscode.beans.factory.refreshaware.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parsing of numbers from UTF-8 bytes and reusable buffer for unescaped values.
+ */
+final class Utf8 {
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private Utf8() {
+    }
+
+    /**
+     * Parses decimal long from bytes between specified offsets.
+     *
+     * @throws NumberFormatException if bytes are not a long
+     */
+    static long parseLong(ByteBuffer buffer, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i++) == '-';
+        }
+        if (i == to) {
+            throw invalid("long", buffer, from, to);
+        }
+
+        // accumulated negatively, so Long.MIN_VALUE fits
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long result = 0;
+        for (; i < to; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9 || result < limit / 10) {
+                throw invalid("long", buffer, from, to);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw invalid("long", buffer, from, to);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Parses decimal double from bytes between specified offsets. Values with
+     * at most 15 significant digits and small exponents are computed exactly
+     * without allocation, others are delegated to {@link Double#parseDouble(String)}.
+     *
+     * @throws NumberFormatException if bytes are not a double
+     */
+    static double parseDouble(ByteBuffer buffer, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i++) == '-';
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean point = false;
+        int start = i;
+        for (; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                if (mantissa != 0 || b != '0') {
+                    digits++;
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (point) {
+                    exponent--;
+                }
+            } else if (b == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+
+        boolean simple = i > start + (point ? 1 : 0);
+        if (simple && i < to && (buffer.get(i) == 'e' || buffer.get(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+                negativeExponent = buffer.get(i++) == '-';
+            }
+            int value = 0;
+            int exponentStart = i;
+            for (; i < to && buffer.get(i) >= '0' && buffer.get(i) <= '9' && value < 1000; i++) {
+                value = value * 10 + (buffer.get(i) - '0');
+            }
+            simple = i > exponentStart;
+            exponent += negativeExponent ? -value : value;
+        }
+
+        if (simple && i == to && digits <= 15 && Math.abs(exponent) < POWERS_OF_TEN.length) {
+            double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        }
+
+        return Double.parseDouble(toString(buffer, from, to));
+    }
+
+    static String toString(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buffer.duplicate().position(from).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static boolean equals(ByteBuffer buffer, int from, int to, byte[] bytes) {
+        if (to - from != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(from + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static NumberFormatException invalid(String type, ByteBuffer buffer, int from, int to) {
+        return new NumberFormatException("Invalid " + type + " \"" + toString(buffer, from, to) + "\" at offset " + from);
+    }
+
+    /**
+     * Growable buffer for values which have to be unescaped.
+     */
+    static final class Scratch {
+
+        private byte[] bytes = new byte[64];
+
+        private ByteBuffer view = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+
+        private int length;
+
+        void reset() {
+            length = 0;
+        }
+
+        void append(byte b) {
+            ensureCapacity(1);
+            bytes[length++] = b;
+        }
+
+        void append(ByteBuffer buffer, int from, int to) {
+            ensureCapacity(to - from);
+            buffer.duplicate().position(from).get(bytes, length, to - from);
+            length += to - from;
+        }
+
+        void appendCodePoint(int codePoint) {
+            if (codePoint < 0x80) {
+                append((byte) codePoint);
+            } else if (codePoint < 0x800) {
+                append((byte) (0xC0 | codePoint >> 6));
+                append((byte) (0x80 | codePoint & 0x3F));
+            } else if (codePoint < 0x10000) {
+                append((byte) (0xE0 | codePoint >> 12));
+                append((byte) (0x80 | codePoint >> 6 & 0x3F));
+                append((byte) (0x80 | codePoint & 0x3F));
+            } else {
+                append((byte) (0xF0 | codePoint >> 18));
+                append((byte) (0x80 | codePoint >> 12 & 0x3F));
+                append((byte) (0x80 | codePoint >> 6 & 0x3F));
+                append((byte) (0x80 | codePoint & 0x3F));
+            }
+        }
+
+        /**
+         * Read-only view of appended bytes, valid until the next modification.
+         */
+        ByteBuffer view() {
+            view.clear().limit(length);
+            return view;
+        }
+
+        private void ensureCapacity(int required) {
+            if (length + required > bytes.length) {
+                byte[] larger = new byte[Math.max(length + required, bytes.length * 2)];
+                System.arraycopy(bytes, 0, larger, 0, length);
+                bytes = larger;
+                view = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,234 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DerivedRefreshAwareFactoryBeanTest {
+
+    @Test
+    void lifeCycle() throws Exception {
+        NumbersRefreshAwareFactoryBean numbers = new NumbersRefreshAwareFactoryBean();
+        SumRefreshAwareFactoryBean sum = new SumRefreshAwareFactoryBean(numbers);
+
+        // initialize
+        numbers.afterPropertiesSet();
+        sum.afterPropertiesSet();
+
+        Number total = sum.getObject();
+        assertEquals(3, total.intValue());
+
+        // recomputed once upstream is published
+        numbers.refresh();
+        assertEquals(6, total.intValue());
+        assertEquals(2, sum.computations);
+
+        // scheduled refresh does not recompute
+        sum.refresh();
+        assertEquals(2, sum.computations);
+
+        // destroy
+        sum.destroy();
+        numbers.destroy();
+    }
+
+    @Test
+    void lifeCycle_diamond() throws Exception {
+        NumbersRefreshAwareFactoryBean numbers = new NumbersRefreshAwareFactoryBean();
+        SumRefreshAwareFactoryBean sum = new SumRefreshAwareFactoryBean(numbers);
+        SizeRefreshAwareFactoryBean size = new SizeRefreshAwareFactoryBean(numbers);
+        AverageRefreshAwareFactoryBean average = new AverageRefreshAwareFactoryBean(sum, size);
+
+        // initialize
+        numbers.afterPropertiesSet();
+        sum.afterPropertiesSet();
+        size.afterPropertiesSet();
+        average.afterPropertiesSet();
+
+        assertEquals("3/2", average.getObject().toString());
+
+        // average is recomputed exactly once, after both branches
+        numbers.refresh();
+        assertEquals("6/3", average.getObject().toString());
+        assertEquals(2, average.computations);
+
+        try (Snapshot<Number> snapshot = sum.acquire()) {
+            assertEquals(2, snapshot.getGeneration());
+        }
+
+        // destroy
+        average.destroy();
+        size.destroy();
+        sum.destroy();
+        numbers.destroy();
+    }
+
+    @Test
+    void lifeCycle_upstreamPinned() throws Exception {
+        NumbersRefreshAwareFactoryBean numbers = new NumbersRefreshAwareFactoryBean();
+        SumRefreshAwareFactoryBean sum = new SumRefreshAwareFactoryBean(numbers);
+        sum.addValidator((current, candidate) -> {
+            throw new IllegalStateException("rejected");
+        });
+
+        // initialize
+        numbers.afterPropertiesSet();
+        sum.afterPropertiesSet();
+
+        // rejected recomputation keeps upstream instance used by current one
+        numbers.refresh();
+        assertEquals(3, sum.getObject().intValue());
+        assertTrue(numbers.alive.contains(List.of(1, 2)));
+
+        // destroy releases pinned upstream
+        sum.destroy();
+        numbers.destroy();
+        assertTrue(numbers.alive.isEmpty());
+    }
+
+    @Test
+    void lifeCycle_executor() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        NumbersRefreshAwareFactoryBean numbers = new NumbersRefreshAwareFactoryBean();
+        SumRefreshAwareFactoryBean sum = new SumRefreshAwareFactoryBean(numbers);
+        SizeRefreshAwareFactoryBean size = new SizeRefreshAwareFactoryBean(numbers);
+        sum.setExecutor(executor);
+        size.setExecutor(executor);
+
+        // initialize
+        numbers.afterPropertiesSet();
+        sum.afterPropertiesSet();
+        size.afterPropertiesSet();
+
+        for (int i = 0; i < 10; i++) {
+            numbers.refresh();
+        }
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        // coalesced, but the latest upstream is always applied
+        assertEquals(78, sum.getObject().intValue());
+        assertEquals(12, size.getObject().intValue());
+        assertFalse(sum.computations > 11);
+    }
+
+    @Test
+    void lifeCycle_admission() throws Exception {
+        // nothing fits, yet derived refresh does not wait for its upstream
+        RefreshAdmissionController controller = new RefreshAdmissionController(Double.MIN_VALUE);
+
+        NumbersRefreshAwareFactoryBean numbers = new NumbersRefreshAwareFactoryBean();
+        SumRefreshAwareFactoryBean sum = new SumRefreshAwareFactoryBean(numbers);
+        numbers.setAdmissionController(controller);
+        sum.setAdmissionController(controller);
+
+        // initialize
+        numbers.afterPropertiesSet();
+        sum.afterPropertiesSet();
+
+        numbers.refresh();
+        assertEquals(2, numbers.getGeneration());
+        assertEquals(2, sum.getGeneration());
+        assertEquals(6, sum.getObject().intValue());
+        assertEquals(0, controller.getReserved());
+
+        // destroy
+        sum.destroy();
+        numbers.destroy();
+    }
+
+    static class NumbersRefreshAwareFactoryBean
+            extends ProxyBasedRefreshAwareFactoryBean<List<Integer>> {
+
+        private final List<List<Integer>> alive = new CopyOnWriteArrayList<>();
+
+        private int counter = 2;
+
+        @Override
+        protected List<Integer> createInstance() throws Exception {
+            List<Integer> instance = IntStream.rangeClosed(1, counter++).boxed().collect(Collectors.toList());
+            alive.add(instance);
+            return instance;
+        }
+
+        @Override
+        protected boolean shouldRefresh() throws Exception {
+            return true;
+        }
+
+        @Override
+        protected void destroyInstance(List<Integer> instance) throws Exception {
+            alive.remove(instance);
+        }
+    }
+
+    static class SumRefreshAwareFactoryBean
+            extends DerivedRefreshAwareFactoryBean<Number> {
+
+        private final RefreshableRef<List<Integer>> numbers;
+
+        private volatile int computations;
+
+        SumRefreshAwareFactoryBean(RefreshableRef<List<Integer>> numbers) {
+            super(numbers);
+            this.numbers = numbers;
+        }
+
+        @Override
+        protected Number createInstance(Inputs inputs) throws Exception {
+            computations++;
+            return inputs.get(numbers).stream().mapToInt(Integer::intValue).sum();
+        }
+    }
+
+    static class SizeRefreshAwareFactoryBean
+            extends DerivedRefreshAwareFactoryBean<Number> {
+
+        private final RefreshableRef<List<Integer>> numbers;
+
+        SizeRefreshAwareFactoryBean(RefreshableRef<List<Integer>> numbers) {
+            super(numbers);
+            this.numbers = numbers;
+        }
+
+        @Override
+        protected Number createInstance(Inputs inputs) throws Exception {
+            return inputs.get(numbers).size();
+        }
+    }
+
+    static class AverageRefreshAwareFactoryBean
+            extends DerivedRefreshAwareFactoryBean<CharSequence> {
+
+        private final RefreshableRef<Number> sum;
+
+        private final RefreshableRef<Number> size;
+
+        private int computations;
+
+        AverageRefreshAwareFactoryBean(RefreshableRef<Number> sum, RefreshableRef<Number> size) {
+            super(sum, size);
+            this.sum = sum;
+            this.size = size;
+        }
+
+        @Override
+        protected CharSequence createInstance(Inputs inputs) throws Exception {
+            computations++;
+            return inputs.get(sum) + "/" + inputs.get(size);
+        }
+    }
+
+}
@@ -1,22 +1,34 @@
 package com.github.mscode.beans.factory.refreshaware;
 
 import com.github.mscode.beans.factory.refreshaware.data.Model;
+import com.github.mscode.beans.factory.refreshaware.parser.CsvRecordReader;
+import com.github.mscode.beans.factory.refreshaware.parser.CsvRecordReader.FieldType;
+import com.github.mscode.beans.factory.refreshaware.parser.RecordSink;
 import com.github.mscode.beans.factory.refreshaware.tools.clock.MutableClock;
 import com.github.mscode.beans.factory.refreshaware.tools.filesystem.EnableInMemoryFileSystem;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.FileTime;
 import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -34,6 +46,9 @@ class FileProxyRefreshAwareFactoryBeanTest {
 
     private Path filepath;
 
+    @TempDir
+    Path directory;
+
     @BeforeEach
     void setUp() {
         clock = new MutableClock(1600000000);
@@ -89,6 +104,59 @@ class FileProxyRefreshAwareFactoryBeanTest {
         assertTrue(factoryBean.shouldRefresh());
     }
 
+    @Test
+    void shouldRefresh_stableSample() throws Exception {
+        Files.writeString(filepath, "created");
+        Files.setLastModifiedTime(filepath, FileTime.from(clock.instant()));
+
+        FileProxyRefreshAwareFactoryBean<Model> factoryBean =
+                new TestFileProxyRefreshAwareFactoryBean(filepath);
+        factoryBean.setMinimalFileAge(Duration.ofMinutes(1));
+        factoryBean.setClock(clock);
+
+        factoryBean.afterPropertiesSet();
+
+        clock.tickSeconds(1);
+        Files.writeString(filepath, "upd");
+        Files.setLastModifiedTime(filepath, FileTime.from(clock.instant()));
+
+        // file may still be written
+        assertFalse(factoryBean.shouldRefresh());
+
+        Files.writeString(filepath, "updated", StandardOpenOption.APPEND);
+
+        // file still grows
+        assertFalse(factoryBean.shouldRefresh());
+
+        // same size and modification time as the previous sample
+        assertTrue(factoryBean.shouldRefresh());
+        assertFalse(factoryBean.shouldRefresh());
+    }
+
+    @Test
+    void shouldRefresh_atomicReplace() throws Exception {
+        Path file = directory.resolve("model.txt");
+        Files.writeString(file, "created");
+        Files.setLastModifiedTime(file, FileTime.from(clock.instant()));
+
+        FileProxyRefreshAwareFactoryBean<Model> factoryBean =
+                new TestFileProxyRefreshAwareFactoryBean(file);
+        factoryBean.setMinimalFileAge(Duration.ofMinutes(1));
+        factoryBean.setAtomicReplace(true);
+        factoryBean.setClock(clock);
+
+        factoryBean.afterPropertiesSet();
+
+        // replaced by file of the same size and modification time
+        Path replacement = directory.resolve("model.txt.tmp");
+        Files.writeString(replacement, "updated");
+        Files.setLastModifiedTime(replacement, FileTime.from(clock.instant()));
+        Files.move(replacement, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        assertTrue(factoryBean.shouldRefresh());
+        assertFalse(factoryBean.shouldRefresh());
+    }
+
     @Test
     void lifeCycle() throws Exception {
         Files.writeString(filepath, "created");
@@ -134,6 +202,41 @@ class FileProxyRefreshAwareFactoryBeanTest {
         factoryBean.destroy();
     }
 
+    @Test
+    void readRecords() throws Exception {
+        // larger than the stream buffer, so records span reads
+        String content = IntStream.range(0, 20000).mapToObj(i -> i + ",name-" + i).collect(Collectors.joining("\n"));
+        Path gzip = fileSystem.getPath("records.csv.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip))) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        Path mapped = directory.resolve("records.csv");
+        Files.writeString(mapped, content);
+        Files.writeString(filepath, content);
+
+        // streamed, decompressed and memory mapped
+        for (Path path : List.of(filepath, gzip, mapped)) {
+            FileProxyRefreshAwareFactoryBean<Model> factoryBean = new TestFileProxyRefreshAwareFactoryBean(path);
+
+            long[] sum = new long[1];
+            long records = factoryBean.readRecords(path, new CsvRecordReader(FieldType.LONG, FieldType.BYTES), new RecordSink() {
+                @Override
+                public void onLong(int field, long value) {
+                    sum[0] += value;
+                }
+
+                @Override
+                public void endRecord() {
+                }
+            });
+
+            assertEquals(20000, records);
+            assertEquals(19999L * 20000 / 2, sum[0]);
+        }
+
+        Files.delete(gzip);
+    }
+
     @AfterEach
     void tearDown() throws IOException {
         if (Files.exists(filepath)) {
@@ -0,0 +1,215 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GenerationCacheTest {
+
+    @Test
+    void get() throws Exception {
+        NumbersRefreshAwareFactoryBean numbers = new NumbersRefreshAwareFactoryBean();
+        numbers.afterPropertiesSet();
+
+        AtomicInteger loads = new AtomicInteger();
+        GenerationCache<List<Integer>, Integer, Integer> cache = new GenerationCache<>(numbers, (list, factor) -> {
+            loads.incrementAndGet();
+            return list.stream().mapToInt(Integer::intValue).sum() * factor;
+        }, 2);
+
+        // computed once per generation
+        assertEquals(3, cache.get(1));
+        assertEquals(3, cache.get(1));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits());
+
+        // invalidated on refresh
+        numbers.refresh();
+        assertEquals(6, cache.get(1));
+        assertEquals(2, loads.get());
+
+        // least recently used entry is evicted
+        cache.get(2);
+        cache.get(1);
+        cache.get(3);
+        assertEquals(2, cache.size());
+        cache.get(1);
+        assertEquals(4, loads.get());
+        cache.get(2);
+        assertEquals(5, loads.get());
+
+        numbers.destroy();
+    }
+
+    @Test
+    void get_singleFlight() throws Exception {
+        NumbersRefreshAwareFactoryBean numbers = new NumbersRefreshAwareFactoryBean();
+        numbers.afterPropertiesSet();
+
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        GenerationCache<List<Integer>, String, Integer> cache = new GenerationCache<>(numbers, (list, key) -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return list.size();
+        }, 10);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<Integer> first = executor.submit(() -> cache.get("size"));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Future<Integer> second = executor.submit(() -> cache.get("size"));
+
+        release.countDown();
+        assertEquals(2, first.get(5, TimeUnit.SECONDS));
+        assertEquals(2, second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+
+        executor.shutdown();
+        numbers.destroy();
+    }
+
+    @Test
+    void get_failure() throws Exception {
+        NumbersRefreshAwareFactoryBean numbers = new NumbersRefreshAwareFactoryBean();
+        numbers.afterPropertiesSet();
+
+        AtomicInteger loads = new AtomicInteger();
+        GenerationCache<List<Integer>, Integer, Integer> cache = new GenerationCache<>(numbers, (list, index) -> {
+            loads.incrementAndGet();
+            return list.get(index);
+        }, 10);
+
+        // failures are not cached
+        assertThrows(IndexOutOfBoundsException.class, () -> cache.get(5));
+        assertThrows(IndexOutOfBoundsException.class, () -> cache.get(5));
+        assertEquals(2, loads.get());
+
+        numbers.destroy();
+    }
+
+    @Test
+    void precompute() throws Exception {
+        NumbersRefreshAwareFactoryBean numbers = new NumbersRefreshAwareFactoryBean();
+        numbers.afterPropertiesSet();
+
+        AtomicInteger loads = new AtomicInteger();
+        GenerationCache<List<Integer>, Integer, Integer> cache = new GenerationCache<>(numbers, (list, index) -> {
+            loads.incrementAndGet();
+            return list.get(index);
+        }, 10);
+        cache.setHotKeys(() -> List.of(0));
+        cache.setRecentKeys(1);
+        cache.setExecutor(Runnable::run);
+
+        cache.get(1);
+        assertEquals(1, loads.get());
+
+        // hot and recently used keys are computed on publish
+        numbers.refresh();
+        assertEquals(3, loads.get());
+        assertEquals(1, cache.get(0));
+        assertEquals(2, cache.get(1));
+        assertEquals(3, loads.get());
+
+        numbers.destroy();
+    }
+
+    @Test
+    void precompute_async() throws Exception {
+        NumbersRefreshAwareFactoryBean numbers = new NumbersRefreshAwareFactoryBean();
+        numbers.afterPropertiesSet();
+
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        GenerationCache<List<Integer>, Integer, Integer> cache = new GenerationCache<>(numbers, (list, index) -> {
+            loads.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return list.get(index);
+        }, 10);
+        cache.setHotKeys(() -> List.of(0));
+
+        // refresh does not wait for precomputed values
+        numbers.refresh();
+        assertEquals(2, numbers.getGeneration());
+
+        // reader waits for the value being precomputed
+        release.countDown();
+        assertEquals(1, cache.get(0));
+        assertEquals(1, loads.get());
+
+        // values are no longer precomputed once own pool is shut down
+        cache.destroy();
+        numbers.refresh();
+        assertEquals(1, loads.get());
+
+        numbers.destroy();
+    }
+
+    @Test
+    void get_segmented() throws Exception {
+        NumbersRefreshAwareFactoryBean numbers = new NumbersRefreshAwareFactoryBean();
+        numbers.afterPropertiesSet();
+
+        GenerationCache<List<Integer>, Integer, Integer> cache = new GenerationCache<>(numbers, (list, key) -> key, 1000);
+        cache.setRecentKeys(100);
+        cache.setExecutor(Runnable::run);
+
+        // every segment is bounded by its share of maximal size
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i, cache.get(i));
+        }
+        assertEquals(1000, cache.size());
+
+        // the most recently used keys are taken evenly from all segments,
+        // so they are close to the most recently used keys overall
+        numbers.refresh();
+        assertEquals(100, cache.size());
+        assertEquals(5100, cache.getMisses());
+        for (int i = 4900; i < 5000; i++) {
+            cache.get(i);
+        }
+        assertTrue(cache.getMisses() - 5100 < 20);
+
+        numbers.destroy();
+    }
+
+    static class NumbersRefreshAwareFactoryBean
+            extends ProxyBasedRefreshAwareFactoryBean<List<Integer>> {
+
+        private int counter = 2;
+
+        @Override
+        protected List<Integer> createInstance() throws Exception {
+            return IntStream.rangeClosed(1, counter++).boxed().collect(Collectors.toList());
+        }
+
+        @Override
+        protected boolean shouldRefresh() throws Exception {
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,253 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import com.github.mscode.beans.factory.refreshaware.data.Model;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpProxyRefreshAwareFactoryBeanTest {
+
+    private HttpServer server;
+
+    private URI uri;
+
+    private volatile String content;
+
+    private volatile int version;
+
+    private volatile String encoding;
+
+    private volatile boolean headAllowed;
+
+    private final AtomicInteger downloads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        content = "created";
+        version = 1;
+        encoding = "gzip";
+        headAllowed = true;
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/model", this::handle);
+        server.createContext("/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+
+        uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/model");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void getObjectType() {
+        HttpProxyRefreshAwareFactoryBean<Model> factoryBean =
+                new TestHttpProxyRefreshAwareFactoryBean(uri);
+
+        assertEquals(Model.class, factoryBean.getObjectType());
+    }
+
+    @Test
+    void shouldRefresh() throws Exception {
+        HttpProxyRefreshAwareFactoryBean<Model> factoryBean =
+                new TestHttpProxyRefreshAwareFactoryBean(uri);
+
+        factoryBean.afterPropertiesSet();
+        assertEquals(1, downloads.get());
+
+        // resource is same as previous
+        assertFalse(factoryBean.shouldRefresh());
+        assertEquals(1, downloads.get());
+
+        content = "updated";
+        version++;
+
+        // modification is detected without downloading body
+        assertTrue(factoryBean.shouldRefresh());
+        assertEquals(1, downloads.get());
+    }
+
+    @Test
+    void shouldRefresh_headNotAllowed() throws Exception {
+        headAllowed = false;
+        encoding = "x-gzip";
+
+        HttpProxyRefreshAwareFactoryBean<Model> factoryBean =
+                new TestHttpProxyRefreshAwareFactoryBean(uri);
+
+        factoryBean.afterPropertiesSet();
+        Model model = factoryBean.getObject();
+        assertEquals("created", model.getName());
+
+        // refresh is attempted and conditional GET detects unchanged resource
+        assertTrue(factoryBean.shouldRefresh());
+        factoryBean.refresh();
+        assertEquals("created", model.getName());
+        assertEquals(1, downloads.get());
+
+        content = "updated";
+        version++;
+
+        factoryBean.refresh();
+        assertEquals("updated", model.getName());
+        assertEquals(2, downloads.get());
+
+        // destroy
+        factoryBean.destroy();
+    }
+
+    @Test
+    void shouldRefresh_missingResource() {
+        HttpProxyRefreshAwareFactoryBean<Model> factoryBean =
+                new TestHttpProxyRefreshAwareFactoryBean(uri.resolve("/missing"));
+
+        assertThrows(IllegalStateException.class, factoryBean::afterPropertiesSet);
+    }
+
+    @Test
+    void lifeCycle() throws Exception {
+        Semaphore limiter = new Semaphore(1);
+
+        HttpProxyRefreshAwareFactoryBean<Model> factoryBean =
+                new TestHttpProxyRefreshAwareFactoryBean(uri);
+        factoryBean.setConcurrencyLimiter(limiter);
+
+        // initialize
+        factoryBean.afterPropertiesSet();
+
+        Model model = factoryBean.getObject();
+        assertEquals("created", model.getName());
+
+        // resource is same as previous
+        factoryBean.refresh();
+        assertEquals("created", model.getName());
+        assertEquals(1, downloads.get());
+
+        content = "updated";
+        version++;
+
+        // resource updated, gzip encoded body is downloaded
+        // once and streamed to createInstance
+        factoryBean.refresh();
+        assertEquals("updated", model.getName());
+        assertEquals(2, downloads.get());
+        assertFalse(factoryBean.shouldRefresh());
+
+        // all permits are released
+        assertEquals(1, limiter.availablePermits());
+
+        // destroy
+        factoryBean.destroy();
+    }
+
+    @Test
+    void lifeCycle_validatorsCommittedOnPublish() throws Exception {
+        Semaphore limiter = new Semaphore(1);
+
+        HttpProxyRefreshAwareFactoryBean<Model> factoryBean =
+                new TestHttpProxyRefreshAwareFactoryBean(uri);
+        factoryBean.setConcurrencyLimiter(limiter);
+
+        // initialize
+        factoryBean.afterPropertiesSet();
+        Model model = factoryBean.getObject();
+
+        content = "broken";
+        version++;
+
+        // build fails, validators of broken content are not committed
+        factoryBean.refresh();
+        assertEquals("created", model.getName());
+        assertTrue(factoryBean.shouldRefresh());
+        assertEquals(1, limiter.availablePermits());
+
+        content = "fixed";
+        factoryBean.refresh();
+        assertEquals("fixed", model.getName());
+        assertFalse(factoryBean.shouldRefresh());
+        assertEquals(1, limiter.availablePermits());
+
+        // destroy
+        factoryBean.destroy();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String etag = "\"v" + version + "\"";
+        boolean head = "HEAD".equals(exchange.getRequestMethod());
+
+        if (head && !headAllowed) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        if (head) {
+            exchange.getResponseHeaders().add("ETag", etag);
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        downloads.incrementAndGet();
+        exchange.getResponseHeaders().add("ETag", etag);
+        exchange.getResponseHeaders().add("Content-Encoding", encoding);
+        exchange.sendResponseHeaders(200, bytes.size());
+        try (OutputStream body = exchange.getResponseBody()) {
+            bytes.writeTo(body);
+        }
+    }
+
+    static class TestHttpProxyRefreshAwareFactoryBean
+            extends HttpProxyRefreshAwareFactoryBean<Model> {
+
+        private static int counter = 1;
+
+        public TestHttpProxyRefreshAwareFactoryBean(URI uri) {
+            super(uri);
+        }
+
+        @Override
+        protected Model createInstance(InputStream body) throws Exception {
+            String content = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+            if (content.equals("broken")) {
+                throw new IOException("Simulate corrupted content...");
+            }
+            return new Model(content, counter++);
+        }
+    }
+
+}
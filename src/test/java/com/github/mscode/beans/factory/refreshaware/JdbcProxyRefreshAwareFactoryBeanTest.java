@@ -0,0 +1,171 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JdbcProxyRefreshAwareFactoryBeanTest {
+
+    private static final String SELECT = "SELECT name, amount FROM model";
+
+    private static final String VERSION = "SELECT MAX(version) FROM model";
+
+    private static final String INCREMENTAL = "SELECT name, amount FROM model WHERE version > ?";
+
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:models;DB_CLOSE_DELAY=-1");
+        this.dataSource = dataSource;
+
+        execute("CREATE TABLE model (name VARCHAR(64) PRIMARY KEY, amount INT, version BIGINT)");
+        execute("INSERT INTO model VALUES ('first', 1, 1), ('second', 2, 1)");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        execute("DROP TABLE model");
+    }
+
+    @Test
+    void getObjectType() {
+        JdbcProxyRefreshAwareFactoryBean<Map<String, Integer>> factoryBean =
+                new TestJdbcProxyRefreshAwareFactoryBean(dataSource);
+
+        assertEquals(Map.class, factoryBean.getObjectType());
+    }
+
+    @Test
+    void shouldRefresh() throws Exception {
+        JdbcProxyRefreshAwareFactoryBean<Map<String, Integer>> factoryBean =
+                new TestJdbcProxyRefreshAwareFactoryBean(dataSource);
+
+        factoryBean.afterPropertiesSet();
+
+        // data is same as previous
+        assertFalse(factoryBean.shouldRefresh());
+
+        execute("UPDATE model SET amount = 3, version = 2 WHERE name = 'second'");
+
+        assertTrue(factoryBean.shouldRefresh());
+        assertFalse(factoryBean.shouldRefresh());
+    }
+
+    @Test
+    void lifeCycle() throws Exception {
+        JdbcProxyRefreshAwareFactoryBean<Map<String, Integer>> factoryBean =
+                new TestJdbcProxyRefreshAwareFactoryBean(dataSource);
+        factoryBean.setFetchSize(1);
+
+        // initialize
+        factoryBean.afterPropertiesSet();
+
+        Map<String, Integer> model = factoryBean.getObject();
+        assertEquals(Map.of("first", 1, "second", 2), new HashMap<>(model));
+
+        execute("INSERT INTO model VALUES ('third', 3, 2)");
+
+        factoryBean.refresh();
+        assertEquals(Map.of("first", 1, "second", 2, "third", 3), new HashMap<>(model));
+
+        // destroy
+        factoryBean.destroy();
+    }
+
+    @Test
+    void lifeCycle_incremental() throws Exception {
+        TestJdbcProxyRefreshAwareFactoryBean factoryBean =
+                new TestJdbcProxyRefreshAwareFactoryBean(dataSource);
+        factoryBean.setIncrementalQuery(INCREMENTAL);
+
+        // initialize
+        factoryBean.afterPropertiesSet();
+
+        Map<String, Integer> model = factoryBean.getObject();
+        assertEquals(Map.of("first", 1, "second", 2), new HashMap<>(model));
+
+        execute("UPDATE model SET amount = 4, version = 2 WHERE name = 'second'");
+
+        factoryBean.refresh();
+        assertEquals(Map.of("first", 1, "second", 4), new HashMap<>(model));
+        assertEquals(1, factoryBean.changedRows);
+
+        execute("INSERT INTO model VALUES ('third', 3, 3)");
+
+        factoryBean.refresh();
+        assertEquals(Map.of("first", 1, "second", 4, "third", 3), new HashMap<>(model));
+        assertEquals(1, factoryBean.changedRows);
+
+        // destroy
+        factoryBean.destroy();
+    }
+
+    @Test
+    void afterPropertiesSet_incrementalWithoutOverride() {
+        JdbcProxyRefreshAwareFactoryBean<Map<String, Integer>> factoryBean =
+                new JdbcProxyRefreshAwareFactoryBean<>(dataSource, SELECT, VERSION) {
+                    @Override
+                    protected Map<String, Integer> createInstance(ResultSet rows) {
+                        return Map.of();
+                    }
+                };
+        factoryBean.setIncrementalQuery(INCREMENTAL);
+
+        // fails before anything is loaded
+        assertThrows(IllegalStateException.class, factoryBean::afterPropertiesSet);
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    static class TestJdbcProxyRefreshAwareFactoryBean
+            extends JdbcProxyRefreshAwareFactoryBean<Map<String, Integer>> {
+
+        private int changedRows;
+
+        public TestJdbcProxyRefreshAwareFactoryBean(DataSource dataSource) {
+            super(dataSource, SELECT, VERSION);
+        }
+
+        @Override
+        protected Map<String, Integer> createInstance(ResultSet rows) throws Exception {
+            Map<String, Integer> instance = new HashMap<>();
+            while (rows.next()) {
+                instance.put(rows.getString(1), rows.getInt(2));
+            }
+            return instance;
+        }
+
+        @Override
+        protected Map<String, Integer> refreshInstance(Map<String, Integer> current, ResultSet changedRows) throws Exception {
+            Map<String, Integer> instance = new HashMap<>(current);
+            this.changedRows = 0;
+            while (changedRows.next()) {
+                instance.put(changedRows.getString(1), changedRows.getInt(2));
+                this.changedRows++;
+            }
+            return instance;
+        }
+    }
+
+}
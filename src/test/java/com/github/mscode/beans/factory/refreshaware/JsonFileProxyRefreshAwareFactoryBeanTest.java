@@ -1,5 +1,9 @@
 package com.github.mscode.beans.factory.refreshaware;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.github.mscode.beans.factory.refreshaware.collection.CompactHashMap;
+import com.github.mscode.beans.factory.refreshaware.collection.CompactList;
+import com.github.mscode.beans.factory.refreshaware.collection.ValuePool;
 import com.github.mscode.beans.factory.refreshaware.data.DataModel;
 import com.github.mscode.beans.factory.refreshaware.tools.filesystem.EnableInMemoryFileSystem;
 import org.junit.jupiter.api.Test;
@@ -7,11 +11,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.mock;
 
 @EnableInMemoryFileSystem
@@ -46,4 +55,61 @@ class JsonFileProxyRefreshAwareFactoryBeanTest {
         Files.delete(filepath);
     }
 
+    @Test
+    void createInstance_gzip() throws Exception {
+        Path filepath = fileSystem.getPath("data-model.json.gz");
+
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(filepath))) {
+            //language=json
+            out.write("{\"name\": \"model\", \"version\": 1}".getBytes(StandardCharsets.UTF_8));
+        }
+
+        RefreshAwareFactoryBean<DataModel> factoryBean =
+                new JsonFileProxyRefreshAwareFactoryBean<>(filepath, DataModel.class);
+
+        DataModel model = factoryBean.createInstance();
+        assertEquals("model", model.getName());
+        assertEquals(1, model.getVersion());
+
+        Files.delete(filepath);
+    }
+
+    @Test
+    void createInstance_compact() throws Exception {
+        Path filepath = fileSystem.getPath("data-model.json");
+
+        //language=json
+        Files.writeString(filepath, "{\"a\": [1, 2], \"b\": []}");
+
+        RefreshAwareFactoryBean<CompactHashMap<String, CompactList<Integer>>> factoryBean =
+                new JsonFileProxyRefreshAwareFactoryBean<>(filepath,
+                        new TypeReference<CompactHashMap<String, CompactList<Integer>>>() {
+                        }.getType());
+
+        CompactHashMap<String, CompactList<Integer>> map = factoryBean.createInstance();
+        assertEquals(List.of(1, 2), map.get("a"));
+        assertEquals(List.of(), map.get("b"));
+
+        Files.delete(filepath);
+    }
+
+    @Test
+    void createInstance_valuePool() throws Exception {
+        Path filepath = fileSystem.getPath("data-model.json");
+
+        //language=json
+        Files.writeString(filepath, "{\"name\": \"model\", \"version\": 1}");
+
+        JsonFileProxyRefreshAwareFactoryBean<DataModel> factoryBean =
+                new JsonFileProxyRefreshAwareFactoryBean<>(filepath, DataModel.class);
+        factoryBean.setValuePool(new ValuePool());
+
+        // consecutive generations share values
+        DataModel first = factoryBean.createInstance();
+        DataModel second = factoryBean.createInstance();
+        assertSame(first.getName(), second.getName());
+
+        Files.delete(filepath);
+    }
+
 }
@@ -0,0 +1,147 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LineFileProxyRefreshAwareFactoryBeanTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void getObjectType() {
+        RefreshAwareFactoryBean<List<Integer>> factoryBean = new TestLineFileProxyRefreshAwareFactoryBean(directory.resolve("numbers.csv"));
+
+        assertEquals(List.class, factoryBean.getObjectType());
+    }
+
+    @Test
+    void createInstance() throws Exception {
+        Path filepath = directory.resolve("numbers.csv");
+        Files.writeString(filepath, "number\n" + numbers(1, 1000) + "\r\n\n");
+
+        TestLineFileProxyRefreshAwareFactoryBean factoryBean = new TestLineFileProxyRefreshAwareFactoryBean(filepath);
+        factoryBean.setSkipLines(1);
+        // many small chunks parsed in parallel
+        factoryBean.setChunkSize(64);
+        factoryBean.setForkJoinPool(new ForkJoinPool(4));
+
+        List<Integer> numbers = factoryBean.createInstance();
+        assertEquals(IntStream.rangeClosed(1, 1000).boxed().collect(Collectors.toList()), numbers);
+    }
+
+    @Test
+    void destroy() throws Exception {
+        Path filepath = directory.resolve("numbers.csv");
+        Files.writeString(filepath, numbers(1, 1000));
+
+        TestLineFileProxyRefreshAwareFactoryBean factoryBean = new TestLineFileProxyRefreshAwareFactoryBean(filepath);
+        factoryBean.setChunkSize(64);
+        factoryBean.afterPropertiesSet();
+        assertEquals(1000, factoryBean.getObject().size());
+
+        // own pool is shut down with the bean
+        factoryBean.destroy();
+        assertThrows(IllegalStateException.class, factoryBean::createInstance);
+    }
+
+    @Test
+    void createInstance_empty() throws Exception {
+        Path filepath = directory.resolve("numbers.csv");
+        Files.writeString(filepath, "");
+
+        RefreshAwareFactoryBean<List<Integer>> factoryBean = new TestLineFileProxyRefreshAwareFactoryBean(filepath);
+
+        assertEquals(List.of(), factoryBean.createInstance());
+    }
+
+    @Test
+    void createInstance_gzip() throws Exception {
+        Path filepath = directory.resolve("numbers.csv.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(filepath))) {
+            out.write(("number\n" + numbers(1, 100)).getBytes(StandardCharsets.UTF_8));
+        }
+
+        TestLineFileProxyRefreshAwareFactoryBean factoryBean = new TestLineFileProxyRefreshAwareFactoryBean(filepath);
+        factoryBean.setSkipLines(1);
+
+        List<Integer> numbers = factoryBean.createInstance();
+        assertEquals(IntStream.rangeClosed(1, 100).boxed().collect(Collectors.toList()), numbers);
+    }
+
+    @Test
+    void createInstance_lineTerminators() throws Exception {
+        String content = "number\r" + numbers(1, 1000).replace("00\n", "00\r").replace("5\n", "5\r\n") + "\r\r\n";
+        List<Integer> expected = IntStream.rangeClosed(1, 1000).boxed().collect(Collectors.toList());
+
+        Path filepath = directory.resolve("numbers.csv");
+        Files.writeString(filepath, content);
+        TestLineFileProxyRefreshAwareFactoryBean mapped = new TestLineFileProxyRefreshAwareFactoryBean(filepath);
+        mapped.setSkipLines(1);
+        mapped.setChunkSize(7);
+
+        Path compressed = directory.resolve("numbers.csv.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed))) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        TestLineFileProxyRefreshAwareFactoryBean sequential = new TestLineFileProxyRefreshAwareFactoryBean(compressed);
+        sequential.setSkipLines(1);
+
+        // both paths split lines like BufferedReader#readLine()
+        assertEquals(expected, mapped.createInstance());
+        assertEquals(expected, sequential.createInstance());
+    }
+
+    @Test
+    void createInstance_invalid() throws Exception {
+        Path filepath = directory.resolve("numbers.csv");
+        Files.writeString(filepath, numbers(1, 500) + "\ninvalid\n" + numbers(501, 1000));
+
+        TestLineFileProxyRefreshAwareFactoryBean factoryBean = new TestLineFileProxyRefreshAwareFactoryBean(filepath);
+        factoryBean.setChunkSize(64);
+
+        assertThrows(NumberFormatException.class, factoryBean::createInstance);
+    }
+
+    private static String numbers(int from, int to) {
+        return IntStream.rangeClosed(from, to).mapToObj(Integer::toString).collect(Collectors.joining("\n"));
+    }
+
+    private static class TestLineFileProxyRefreshAwareFactoryBean extends LineFileProxyRefreshAwareFactoryBean<Integer, List<Integer>> {
+
+        TestLineFileProxyRefreshAwareFactoryBean(Path filepath) {
+            super(filepath);
+        }
+
+        @Override
+        protected Integer parseLine(String line) {
+            return Integer.parseInt(line);
+        }
+
+        @Override
+        protected Collector<Integer, ?, List<Integer>> collector() {
+            return Collectors.toList();
+        }
+
+        @Override
+        protected boolean shouldRefresh() {
+            return false;
+        }
+
+    }
+
+}
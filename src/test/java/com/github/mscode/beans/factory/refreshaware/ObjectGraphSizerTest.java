@@ -0,0 +1,69 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import com.github.mscode.beans.factory.refreshaware.collection.CompactHashMap;
+import com.github.mscode.beans.factory.refreshaware.collection.PersistentHashMap;
+import com.github.mscode.beans.factory.refreshaware.data.Model;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ObjectGraphSizerTest {
+
+    @Test
+    void sizeOf() {
+        ObjectGraphSizer sizer = new ObjectGraphSizer();
+
+        assertEquals(24, sizer.sizeOf(new long[1]));
+        assertEquals(16, sizer.sizeOf(new Object()));
+        assertTrue(sizer.sizeOf(new Model("name", 1)) > sizer.sizeOf(new Model(null, 1)));
+
+        // shared objects are counted once
+        Model model = new Model("model", 1);
+        assertTrue(sizer.sizeOf(List.of(model, model)) < sizer.sizeOf(List.of(model, new Model("model", 1))));
+    }
+
+    @Test
+    void sizeOf_sampled() {
+        Map<Integer, String> map = new HashMap<>();
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            map.put(i, "value-" + i);
+            list.add("value-" + i);
+        }
+
+        ObjectGraphSizer exact = new ObjectGraphSizer();
+        exact.setSampleSize(Integer.MAX_VALUE);
+
+        ObjectGraphSizer sampled = new ObjectGraphSizer();
+        sampled.setSampleSize(100);
+
+        assertTrue(Math.abs(exact.sizeOf(map) - sampled.sizeOf(map)) < exact.sizeOf(map) / 10);
+        assertTrue(Math.abs(exact.sizeOf(list) - sampled.sizeOf(list)) < exact.sizeOf(list) / 10);
+    }
+
+    @Test
+    void sizeOf_backingArrays() {
+        Map<Integer, String> map = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            map.put(i, "value-" + i);
+        }
+
+        ObjectGraphSizer sizer = new ObjectGraphSizer();
+        long hashMap = sizer.sizeOf(map);
+        long compactHashMap = sizer.sizeOf(CompactHashMap.copyOf(map));
+        long persistentHashMap = sizer.sizeOf(PersistentHashMap.copyOf(map));
+
+        // keys and values are the same instances, only the structure differs
+        long contents = hashMap - (long) map.size() * 36;
+        assertTrue(compactHashMap < hashMap);
+        assertTrue(compactHashMap - contents < (long) map.size() * 24);
+        assertTrue(persistentHashMap - contents < (long) map.size() * 36);
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartitionedMapRefreshAwareFactoryBeanTest {
+
+    @Test
+    void getObjectType() {
+        PartitionedMapRefreshAwareFactoryBean<Integer, String> factoryBean =
+                new TestPartitionedMapRefreshAwareFactoryBean();
+
+        assertEquals(Map.class, factoryBean.getObjectType());
+    }
+
+    @Test
+    void lifeCycle() throws Exception {
+        TestPartitionedMapRefreshAwareFactoryBean factoryBean =
+                new TestPartitionedMapRefreshAwareFactoryBean();
+
+        // initialize
+        factoryBean.afterPropertiesSet();
+
+        Map<Integer, String> map = factoryBean.getObject();
+        assertEquals(100, map.size());
+        assertEquals("1@1", map.get(1));
+        assertEquals("2@1", map.get(2));
+        assertTrue(map.containsKey(99));
+        assertFalse(map.containsKey(100));
+        assertNull(map.get(null));
+        assertEquals(100, new HashMap<>(map).size());
+        assertThrows(UnsupportedOperationException.class, () -> map.put(1, "1"));
+
+        // only changed partition is recreated
+        factoryBean.changed.add(factoryBean.partition(2));
+        factoryBean.refresh();
+        assertEquals("1@1", map.get(1));
+        assertEquals("2@2", map.get(2));
+        assertEquals(100, map.size());
+        assertEquals(Set.of(factoryBean.partition(2)), factoryBean.destroyed);
+
+        try (Snapshot<Map<Integer, String>> snapshot = factoryBean.getPartition(factoryBean.partition(2)).acquire()) {
+            assertEquals(2, snapshot.getGeneration());
+        }
+
+        // destroy
+        factoryBean.destroy();
+        assertEquals(4, factoryBean.destroyed.size());
+    }
+
+    static class TestPartitionedMapRefreshAwareFactoryBean
+            extends PartitionedMapRefreshAwareFactoryBean<Integer, String> {
+
+        private final Set<Integer> changed = new HashSet<>();
+
+        private final Set<Integer> destroyed = new HashSet<>();
+
+        private final int[] versions = new int[4];
+
+        TestPartitionedMapRefreshAwareFactoryBean() {
+            super(4);
+        }
+
+        @Override
+        protected Map<Integer, String> createPartition(int partition) throws Exception {
+            int version = ++versions[partition];
+            Map<Integer, String> content = new HashMap<>();
+            for (int key = 0; key < 100; key++) {
+                if (partition(key) == partition) {
+                    content.put(key, key + "@" + version);
+                }
+            }
+            return content;
+        }
+
+        @Override
+        protected boolean shouldRefresh(int partition) throws Exception {
+            return changed.remove(partition);
+        }
+
+        @Override
+        protected void destroyPartition(int partition, Map<Integer, String> content) throws Exception {
+            destroyed.add(partition);
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PersistentListRefreshAwareFactoryBeanTest {
+
+    @Test
+    void getObjectType() {
+        assertEquals(List.class, new TestPersistentListRefreshAwareFactoryBean().getObjectType());
+    }
+
+    @Test
+    void lifeCycle() throws Exception {
+        TestPersistentListRefreshAwareFactoryBean factoryBean =
+                new TestPersistentListRefreshAwareFactoryBean();
+
+        // initialize
+        factoryBean.afterPropertiesSet();
+
+        List<Integer> list = factoryBean.getObject();
+        assertEquals(List.of(1, 2, 3), list);
+
+        // only differences are applied
+        factoryBean.content.set(1, 4);
+        factoryBean.content.add(5);
+        factoryBean.refresh();
+        assertEquals(List.of(1, 4, 3, 5), list);
+        assertEquals(2, factoryBean.getGeneration());
+
+        // unchanged content is not published
+        factoryBean.refresh();
+        assertEquals(2, factoryBean.getGeneration());
+
+        // destroy
+        factoryBean.destroy();
+    }
+
+    static class TestPersistentListRefreshAwareFactoryBean
+            extends PersistentListRefreshAwareFactoryBean<Integer> {
+
+        private final List<Integer> content = new ArrayList<>(List.of(1, 2, 3));
+
+        @Override
+        protected List<Integer> loadContent() throws Exception {
+            return new ArrayList<>(content);
+        }
+
+        @Override
+        protected boolean shouldRefresh() throws Exception {
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PersistentMapRefreshAwareFactoryBeanTest {
+
+    @Test
+    void getObjectType() {
+        assertEquals(Map.class, new TestPersistentMapRefreshAwareFactoryBean().getObjectType());
+    }
+
+    @Test
+    void lifeCycle() throws Exception {
+        TestPersistentMapRefreshAwareFactoryBean factoryBean =
+                new TestPersistentMapRefreshAwareFactoryBean();
+
+        // initialize
+        factoryBean.afterPropertiesSet();
+
+        Map<String, String> map = factoryBean.getObject();
+        assertEquals("a1", map.get("a"));
+
+        Object unchanged;
+        try (Snapshot<Map<String, String>> snapshot = factoryBean.acquire()) {
+            unchanged = snapshot.get().get("b");
+        }
+
+        // only differences are applied
+        factoryBean.content.put("a", "a2");
+        factoryBean.content.remove("c");
+        factoryBean.refresh();
+        assertEquals(Map.of("a", "a2", "b", "b1"), map);
+        assertEquals(2, factoryBean.getGeneration());
+
+        try (Snapshot<Map<String, String>> snapshot = factoryBean.acquire()) {
+            assertSame(unchanged, snapshot.get().get("b"));
+        }
+
+        // unchanged content is not published
+        factoryBean.refresh();
+        assertEquals(2, factoryBean.getGeneration());
+
+        // destroy
+        factoryBean.destroy();
+    }
+
+    static class TestPersistentMapRefreshAwareFactoryBean
+            extends PersistentMapRefreshAwareFactoryBean<String, String> {
+
+        private final Map<String, String> content = new HashMap<>(Map.of("a", "a1", "b", "b1", "c", "c1"));
+
+        @Override
+        protected Map<String, String> loadContent() throws Exception {
+            // fresh copies of values, as if parsed again
+            Map<String, String> loaded = new HashMap<>();
+            content.forEach((key, value) -> loaded.put(key, new String(value)));
+            return loaded;
+        }
+
+        @Override
+        protected boolean shouldRefresh() throws Exception {
+            return true;
+        }
+
+    }
+
+}
@@ -2,8 +2,24 @@ package com.github.mscode.beans.factory.refreshaware;
 
 import com.github.mscode.beans.factory.refreshaware.data.Model;
 import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.ResolvableType;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ProxyBasedRefreshAwareFactoryBeanTest {
 
@@ -15,6 +31,27 @@ class ProxyBasedRefreshAwareFactoryBeanTest {
         assertEquals(Model.class, factoryBean.getObjectType());
     }
 
+    @Test
+    void getObjectResolvableType() {
+        ProxyBasedRefreshAwareFactoryBean<List<Integer>> factoryBean
+                = new NumbersProxyBasedRefreshAwareFactoryBean();
+
+        ResolvableType type = factoryBean.getObjectResolvableType();
+        assertEquals(List.class, type.resolve());
+        assertEquals(Integer.class, type.resolveGeneric(0));
+        assertSame(type, factoryBean.getObjectResolvableType());
+    }
+
+    @Test
+    void getObjectResolvableType_rawSubclass() {
+        RawProxyBasedRefreshAwareFactoryBean factoryBean = new RawProxyBasedRefreshAwareFactoryBean();
+
+        // resolved from createInstance return type
+        ResolvableType type = factoryBean.getObjectResolvableType();
+        assertEquals(List.class, factoryBean.getObjectType());
+        assertEquals(Integer.class, type.resolveGeneric(0));
+    }
+
     @Test
     void lifeCycle() throws Exception {
         ProxyBasedRefreshAwareFactoryBean<Model> factoryBean
@@ -36,6 +73,174 @@ class ProxyBasedRefreshAwareFactoryBeanTest {
         assertEquals(3, model.getVersion());
     }
 
+    @Test
+    void lifeCycle_shadowMode() throws Exception {
+        ShadowValidator<List<Integer>> shadowValidator = new ShadowValidator<>(16);
+        shadowValidator.setSampleInterval(1);
+        shadowValidator.setMaxMismatchRatio(0.5);
+
+        ProxyBasedRefreshAwareFactoryBean<List<Integer>> factoryBean
+                = new NumbersProxyBasedRefreshAwareFactoryBean();
+        factoryBean.setShadowValidator(shadowValidator);
+
+        // initialize
+        factoryBean.afterPropertiesSet();
+
+        List<Integer> numbers = factoryBean.getObject();
+        assertEquals(1, numbers.get(0));
+        assertEquals(2, numbers.get(1));
+
+        // only one of two recorded calls differs
+        factoryBean.refresh();
+        assertEquals(List.of(1, 3), numbers);
+
+        assertEquals(1, numbers.get(0));
+        assertEquals(3, numbers.get(1));
+        assertEquals(3, numbers.get(1));
+
+        // most of recorded calls differ
+        factoryBean.refresh();
+        assertEquals(List.of(1, 3), numbers);
+    }
+
+    @Test
+    void shadowValidator_comparesNothing() {
+        ProxyBasedRefreshAwareFactoryBean<List<Integer>> factoryBean
+                = new NumbersProxyBasedRefreshAwareFactoryBean();
+        factoryBean.setShadowValidator(new ShadowValidator<>(16));
+
+        // default validator would accept every candidate
+        assertThrows(IllegalStateException.class, factoryBean::afterPropertiesSet);
+    }
+
+    @Test
+    void shadowValidator_latency() throws Exception {
+        ShadowValidator<List<Integer>> shadowValidator = new ShadowValidator<>(4);
+        shadowValidator.setSampleInterval(1);
+        shadowValidator.setMaxMismatchRatio(0.0);
+        shadowValidator.setMaxLatencyRatio(10.0);
+
+        Method get = List.class.getMethod("get", int.class);
+        for (int i = 0; i < 4; i++) {
+            shadowValidator.record(get, new Object[]{i});
+        }
+
+        List<Integer> current = List.of(0, 1, 2, 3);
+        List<Integer> slow = new AbstractList<>() {
+            @Override
+            public Integer get(int index) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+                return index;
+            }
+
+            @Override
+            public int size() {
+                return 4;
+            }
+        };
+
+        // same results, but much slower
+        assertThrows(IllegalStateException.class, () -> shadowValidator.validate(current, slow));
+    }
+
+    @Test
+    void lifeCycle_jdkProxy() throws Exception {
+        ProxyBasedRefreshAwareFactoryBean<List<Integer>> factoryBean
+                = new NumbersProxyBasedRefreshAwareFactoryBean();
+        factoryBean.setProxyStrategy(ProxyStrategy.JDK);
+
+        // initialize
+        factoryBean.afterPropertiesSet();
+
+        List<Integer> numbers = factoryBean.getObject();
+        assertTrue(Proxy.isProxyClass(numbers.getClass()));
+        assertEquals(List.of(1, 2), numbers);
+        assertEquals(numbers, List.of(1, 2));
+        assertEquals(List.of(1, 2).hashCode(), numbers.hashCode());
+        assertEquals("[1, 2]", numbers.toString());
+
+        factoryBean.refresh();
+        assertEquals(3, numbers.get(1));
+        assertEquals(numbers, factoryBean.getObject());
+    }
+
+    @Test
+    void afterPropertiesSet_jdkProxyOfClass() {
+        ProxyBasedRefreshAwareFactoryBean<Model> factoryBean
+                = new TestProxyBasedRefreshAwareFactoryBean();
+        factoryBean.setProxyStrategy(ProxyStrategy.JDK);
+
+        assertThrows(IllegalStateException.class, factoryBean::afterPropertiesSet);
+    }
+
+    @Test
+    void lifeCycle_indexes() throws Exception {
+        ModelsProxyBasedRefreshAwareFactoryBean factoryBean = new ModelsProxyBasedRefreshAwareFactoryBean();
+        factoryBean.addIndex("name", Model::getName, true);
+        factoryBean.<Model>addIndex("version", model -> model.getVersion(), false);
+
+        // initialize
+        factoryBean.afterPropertiesSet();
+
+        IndexedRefreshable<Model> indexed = factoryBean.indexed();
+        assertEquals(new Model("a", 1), indexed.findOne("name", "a"));
+        assertNull(indexed.findOne("name", "c"));
+        assertEquals(List.of(new Model("a", 1), new Model("b", 1)), indexed.findAll("version", 1));
+        assertEquals(Set.of(1), indexed.keys("version"));
+        assertThrows(IllegalArgumentException.class, () -> indexed.findOne("missing", "a"));
+
+        // indexes are published together with the instance
+        factoryBean.models.add(new Model("c", 2));
+        factoryBean.refresh();
+        assertEquals(new Model("c", 2), indexed.findOne("name", "c"));
+        assertEquals(new Model("c", 2), indexed.findOne("version", 2));
+
+        // snapshot pins indexes of its instance
+        try (Snapshot<List<Model>> snapshot = factoryBean.acquire()) {
+            factoryBean.models.add(new Model("d", 2));
+            factoryBean.refresh();
+            IndexedRefreshable<Model> pinned = snapshot.indexed();
+            assertNull(pinned.findOne("name", "d"));
+            assertEquals(new Model("d", 2), indexed.findOne("name", "d"));
+            snapshot.close();
+            assertThrows(IllegalStateException.class, snapshot::indexed);
+        }
+
+        // instance violating unique index is rejected
+        factoryBean.models.add(new Model("c", 3));
+        factoryBean.refresh();
+        assertEquals(3, factoryBean.getGeneration());
+        assertTrue(indexed.findAll("version", 3).isEmpty());
+
+        // destroy
+        factoryBean.destroy();
+    }
+
+    @Test
+    void injectRefreshableRef() {
+        new ApplicationContextRunner()
+                .withBean("numbers", NumbersProxyBasedRefreshAwareFactoryBean.class)
+                .withBean(NumbersService.class)
+                .run(context -> {
+                    NumbersService service = context.getBean(NumbersService.class);
+                    try (Snapshot<List<Integer>> snapshot = service.numbers.acquire()) {
+                        assertEquals(List.of(1, 2), snapshot.get());
+                        assertFalse(Proxy.isProxyClass(snapshot.get().getClass()));
+                        assertThrows(IllegalStateException.class, snapshot::indexed);
+                    }
+                });
+    }
+
+    static class NumbersService {
+
+        private final RefreshableRef<List<Integer>> numbers;
+
+        NumbersService(RefreshableRef<List<Integer>> numbers) {
+            this.numbers = numbers;
+        }
+
+    }
+
     static class TestProxyBasedRefreshAwareFactoryBean
             extends ProxyBasedRefreshAwareFactoryBean<Model> {
 
@@ -53,4 +258,53 @@ class ProxyBasedRefreshAwareFactoryBeanTest {
 
     }
 
+    @SuppressWarnings("rawtypes")
+    static class RawProxyBasedRefreshAwareFactoryBean extends ProxyBasedRefreshAwareFactoryBean {
+
+        @Override
+        protected List<Integer> createInstance() throws Exception {
+            return List.of(1, 2);
+        }
+
+        @Override
+        protected boolean shouldRefresh() throws Exception {
+            return false;
+        }
+
+    }
+
+    static class NumbersProxyBasedRefreshAwareFactoryBean
+            extends ProxyBasedRefreshAwareFactoryBean<List<Integer>> {
+
+        private int counter = 2;
+
+        @Override
+        protected List<Integer> createInstance() throws Exception {
+            return List.of(1, counter++);
+        }
+
+        @Override
+        protected boolean shouldRefresh() throws Exception {
+            return true;
+        }
+
+    }
+
+    static class ModelsProxyBasedRefreshAwareFactoryBean
+            extends ProxyBasedRefreshAwareFactoryBean<List<Model>> {
+
+        private final List<Model> models = new ArrayList<>(List.of(new Model("a", 1), new Model("b", 1)));
+
+        @Override
+        protected List<Model> createInstance() throws Exception {
+            return List.copyOf(models);
+        }
+
+        @Override
+        protected boolean shouldRefresh() throws Exception {
+            return true;
+        }
+
+    }
+
 }
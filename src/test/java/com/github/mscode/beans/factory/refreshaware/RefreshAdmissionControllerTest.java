@@ -0,0 +1,199 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RefreshAdmissionControllerTest {
+
+    @Test
+    void reserve() {
+        RefreshAdmissionController controller = new RefreshAdmissionController(1.0);
+
+        try (RefreshAdmissionController.Permit permit = controller.reserve(1024)) {
+            assertEquals(1024, controller.getReserved());
+        }
+
+        assertEquals(0, controller.getReserved());
+        assertThrows(IllegalArgumentException.class, () -> new RefreshAdmissionController(0));
+    }
+
+    @Test
+    void tryAdmit_underMemoryPressure() {
+        // nothing fits, refreshes are serialized
+        RefreshAdmissionController controller = new RefreshAdmissionController(Double.MIN_VALUE);
+
+        RefreshAdmissionController.Permit first = controller.tryAdmit(1024, Duration.ZERO);
+        assertNotNull(first);
+        assertNull(controller.tryAdmit(1024, Duration.ZERO));
+
+        // released permit makes room for the next refresh
+        first.close();
+        RefreshAdmissionController.Permit second = controller.tryAdmit(1024, Duration.ZERO);
+        assertNotNull(second);
+        second.close();
+        assertEquals(0, controller.getReserved());
+    }
+
+    @Test
+    void tryAdmit() {
+        RefreshAdmissionController controller = new RefreshAdmissionController(Double.MIN_VALUE);
+        controller.setMaxWait(Duration.ofSeconds(10));
+
+        // first refresh is always admitted
+        RefreshAdmissionController.Permit first = controller.tryAdmit(1024, Duration.ZERO);
+        assertNotNull(first);
+
+        // others wait without blocking, until the maximal wait elapses
+        assertNull(controller.tryAdmit(1024, Duration.ofSeconds(1)));
+        RefreshAdmissionController.Permit second = controller.tryAdmit(1024, Duration.ofSeconds(10));
+        assertNotNull(second);
+
+        // nested refresh is reserved unconditionally
+        RefreshAdmissionController.Permit nested = controller.reserve(1024);
+        assertEquals(3072, controller.getReserved());
+
+        first.close();
+        second.close();
+        nested.close();
+        assertEquals(0, controller.getReserved());
+    }
+
+    @Test
+    void admit_deferredSyncRefresh() throws Exception {
+        RefreshAdmissionController controller = new RefreshAdmissionController(Double.MIN_VALUE);
+        ModifiedOnceRefreshAwareFactoryBean factoryBean = new ModifiedOnceRefreshAwareFactoryBean(null);
+        factoryBean.setAdmissionController(controller);
+
+        // initialize
+        factoryBean.afterPropertiesSet();
+
+        // refresh of other bean is in progress
+        RefreshAdmissionController.Permit other = controller.reserve(1024);
+        factoryBean.refresh();
+        assertEquals(1, factoryBean.getGeneration());
+
+        // deferred refresh is retried although source is not modified again
+        other.close();
+        factoryBean.refresh();
+        assertEquals(2, factoryBean.getGeneration());
+        assertEquals(0, controller.getReserved());
+    }
+
+    @Test
+    void admit_asyncRefreshDoesNotBlockScheduler() throws Exception {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.initialize();
+
+        RefreshAdmissionController controller = new RefreshAdmissionController(Double.MIN_VALUE);
+        ModifiedOnceRefreshAwareFactoryBean factoryBean = new ModifiedOnceRefreshAwareFactoryBean(scheduler);
+        factoryBean.setAdmissionController(controller);
+
+        try {
+            // initialize
+            factoryBean.afterPropertiesSet();
+
+            // permit of the first refresh is released by a task on the same single thread
+            factoryBean.forceRefresh();
+            waitForGeneration(factoryBean, 2);
+            factoryBean.forceRefresh();
+            waitForGeneration(factoryBean, 3);
+
+            assertEquals(3, factoryBean.getGeneration());
+        } finally {
+            factoryBean.destroy();
+            scheduler.shutdown();
+        }
+    }
+
+    private static void waitForGeneration(RefreshAwareFactoryBean<?> factoryBean, long generation) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (factoryBean.getGeneration() < generation && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void estimatedFootprint() throws Exception {
+        RefreshAwareFactoryBean<int[]> factoryBean = new RefreshAwareFactoryBean<>() {
+            @Override
+            protected int[] createInstance() {
+                return new int[1024 * 1024];
+            }
+
+            @Override
+            protected boolean shouldRefresh() {
+                return true;
+            }
+
+            @Override
+            public int[] getObject() {
+                return getInstance();
+            }
+
+            @Override
+            public Class<?> getObjectType() {
+                return int[].class;
+            }
+        };
+        factoryBean.setAdmissionController(new RefreshAdmissionController(1.0));
+        assertEquals(0, factoryBean.getEstimatedFootprint());
+        factoryBean.setSizer(new ObjectGraphSizer());
+
+        // initialize
+        factoryBean.afterPropertiesSet();
+
+        // learned from estimated size
+        assertTrue(factoryBean.getEstimatedFootprint() >= 4 * 1024 * 1024);
+
+        factoryBean.refresh();
+        assertEquals(2, factoryBean.getGeneration());
+
+        // declared
+        factoryBean.setEstimatedFootprint(42);
+        assertEquals(42, factoryBean.getEstimatedFootprint());
+    }
+
+    /**
+     * Source is modified only once after initialization.
+     */
+    static class ModifiedOnceRefreshAwareFactoryBean extends RefreshAwareFactoryBean<int[]> {
+
+        private boolean modified = true;
+
+        ModifiedOnceRefreshAwareFactoryBean(ThreadPoolTaskScheduler scheduler) {
+            super(scheduler, Duration.ZERO, Duration.ofMillis(300));
+        }
+
+        @Override
+        protected int[] createInstance() {
+            return new int[1024];
+        }
+
+        @Override
+        protected boolean shouldRefresh() {
+            boolean result = modified;
+            modified = false;
+            return result;
+        }
+
+        @Override
+        public int[] getObject() {
+            return getInstance();
+        }
+
+        @Override
+        public Class<?> getObjectType() {
+            return int[].class;
+        }
+
+    }
+
+}
@@ -1,11 +1,28 @@
 package com.github.mscode.beans.factory.refreshaware;
 
 import com.github.mscode.beans.factory.refreshaware.data.Model;
+import com.github.mscode.beans.factory.refreshaware.tools.clock.MutableClock;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -96,6 +113,22 @@ class RefreshAwareFactoryBeanLifeCycleTest {
         verify(factoryBean, times(1)).destroyInstance(model3);
     }
 
+    @Test
+    void lifeCycle_broken_dummyInstanceFailed() throws Exception {
+        RefreshAwareFactoryBean<Model> factoryBean = new AbortRefreshAwareFactoryBean() {
+            @Override
+            protected Model createDummyInstance() {
+                throw new IllegalStateException("Simulate dummy instance error...");
+            }
+        };
+
+        // initialize, failure of createInstance is kept as suppressed
+        IllegalStateException e = assertThrows(IllegalStateException.class, factoryBean::afterPropertiesSet);
+        assertEquals("Simulate dummy instance error...", e.getMessage());
+        assertEquals(1, e.getSuppressed().length);
+        assertEquals("Simulate initialization error...", e.getSuppressed()[0].getMessage());
+    }
+
     @Test
     void lifeCycle_broken_abort() throws Exception {
         RefreshAwareFactoryBean<Model> factoryBean =
@@ -136,9 +169,274 @@ class RefreshAwareFactoryBeanLifeCycleTest {
         verify(factoryBean, times(1)).destroyInstance(model1);
     }
 
+    @Test
+    void lifeCycle_snapshot() throws Exception {
+        RefreshAwareFactoryBean<Model> factoryBean =
+                spy(new SnapshotRefreshAwareFactoryBean());
+
+        // initialize
+        factoryBean.afterPropertiesSet();
+
+        Snapshot<Model> snapshot = factoryBean.acquire();
+        Model model1 = snapshot.get();
+        assertEquals(1, model1.getVersion());
+
+        // refresh, pinned instance is not destroyed
+        factoryBean.refresh();
+        verify(factoryBean, times(0)).destroyInstance(model1);
+
+        Model model2 = factoryBean.getObject();
+        assertEquals(2, model2.getVersion());
+        assertSame(model1, snapshot.get());
+
+        // release pinned instance
+        snapshot.close();
+        verify(factoryBean, times(1)).destroyInstance(model1);
+        assertThrows(IllegalStateException.class, snapshot::get);
+
+        // destroy
+        factoryBean.destroy();
+        verify(factoryBean, times(1)).destroyInstance(model2);
+    }
+
+    @Test
+    void lifeCycle_refreshRejectedByValidator() throws Exception {
+        RefreshAwareFactoryBean<List<Integer>> factoryBean =
+                spy(new ShrinkingRefreshAwareFactoryBean());
+        factoryBean.addValidator(RefreshValidators.sizeDelta(RefreshValidators.size(), 0.5, 1.0));
+
+        // initialize
+        factoryBean.afterPropertiesSet();
+
+        List<Integer> numbers1 = factoryBean.getObject();
+        assertEquals(10, numbers1.size());
+
+        // refresh rejected, candidate destroyed
+        factoryBean.refresh();
+        verify(factoryBean, times(1)).refreshInstance();
+        verify(factoryBean, times(1)).validateInstance(eq(numbers1), any());
+        verify(factoryBean, times(0)).destroyInstance(numbers1);
+        verify(factoryBean, times(1)).destroyInstance(List.of(1));
+
+        List<Integer> numbers2 = factoryBean.getObject();
+        assertSame(numbers1, numbers2);
+
+        // destroy
+        factoryBean.destroy();
+        verify(factoryBean, times(1)).destroyInstance(numbers1);
+    }
+
+    @Test
+    void lifeCycle_refreshListener() throws Exception {
+        RefreshAwareFactoryBean<Model> factoryBean = new SnapshotRefreshAwareFactoryBean();
+
+        List<String> events = new CopyOnWriteArrayList<>();
+        factoryBean.addRefreshListener((previous, current, generation) ->
+                events.add(previous.getVersion() + "->" + current.getVersion() + "@" + generation));
+
+        BlockingQueue<Long> generations = new LinkedBlockingQueue<>();
+        factoryBean.generations().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Long generation) {
+                generations.add(generation);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+                generations.add(-1L);
+            }
+        });
+
+        assertEquals(0, factoryBean.getGeneration());
+
+        // initialize
+        factoryBean.afterPropertiesSet();
+        assertEquals(1, factoryBean.getGeneration());
+
+        factoryBean.refresh();
+        factoryBean.refresh();
+        assertEquals(3, factoryBean.getGeneration());
+        assertEquals(List.of("1->2@2", "2->3@3"), events);
+
+        try (Snapshot<Model> snapshot = factoryBean.acquire()) {
+            assertEquals(3, snapshot.getGeneration());
+        }
+
+        // destroy completes the publisher
+        factoryBean.destroy();
+        assertEquals(2L, generations.poll(5, TimeUnit.SECONDS));
+        assertEquals(3L, generations.poll(5, TimeUnit.SECONDS));
+        assertEquals(-1L, generations.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void lifeCycle_statistics() throws Exception {
+        RefreshAwareFactoryBean<Model> factoryBean = new SnapshotRefreshAwareFactoryBean();
+        factoryBean.setSizer(new ObjectGraphSizer());
+
+        RefreshStatistics statistics = factoryBean.getStatistics();
+        assertEquals(-1, statistics.getEstimatedSize());
+
+        // initialize
+        factoryBean.afterPropertiesSet();
+        assertTrue(statistics.getEstimatedSize() > 0);
+        assertNull(statistics.getOverlap());
+
+        // overlap lasts until pinned instance is released
+        Snapshot<Model> snapshot = factoryBean.acquire();
+        factoryBean.refresh();
+        assertNull(statistics.getOverlap());
+
+        Thread.sleep(20);
+        snapshot.close();
+        assertTrue(statistics.getOverlap().toMillis() >= 20);
+        assertEquals(statistics.getEstimatedSize(), factoryBean.getEstimatedFootprint());
+
+        // destroy
+        factoryBean.destroy();
+    }
+
     /**
      * Regular state, createInstance is able to create bean instance.
      */
+    @Test
+    void lifeCycle_warmUp() throws Exception {
+        RefreshAwareFactoryBean<Model> factoryBean = new SnapshotRefreshAwareFactoryBean();
+
+        List<Model> warmed = new CopyOnWriteArrayList<>();
+        List<Long> generations = new CopyOnWriteArrayList<>();
+        factoryBean.addWarmer(InstanceWarmers.repeat(2, warmed::add));
+        factoryBean.addWarmer(instance -> generations.add(factoryBean.getGeneration()));
+        factoryBean.addWarmer(instance -> {
+            throw new IllegalStateException("Simulate warm-up fail....");
+        });
+
+        // initialize
+        factoryBean.afterPropertiesSet();
+        Model model1 = factoryBean.getObject();
+        assertEquals(List.of(model1, model1), warmed);
+
+        // failed warm-up does not prevent publishing
+        factoryBean.refresh();
+        Model model2 = factoryBean.getObject();
+        assertEquals(List.of(model1, model1, model2, model2), warmed);
+        assertNotNull(factoryBean.getStatistics().getLastWarmUpDuration());
+
+        // new instance is not published before warm-up ends
+        assertEquals(List.of(0L, 1L), generations);
+
+        // destroy
+        factoryBean.destroy();
+    }
+
+    @Test
+    void lifeCycle_backoff() throws Exception {
+        MutableClock clock = new MutableClock(1600000000);
+        FlakyRefreshAwareFactoryBean factoryBean = new FlakyRefreshAwareFactoryBean();
+        factoryBean.setClock(clock);
+        factoryBean.setBackoff(new RefreshBackoff(Duration.ofSeconds(10), Duration.ofSeconds(40), 3));
+
+        RefreshStatistics statistics = factoryBean.getStatistics();
+
+        // initialize
+        factoryBean.afterPropertiesSet();
+
+        // first failure schedules retry
+        factoryBean.refresh();
+        assertEquals(1, factoryBean.attempts);
+        assertEquals(1, statistics.getConsecutiveFailures());
+        assertEquals(clock.instant().plusSeconds(10), statistics.getNextRetry());
+
+        // not retried before delay elapses
+        factoryBean.refresh();
+        assertEquals(1, factoryBean.attempts);
+
+        // retried without modification, delay is doubled
+        clock.tickSeconds(10);
+        factoryBean.refresh();
+        assertEquals(2, factoryBean.attempts);
+        assertEquals(clock.instant().plusSeconds(20), statistics.getNextRetry());
+
+        // circuit opens after third failure
+        clock.tickSeconds(20);
+        factoryBean.refresh();
+        assertEquals(3, factoryBean.attempts);
+        assertTrue(statistics.isCircuitOpen());
+
+        clock.tickSeconds(100);
+        factoryBean.refresh();
+        assertEquals(3, factoryBean.attempts);
+
+        // modification of the same content keeps circuit open
+        factoryBean.modified = true;
+        factoryBean.refresh();
+        assertEquals(3, factoryBean.attempts);
+
+        // changed fingerprint alone is not a modification
+        factoryBean.fingerprint = "fixed";
+        factoryBean.broken = false;
+        factoryBean.refresh();
+        assertEquals(3, factoryBean.attempts);
+
+        // modification with changed fingerprint closes circuit
+        factoryBean.modified = true;
+        factoryBean.refresh();
+        assertEquals(4, factoryBean.attempts);
+        assertEquals(2, factoryBean.getObject().getVersion());
+        assertEquals(0, statistics.getConsecutiveFailures());
+        assertNull(statistics.getNextRetry());
+        assertFalse(statistics.isCircuitOpen());
+        assertFalse(statistics.isFailing());
+
+        // delay is capped
+        RefreshBackoff backoff = new RefreshBackoff(Duration.ofSeconds(10), Duration.ofSeconds(40), 3);
+        assertEquals(Duration.ofSeconds(40), backoff.getDelay(4));
+        assertEquals(Duration.ofSeconds(40), backoff.getDelay(100));
+
+        // destroy
+        factoryBean.destroy();
+    }
+
+    @Test
+    void lifeCycle_concurrentRefreshCoalesced() throws Exception {
+        BlockingRefreshAwareFactoryBean factoryBean = new BlockingRefreshAwareFactoryBean();
+
+        // initialize
+        factoryBean.afterPropertiesSet();
+
+        Thread refreshing = new Thread(factoryBean::forceRefresh);
+        refreshing.start();
+        assertTrue(factoryBean.started.await(5, TimeUnit.SECONDS));
+
+        // joined while the first refresh is blocked
+        factoryBean.forceRefresh();
+        factoryBean.forceRefresh();
+        assertEquals(1, factoryBean.refreshes.get());
+
+        factoryBean.proceed.countDown();
+        refreshing.join(5000);
+        assertFalse(refreshing.isAlive());
+
+        // single coalesced refresh ran after the first one
+        assertEquals(2, factoryBean.refreshes.get());
+        assertEquals(3, factoryBean.getGeneration());
+        assertEquals(3, factoryBean.getObject().getVersion());
+        assertEquals(List.of(1, 2), factoryBean.destroyed);
+
+        // destroy
+        factoryBean.destroy();
+        assertEquals(List.of(1, 2, 3), factoryBean.destroyed);
+    }
+
     static class RegularRefreshAwareFactoryBean
             extends RefreshAwareFactoryBean<Model> {
 
@@ -249,6 +547,121 @@ class RefreshAwareFactoryBeanLifeCycleTest {
 
     }
 
+    /**
+     * Regular state, used with snapshots.
+     */
+    static class SnapshotRefreshAwareFactoryBean
+            extends RefreshAwareFactoryBean<Model> {
+
+        private int counter = 1;
+
+        @Override
+        protected Model createInstance() throws Exception {
+            return new Model("Model", counter++);
+        }
+
+        @Override
+        protected boolean shouldRefresh() throws Exception {
+            return true;
+        }
+
+        @Override
+        public Model getObject() throws Exception {
+            return getInstance();
+        }
+
+        @Override
+        public Class<?> getObjectType() {
+            return Model.class;
+        }
+
+    }
+
+    /**
+     * Refreshed instance is much smaller than initial one.
+     */
+    static class ShrinkingRefreshAwareFactoryBean
+            extends RefreshAwareFactoryBean<List<Integer>> {
+
+        @Override
+        protected List<Integer> createInstance() throws Exception {
+            return List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        }
+
+        @Override
+        protected List<Integer> refreshInstance() throws Exception {
+            return List.of(1);
+        }
+
+        @Override
+        protected boolean shouldRefresh() throws Exception {
+            return true;
+        }
+
+        @Override
+        public List<Integer> getObject() throws Exception {
+            return getInstance();
+        }
+
+        @Override
+        public Class<?> getObjectType() {
+            return List.class;
+        }
+
+    }
+
+    /**
+     * Refresh fails until the source is fixed, modification is signaled only once.
+     */
+    static class FlakyRefreshAwareFactoryBean
+            extends RefreshAwareFactoryBean<Model> {
+
+        private boolean modified = true;
+
+        private boolean broken = true;
+
+        private Object fingerprint = "broken";
+
+        private int attempts;
+
+        @Override
+        protected Model createInstance() throws Exception {
+            return new Model("Model", 1);
+        }
+
+        @Override
+        protected Model refreshInstance() throws Exception {
+            attempts++;
+            if (broken) {
+                throw new Exception("Simulate corrupted source....");
+            }
+            return new Model("Model", 2);
+        }
+
+        @Override
+        protected boolean shouldRefresh() throws Exception {
+            boolean result = modified;
+            modified = false;
+            return result;
+        }
+
+        @Override
+        protected Object getSourceFingerprint() {
+            return fingerprint;
+        }
+
+        @Override
+        public Model getObject() throws Exception {
+            return getInstance();
+        }
+
+        @Override
+        public Class<?> getObjectType() {
+            return Model.class;
+        }
+
+    }
+
     /**
      * Unable to refresh instance, shouldRefresh failed.
      */
@@ -284,4 +697,53 @@ class RefreshAwareFactoryBeanLifeCycleTest {
 
     }
 
+    /**
+     * Regular state, first refresh blocks until released.
+     */
+    static class BlockingRefreshAwareFactoryBean
+            extends RefreshAwareFactoryBean<Model> {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        private final CountDownLatch proceed = new CountDownLatch(1);
+
+        private final AtomicInteger refreshes = new AtomicInteger();
+
+        private final List<Integer> destroyed = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected Model createInstance() throws Exception {
+            return new Model("Model", 1);
+        }
+
+        @Override
+        protected Model refreshInstance() throws Exception {
+            int refresh = refreshes.incrementAndGet();
+            started.countDown();
+            assertTrue(proceed.await(5, TimeUnit.SECONDS));
+            return new Model("Model", refresh + 1);
+        }
+
+        @Override
+        protected boolean shouldRefresh() throws Exception {
+            return true;
+        }
+
+        @Override
+        protected void destroyInstance(Model instance) {
+            destroyed.add(instance.getVersion());
+        }
+
+        @Override
+        public Model getObject() throws Exception {
+            return getInstance();
+        }
+
+        @Override
+        public Class<?> getObjectType() {
+            return Model.class;
+        }
+
+    }
+
 }
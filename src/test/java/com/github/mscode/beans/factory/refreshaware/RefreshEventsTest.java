@@ -0,0 +1,148 @@
+package com.github.mscode.beans.factory.refreshaware;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RefreshEventsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void lifeCycle() throws Exception {
+        Path filepath = directory.resolve("lines.txt");
+        Files.writeString(filepath, "a\nb\n");
+
+        LinesFactoryBean factoryBean = new LinesFactoryBean(filepath);
+        factoryBean.setBeanName("lines");
+
+        List<RecordedEvent> events = record(() -> {
+            factoryBean.afterPropertiesSet();
+            factoryBean.refresh();
+            factoryBean.destroy();
+            return null;
+        });
+
+        RecordedEvent check = single(events, "com.github.mscode.refreshaware.Check");
+        assertEquals("lines", check.getString("beanName"));
+        assertTrue(check.getBoolean("modified"));
+
+        List<RecordedEvent> builds = all(events, "com.github.mscode.refreshaware.Build");
+        assertEquals(2, builds.size());
+        assertEquals(2, builds.get(1).getLong("generation"));
+        assertEquals("published", builds.get(1).getString("outcome"));
+        assertEquals(4, builds.get(1).getLong("bytesRead"));
+        assertEquals(4, builds.get(1).getLong("bytesParsed"));
+
+        RecordedEvent swap = single(events, "com.github.mscode.refreshaware.Swap");
+        assertEquals(1, swap.getLong("previousGeneration"));
+        assertEquals(2, swap.getLong("generation"));
+
+        List<RecordedEvent> destroys = all(events, "com.github.mscode.refreshaware.Destroy");
+        assertEquals(2, destroys.size());
+        assertEquals(1, destroys.get(0).getLong("generation"));
+    }
+
+    @Test
+    void slowProxyCall() throws Exception {
+        SlowFactoryBean factoryBean = new SlowFactoryBean();
+        factoryBean.setBeanName("slow");
+        factoryBean.setProxyStrategy(ProxyStrategy.JDK);
+        factoryBean.setSlowCallThreshold(Duration.ofMillis(10));
+        factoryBean.afterPropertiesSet();
+
+        Supplier<String> proxy = factoryBean.getObject();
+        List<RecordedEvent> events = record(proxy::get);
+
+        RecordedEvent call = single(events, "com.github.mscode.refreshaware.SlowProxyCall");
+        assertEquals("slow", call.getString("beanName"));
+        assertEquals("Supplier#get", call.getString("method"));
+        assertFalse(call.getDuration().compareTo(Duration.ofMillis(10)) < 0);
+    }
+
+    private List<RecordedEvent> record(Callable<?> action) throws Exception {
+        Path dump = directory.resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : List.of("Check", "Build", "Swap", "Destroy", "SlowProxyCall")) {
+                recording.enable("com.github.mscode.refreshaware." + name).withoutThreshold();
+            }
+            recording.start();
+            action.call();
+            recording.stop();
+            recording.dump(dump);
+        }
+        return RecordingFile.readAllEvents(dump);
+    }
+
+    private static List<RecordedEvent> all(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+                .collect(Collectors.toList());
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = all(events, name);
+        assertEquals(1, matching.size());
+        return matching.get(0);
+    }
+
+    static class LinesFactoryBean extends FileProxyRefreshAwareFactoryBean<List<String>> {
+
+        LinesFactoryBean(Path filepath) {
+            super(filepath);
+            setMinimalFileAge(Duration.ZERO);
+        }
+
+        @Override
+        protected List<String> createInstance(Path filepath) throws Exception {
+            try (BufferedReader reader = new BufferedReader(openReader(filepath))) {
+                return reader.lines().collect(Collectors.toList());
+            }
+        }
+
+        @Override
+        protected boolean shouldRefresh() {
+            return true;
+        }
+
+    }
+
+    static class SlowFactoryBean extends ProxyBasedRefreshAwareFactoryBean<Supplier<String>> {
+
+        @Override
+        protected Supplier<String> createInstance() {
+            return () -> {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "slow";
+            };
+        }
+
+        @Override
+        protected boolean shouldRefresh() {
+            return false;
+        }
+
+    }
+
+}
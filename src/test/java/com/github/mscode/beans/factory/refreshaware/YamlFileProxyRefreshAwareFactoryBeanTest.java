@@ -1,5 +1,8 @@
 package com.github.mscode.beans.factory.refreshaware;
 
+import com.github.luben.zstd.ZstdOutputStream;
+import com.github.mscode.beans.factory.refreshaware.collection.CompactHashMap;
+import com.github.mscode.beans.factory.refreshaware.collection.CompactList;
 import com.github.mscode.beans.factory.refreshaware.data.DataModel;
 import com.github.mscode.beans.factory.refreshaware.tools.filesystem.EnableInMemoryFileSystem;
 import org.junit.jupiter.api.Test;
@@ -7,11 +10,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 
 @EnableInMemoryFileSystem
@@ -46,4 +54,42 @@ class YamlFileProxyRefreshAwareFactoryBeanTest {
         Files.delete(filepath);
     }
 
+    @Test
+    void createInstance_zstd() throws Exception {
+        // compression is detected from magic bytes
+        Path filepath = fileSystem.getPath("data-model.yaml");
+
+        try (OutputStream out = new ZstdOutputStream(Files.newOutputStream(filepath))) {
+            //language=yaml
+            out.write("name: \"model\"\nversion: 1".getBytes(StandardCharsets.UTF_8));
+        }
+
+        RefreshAwareFactoryBean<DataModel> factoryBean =
+                new YamlFileProxyRefreshAwareFactoryBean<>(filepath, DataModel.class);
+
+        DataModel model = factoryBean.createInstance();
+        assertEquals("model", model.getName());
+        assertEquals(1, model.getVersion());
+
+        Files.delete(filepath);
+    }
+
+    @Test
+    void createInstance_compact() throws Exception {
+        Path filepath = fileSystem.getPath("data-model.yaml");
+
+        //language=yaml
+        Files.writeString(filepath, "name: \"model\"\nversions: [1, 2]");
+
+        YamlFileProxyRefreshAwareFactoryBean<CompactHashMap> factoryBean =
+                new YamlFileProxyRefreshAwareFactoryBean<>(filepath, CompactHashMap.class);
+
+        Map<?, ?> model = factoryBean.createInstance();
+        assertEquals("model", model.get("name"));
+        assertTrue(model.get("versions") instanceof CompactList);
+        assertEquals(List.of(1, 2), model.get("versions"));
+
+        Files.delete(filepath);
+    }
+
 }
@@ -0,0 +1,77 @@
+package com.github.mscode.beans.factory.refreshaware.collection;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactCollectionsModuleTest {
+
+    @Test
+    void deserialize() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new CompactCollectionsModule());
+
+        //language=json
+        CompactHashMap<String, CompactList<Integer>> map = objectMapper.readValue("{\"b\": [1, 2], \"a\": [3]}",
+                new TypeReference<CompactHashMap<String, CompactList<Integer>>>() {
+                });
+        assertEquals(List.of("b", "a"), List.copyOf(map.keySet()));
+        assertEquals(List.of(1, 2), map.get("b"));
+        assertTrue(map.get("a") instanceof CompactList);
+
+        //language=json
+        SortedArrayMap<Integer, String> sorted = objectMapper.readValue("{\"2\": \"b\", \"1\": \"a\"}",
+                new TypeReference<SortedArrayMap<Integer, String>>() {
+                });
+        assertEquals(List.of(1, 2), List.copyOf(sorted.keySet()));
+
+        // abstract types are left as they are
+        //language=json
+        Model model = objectMapper.readValue("{\"list\": [1], \"map\": {}, \"sorted\": {}}", Model.class);
+        assertEquals(List.of(1), model.getList());
+        assertFalse(model.getList() instanceof CompactList);
+    }
+
+    @Test
+    void deserialize_abstractTypes() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new CompactCollectionsModule(true));
+
+        //language=json
+        Model model = objectMapper.readValue("{\"list\": [1], \"map\": {\"a\": 1}, \"sorted\": {\"b\": 2, \"a\": 1}}", Model.class);
+        assertTrue(model.getList() instanceof CompactList);
+        assertTrue(model.getMap() instanceof CompactHashMap);
+        assertTrue(model.getSorted() instanceof SortedArrayMap);
+        assertEquals("a", model.getSorted().firstKey());
+    }
+
+    @Test
+    void compact() {
+        Object compacted = CompactCollections.compact(Map.of("list", List.of(Map.of("a", 1)), "value", 2));
+
+        assertTrue(compacted instanceof CompactHashMap);
+        Object list = ((Map<?, ?>) compacted).get("list");
+        assertTrue(list instanceof CompactList);
+        assertTrue(((List<?>) list).get(0) instanceof CompactHashMap);
+        assertEquals(2, ((Map<?, ?>) compacted).get("value"));
+    }
+
+    @Data
+    static class Model {
+
+        private List<Integer> list;
+
+        private Map<String, Integer> map;
+
+        private SortedMap<String, Integer> sorted;
+
+    }
+
+}
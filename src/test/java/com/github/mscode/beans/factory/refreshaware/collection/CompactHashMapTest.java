@@ -0,0 +1,87 @@
+package com.github.mscode.beans.factory.refreshaware.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactHashMapTest {
+
+    @Test
+    void builder() {
+        CompactHashMap<String, Integer> map = CompactHashMap.<String, Integer>builder(1)
+                .put("a", 1)
+                .put("b", null)
+                .put("c", 3)
+                .put("a", 4)
+                .build();
+
+        // last value wins, insertion order is kept
+        assertEquals(3, map.size());
+        assertEquals(List.of("a", "b", "c"), List.copyOf(map.keySet()));
+        assertEquals(4, map.get("a"));
+        assertNull(map.get("b"));
+        assertTrue(map.containsKey("b"));
+        assertFalse(map.containsKey("d"));
+        assertEquals(0, map.getOrDefault("d", 0));
+        assertTrue(map.containsValue(null));
+        assertTrue(map.entrySet().contains(Map.entry("c", 3)));
+        assertThrows(UnsupportedOperationException.class, () -> map.put("d", 5));
+        assertThrows(NullPointerException.class, () -> CompactHashMap.builder(1).put(null, 1));
+    }
+
+    @Test
+    void equality() {
+        Map<Integer, String> source = IntStream.range(0, 10_000).boxed()
+                .collect(Collectors.toMap(Function.identity(), String::valueOf));
+        CompactHashMap<Integer, String> map = CompactHashMap.copyOf(source);
+
+        assertEquals(source, map);
+        assertEquals(map, source);
+        assertEquals(source.hashCode(), map.hashCode());
+        assertEquals(new HashMap<>(map), source);
+    }
+
+    @Test
+    void collisions() {
+        // keys sharing hash code are found by probing
+        Map<Collision, Integer> map = IntStream.range(0, 100).boxed()
+                .collect(CompactHashMap.toCompactHashMap(Collision::new, Function.identity()));
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, map.get(new Collision(i)));
+        }
+        assertNull(map.get(new Collision(100)));
+    }
+
+    private static final class Collision {
+
+        private final int value;
+
+        Collision(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Collision && ((Collision) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+
+    }
+
+}
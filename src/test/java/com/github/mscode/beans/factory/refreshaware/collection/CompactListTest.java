@@ -0,0 +1,56 @@
+package com.github.mscode.beans.factory.refreshaware.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactListTest {
+
+    @Test
+    void builder() {
+        // expected size is only a hint
+        CompactList<String> list = CompactList.<String>builder(1)
+                .add("a")
+                .add(null)
+                .addAll(List.of("b", "c"))
+                .build();
+
+        assertEquals(Arrays.asList("a", null, "b", "c"), list);
+        assertEquals(1, list.indexOf(null));
+        assertTrue(list.contains("c"));
+        assertEquals(4, list.toArray().length);
+        assertThrows(UnsupportedOperationException.class, () -> list.add("d"));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(4));
+    }
+
+    @Test
+    void copyOf() {
+        List<Integer> source = new ArrayList<>(List.of(1, 2, 3));
+        CompactList<Integer> list = CompactList.copyOf(source);
+
+        // detached from source
+        source.add(4);
+        assertEquals(List.of(1, 2, 3), list);
+        assertSame(list, CompactList.copyOf(list));
+        assertEquals(List.of(), CompactList.copyOf(List.of()));
+    }
+
+    @Test
+    void toCompactList() {
+        CompactList<Integer> list = IntStream.range(0, 1000).parallel().boxed().collect(CompactList.toCompactList());
+
+        assertEquals(1000, list.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, list.get(i));
+        }
+    }
+
+}
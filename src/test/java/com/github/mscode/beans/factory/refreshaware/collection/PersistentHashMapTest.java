@@ -0,0 +1,126 @@
+package com.github.mscode.beans.factory.refreshaware.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PersistentHashMapTest {
+
+    @Test
+    void with() {
+        PersistentHashMap<String, Integer> empty = PersistentHashMap.of();
+        PersistentHashMap<String, Integer> map = empty.with("a", 1).with("b", null);
+
+        // previous versions are not modified
+        assertEquals(0, empty.size());
+        assertEquals(2, map.size());
+        assertEquals(1, map.get("a"));
+        assertNull(map.get("b"));
+        assertTrue(map.containsKey("b"));
+        assertFalse(map.containsKey("c"));
+
+        // equal value keeps the map
+        assertSame(map, map.with("a", 1));
+        assertSame(map, map.without("c"));
+        assertEquals(Map.of("a", 2), map.with("a", 2).without("b"));
+        assertThrows(UnsupportedOperationException.class, () -> map.put("c", 3));
+    }
+
+    @Test
+    void randomized() {
+        Random random = new Random(42);
+        Map<Integer, Integer> expected = new HashMap<>();
+        PersistentHashMap<Integer, Integer> map = PersistentHashMap.of();
+
+        for (int i = 0; i < 50_000; i++) {
+            // small key range exercises replacements and removals
+            Integer key = random.nextInt(5_000) - 2_500;
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.without(key);
+            } else {
+                expected.put(key, i);
+                map = map.with(key, i);
+            }
+        }
+
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+        Map<Integer, Integer> copy = new HashMap<>();
+        map.forEach(copy::put);
+        assertEquals(expected, copy);
+    }
+
+    @Test
+    void collisions() {
+        PersistentHashMap<Collision, Integer> map = PersistentHashMap.of();
+        for (int i = 0; i < 10; i++) {
+            map = map.with(new Collision(i % 3, i), i);
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, map.get(new Collision(i % 3, i)));
+        }
+        assertEquals(10, map.entrySet().stream().count());
+
+        for (int i = 0; i < 10; i++) {
+            map = map.without(new Collision(i % 3, i));
+        }
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void update() {
+        Map<Integer, String> content = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            content.put(i, "value" + i);
+        }
+        PersistentHashMap<Integer, String> map = PersistentHashMap.copyOf(content);
+
+        // unchanged content keeps the map
+        assertSame(map, map.update(new HashMap<>(content)));
+
+        content.remove(1);
+        content.put(2, "changed");
+        content.put(1000, "added");
+        PersistentHashMap<Integer, String> updated = map.update(content);
+        assertEquals(content, updated);
+
+        // equal values are shared with the previous generation
+        assertSame(map.get(3), updated.get(3));
+    }
+
+    private static final class Collision {
+
+        private final int hash;
+
+        private final int value;
+
+        Collision(int hash, int value) {
+            this.hash = hash;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Collision && ((Collision) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.github.mscode.beans.factory.refreshaware.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PersistentVectorTest {
+
+    @Test
+    void appendAndRemove() {
+        List<Integer> expected = new ArrayList<>();
+        PersistentVector<Integer> vector = PersistentVector.of();
+
+        // crosses several trie levels in both directions
+        for (int i = 0; i < 40_000; i++) {
+            expected.add(i);
+            vector = vector.append(i);
+        }
+        assertEquals(expected, vector);
+
+        while (!expected.isEmpty()) {
+            expected.remove(expected.size() - 1);
+            vector = vector.removeLast();
+            if (expected.size() % 997 == 0) {
+                assertEquals(expected, vector);
+            }
+        }
+        assertEquals(0, vector.size());
+        assertThrows(IllegalStateException.class, vector::removeLast);
+    }
+
+    @Test
+    void copyOf() {
+        for (int size : new int[]{0, 1, 32, 33, 1024, 1056, 1057, 40_000}) {
+            List<Integer> expected = IntStream.range(0, size).boxed().collect(Collectors.toList());
+            PersistentVector<Integer> vector = PersistentVector.copyOf(expected);
+            assertEquals(expected, vector);
+
+            // copied trie keeps growing and shrinking correctly
+            expected.add(size);
+            assertEquals(expected, vector.append(size));
+            if (size > 0) {
+                assertEquals(expected.subList(0, size - 1), vector.removeLast());
+            }
+        }
+    }
+
+    @Test
+    void with() {
+        Random random = new Random(42);
+        List<Integer> expected = IntStream.range(0, 5_000).boxed().collect(Collectors.toList());
+        PersistentVector<Integer> vector = PersistentVector.copyOf(expected);
+        PersistentVector<Integer> original = vector;
+
+        for (int i = 0; i < 10_000; i++) {
+            int index = random.nextInt(expected.size());
+            expected.set(index, i);
+            vector = vector.with(index, i);
+        }
+
+        assertEquals(expected, vector);
+        assertEquals(IntStream.range(0, 5_000).boxed().collect(Collectors.toList()), original);
+        assertSame(vector, vector.with(0, expected.get(0)));
+        assertThrows(IndexOutOfBoundsException.class, () -> original.get(5_000));
+    }
+
+    @Test
+    void update() {
+        List<String> content = IntStream.range(0, 100).mapToObj(i -> "value" + i).collect(Collectors.toList());
+        PersistentVector<String> vector = PersistentVector.copyOf(content);
+
+        assertSame(vector, vector.update(new ArrayList<>(content)));
+        assertEquals(content.subList(0, 50), vector.update(content.subList(0, 50)));
+
+        content.set(10, "changed");
+        content.add("added");
+        PersistentVector<String> updated = vector.update(content);
+        assertEquals(content, updated);
+        assertSame(vector.get(20), updated.get(20));
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.github.mscode.beans.factory.refreshaware.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SortedArrayMapTest {
+
+    @Test
+    void builder() {
+        SortedArrayMap<String, Integer> map = SortedArrayMap.<String, Integer>builder(2, null)
+                .put("c", 3)
+                .put("a", 1)
+                .put("b", 2)
+                .put("a", 4)
+                .build();
+
+        // sorted, last value wins
+        assertEquals(List.of("a", "b", "c"), List.copyOf(map.keySet()));
+        assertEquals(List.of(4, 2, 3), List.copyOf(map.values()));
+        assertEquals("a", map.firstKey());
+        assertEquals("c", map.lastKey());
+        assertNull(map.get("d"));
+        assertThrows(UnsupportedOperationException.class, () -> map.put("d", 5));
+    }
+
+    @Test
+    void builder_unsorted() {
+        Random random = new Random(42);
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        SortedArrayMap.Builder<Integer, Integer> builder = SortedArrayMap.builder(0, null);
+        for (int i = 0; i < 10_000; i++) {
+            int key = random.nextInt(1000);
+            expected.put(key, i);
+            builder.put(key, i);
+        }
+
+        // last value of every duplicate key wins
+        SortedArrayMap<Integer, Integer> map = builder.build();
+        assertEquals(expected, map);
+        assertEquals(List.copyOf(expected.keySet()), List.copyOf(map.keySet()));
+        assertEquals(List.copyOf(expected.values()), List.copyOf(map.values()));
+    }
+
+    @Test
+    void ranges() {
+        SortedArrayMap<Integer, Integer> map = Stream.iterate(0, i -> i + 2).limit(10)
+                .collect(SortedArrayMap.toSortedArrayMap(Function.identity(), Function.identity(), null));
+        TreeMap<Integer, Integer> expected = new TreeMap<>(map);
+
+        assertEquals(expected.subMap(3, 11), map.subMap(3, 11));
+        assertEquals(expected.headMap(6), map.headMap(6));
+        assertEquals(expected.tailMap(15), map.tailMap(15));
+        assertEquals(expected.subMap(4, 12).headMap(8), map.subMap(4, 12).headMap(8));
+        assertEquals(Map.of(), map.subMap(5, 6));
+        assertNull(map.subMap(4, 12).get(2));
+        assertEquals(6, map.tailMap(5).firstKey());
+        assertThrows(IllegalArgumentException.class, () -> map.subMap(6, 4));
+    }
+
+    @Test
+    void comparator() {
+        Comparator<String> comparator = String.CASE_INSENSITIVE_ORDER.reversed();
+        TreeMap<String, Integer> source = new TreeMap<>(comparator);
+        source.put("a", 1);
+        source.put("B", 2);
+        source.put("c", 3);
+
+        SortedArrayMap<String, Integer> map = SortedArrayMap.copyOf(source);
+        assertEquals(comparator, map.comparator());
+        assertEquals(List.of("c", "B", "a"), List.copyOf(map.keySet()));
+        assertEquals(2, map.get("b"));
+        assertEquals(source, map);
+    }
+
+}
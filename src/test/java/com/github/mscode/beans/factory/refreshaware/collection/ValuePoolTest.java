@@ -0,0 +1,50 @@
+package com.github.mscode.beans.factory.refreshaware.collection;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ValuePoolTest {
+
+    @Test
+    void canonicalize() {
+        ValuePool pool = new ValuePool();
+        String first = new String("value");
+        String second = new String("value");
+
+        assertSame(first, pool.canonicalize(first));
+        assertSame(first, pool.canonicalize(second));
+        assertNull(pool.canonicalize(null));
+        assertEquals(1, pool.getHits());
+        assertEquals(1, pool.getMisses());
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    void module() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new ValuePoolModule(new ValuePool(), 5));
+        TypeReference<List<Map<String, String>>> type = new TypeReference<>() {
+        };
+
+        //language=json
+        String json = "[{\"code\": \"HR\", \"text\": \"Croatia\"}, {\"code\": \"HR\", \"text\": \"Croatia\"}]";
+        List<Map<String, String>> first = objectMapper.readValue(json, type);
+        List<Map<String, String>> second = objectMapper.readValue(json, type);
+
+        // short values are shared within and across documents
+        assertSame(first.get(0).get("code"), first.get(1).get("code"));
+        assertSame(first.get(0).get("code"), second.get(0).get("code"));
+
+        // long values are not pooled
+        assertNotSame(first.get(0).get("text"), first.get(1).get("text"));
+    }
+
+}
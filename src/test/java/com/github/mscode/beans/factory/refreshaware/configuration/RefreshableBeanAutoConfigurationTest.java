@@ -1,9 +1,13 @@
 package com.github.mscode.beans.factory.refreshaware.configuration;
 
 import com.github.mscode.beans.factory.refreshaware.ProxyBasedRefreshAwareFactoryBean;
+import com.github.mscode.beans.factory.refreshaware.RefreshAdmissionController;
+import com.github.mscode.beans.factory.refreshaware.RefreshableBean;
 import com.github.mscode.beans.factory.refreshaware.data.Model;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.context.annotation.UserConfigurations;
 import org.springframework.boot.context.event.ApplicationStartedEvent;
@@ -17,10 +21,13 @@ import org.springframework.scheduling.Trigger;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.support.PeriodicTrigger;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
@@ -79,6 +86,113 @@ public class RefreshableBeanAutoConfigurationTest {
                 });
     }
 
+    @Test
+    public void refresh_staggered() {
+        contextRunner.withConfiguration(userConfigurations)
+                .withConfiguration(autoConfigurations)
+                .withPropertyValues("beans.factory.refresh.fixed-rate: 1m")
+                .withPropertyValues("beans.factory.refresh.stagger: cluster")
+                .withPropertyValues("beans.factory.refresh.node-id: node-1")
+                .run(context -> {
+                    TaskScheduler taskScheduler = context.getBean(TaskScheduler.class);
+
+                    Model model = context.getBean(Model.class);
+                    assertEquals("model", model.getName());
+
+                    Instant start = Instant.now();
+
+                    // call scheduler
+                    context.publishEvent(mock(ApplicationStartedEvent.class));
+                    verify(taskScheduler, times(1)).schedule(any(Runnable.class), any(Trigger.class));
+
+                    // refresh is postponed by bean offset within stagger window
+                    ArgumentCaptor<Instant> captor = ArgumentCaptor.forClass(Instant.class);
+                    verify(taskScheduler, times(1)).schedule(any(Runnable.class), captor.capture());
+                    assertThat(captor.getValue()).isBetween(start, Instant.now().plus(Duration.ofMinutes(1)));
+
+                    assertEquals("model", model.getName());
+                });
+    }
+
+    @Test
+    public void refresh_jitter() {
+        contextRunner.withConfiguration(userConfigurations)
+                .withConfiguration(autoConfigurations)
+                .withPropertyValues("beans.factory.refresh.fixed-delay: 1m")
+                .withPropertyValues("beans.factory.refresh.initial-delay: 0s")
+                .withPropertyValues("beans.factory.refresh.jitter: 1h")
+                .run(context -> {
+                    TaskScheduler taskScheduler = context.getBean(TaskScheduler.class);
+                    RefreshableBeanAutoConfiguration configuration = context.getBean(RefreshableBeanAutoConfiguration.class);
+                    String name = BeanFactoryUtils.transformedBeanName(context.getBeanNamesForType(RefreshableBean.class)[0]);
+                    Model model = context.getBean(Model.class);
+
+                    ArgumentCaptor<Runnable> tasks = ArgumentCaptor.forClass(Runnable.class);
+                    ArgumentCaptor<Instant> times = ArgumentCaptor.forClass(Instant.class);
+
+                    // call scheduler, first round is scheduled after initial delay
+                    Instant start = Instant.now();
+                    context.publishEvent(mock(ApplicationStartedEvent.class));
+                    verify(taskScheduler, times(1)).schedule(tasks.capture(), times.capture());
+                    tasks.getValue().run();
+
+                    // jitter is kept below fixed delay and round is not completed before the refresh
+                    verify(taskScheduler, times(2)).schedule(tasks.capture(), times.capture());
+                    assertThat(times.getValue()).isBetween(start, Instant.now().plus(Duration.ofMinutes(1)));
+                    assertEquals("model", model.getName());
+
+                    // next round follows completion of the delayed refresh by fixed delay
+                    Instant refreshed = Instant.now();
+                    tasks.getValue().run();
+                    assertEquals("refreshed model", model.getName());
+
+                    verify(taskScheduler, times(3)).schedule(tasks.capture(), times.capture());
+                    assertThat(times.getValue()).isBetween(refreshed.plus(Duration.ofMinutes(1)), Instant.now().plus(Duration.ofMinutes(1)));
+                    assertThat(configuration.getNextRefresh(name)).isAfterOrEqualTo(refreshed.plus(Duration.ofMinutes(1)));
+                });
+    }
+
+    @Test
+    public void refresh_nextRefresh() {
+        contextRunner.withConfiguration(userConfigurations)
+                .withConfiguration(autoConfigurations)
+                .withPropertyValues("beans.factory.refresh.fixed-delay: 1m")
+                .run(context -> {
+                    RefreshableBeanAutoConfiguration configuration = context.getBean(RefreshableBeanAutoConfiguration.class);
+                    String name = BeanFactoryUtils.transformedBeanName(context.getBeanNamesForType(RefreshableBean.class)[0]);
+                    assertNull(configuration.getNextRefresh(name));
+
+                    // call scheduler, refresh runs immediately
+                    Instant start = Instant.now();
+                    context.publishEvent(mock(ApplicationStartedEvent.class));
+
+                    // next refresh follows completion of the previous one by fixed delay
+                    assertThat(configuration.getNextRefresh(name))
+                            .isBetween(start.plus(Duration.ofMinutes(1)), Instant.now().plus(Duration.ofMinutes(1)));
+                    assertNull(configuration.getNextRefresh("unknown"));
+                });
+    }
+
+    @Test
+    public void refresh_admission() {
+        contextRunner.withConfiguration(userConfigurations)
+                .withConfiguration(autoConfigurations)
+                .withPropertyValues("beans.factory.refresh.admission.enabled: true")
+                .withPropertyValues("beans.factory.refresh.admission.heap-fraction: 0.9")
+                .run(context -> {
+                    assertThat(context).hasSingleBean(RefreshAdmissionController.class);
+
+                    Model model = context.getBean(Model.class);
+                    assertEquals("model", model.getName());
+
+                    // call scheduler, refresh is admitted since no other refresh is in progress
+                    context.publishEvent(mock(ApplicationStartedEvent.class));
+
+                    assertEquals("refreshed model", model.getName());
+                    assertEquals(0, context.getBean(RefreshAdmissionController.class).getReserved());
+                });
+    }
+
     @TestComponent
     static class TestProxyBasedRefreshAwareFactoryBean
             extends ProxyBasedRefreshAwareFactoryBean<Model> {
@@ -0,0 +1,179 @@
+package com.github.mscode.beans.factory.refreshaware.configuration;
+
+import com.github.mscode.beans.factory.refreshaware.ProxyBasedRefreshAwareFactoryBean;
+import com.github.mscode.beans.factory.refreshaware.configuration.RefreshableBeansEndpoint.RefreshableBeanDescriptor;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RefreshableBeanEndpointAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(RefreshableBeanEndpointAutoConfiguration.class))
+            .withPropertyValues("management.endpoints.enabled-by-default=true", "management.endpoints.web.exposure.include=*");
+
+    @Test
+    void refreshables() {
+        contextRunner
+                .withBean("numbers", NumbersFactoryBean.class)
+                .run(context -> {
+                    assertThat(context).hasSingleBean(RefreshableBeansEndpoint.class);
+                    assertThat(context).doesNotHaveBean(RefreshableBeansHealthIndicator.class);
+
+                    RefreshableBeansEndpoint endpoint = context.getBean(RefreshableBeansEndpoint.class);
+                    Map<String, RefreshableBeanDescriptor> descriptors = endpoint.refreshables();
+                    assertEquals(1, descriptors.size());
+
+                    RefreshableBeanDescriptor descriptor = descriptors.get("numbers");
+                    assertEquals(List.class.getName(), descriptor.getType());
+                    assertEquals(1, descriptor.getGeneration());
+                    assertNotNull(descriptor.getLastRefresh());
+                    assertNotNull(descriptor.getLastRefreshDuration());
+                    assertNull(descriptor.getLastError());
+                    assertFalse(descriptor.isFailing());
+                    assertEquals("numbers.txt", descriptor.getSource());
+                    assertNull(descriptor.getNextRefresh());
+
+                    assertNull(endpoint.refreshable("unknown"));
+                });
+    }
+
+    @Test
+    void refresh() {
+        contextRunner
+                .withBean("numbers", NumbersFactoryBean.class)
+                .run(context -> {
+                    RefreshableBeansEndpoint endpoint = context.getBean(RefreshableBeansEndpoint.class);
+                    assertEquals(List.of("numbers"), endpoint.refresh("numbers"));
+                    assertNull(endpoint.refresh("unknown"));
+
+                    long deadline = System.currentTimeMillis() + 5000;
+                    while (endpoint.refreshable("numbers").getGeneration() < 2 && System.currentTimeMillis() < deadline) {
+                        Thread.sleep(10);
+                    }
+
+                    // shouldRefresh is bypassed
+                    assertEquals(2, endpoint.refreshable("numbers").getGeneration());
+                    assertEquals(0, context.getBean(NumbersFactoryBean.class).checks.get());
+                });
+    }
+
+    @Test
+    void refresh_afterDestroy() throws Exception {
+        NumbersFactoryBean numbers = new NumbersFactoryBean();
+        numbers.afterPropertiesSet();
+
+        RefreshableBeansEndpoint endpoint = new RefreshableBeansEndpoint(Map.of("numbers", numbers), name -> null);
+        endpoint.destroy();
+
+        // own executor is shut down, so refresh is rejected
+        assertEquals(List.of("numbers"), endpoint.refresh("numbers"));
+        Thread.sleep(100);
+        assertEquals(1, numbers.getGeneration());
+    }
+
+    @Test
+    void health() {
+        contextRunner
+                .withBean("numbers", NumbersFactoryBean.class)
+                .withPropertyValues("beans.factory.refresh.health.enabled=true", "beans.factory.refresh.health.max-age=1m")
+                .run(context -> {
+                    RefreshableBeansHealthIndicator indicator = context.getBean(RefreshableBeansHealthIndicator.class);
+                    assertEquals(Status.UP, indicator.health().getStatus());
+
+                    NumbersFactoryBean numbers = context.getBean(NumbersFactoryBean.class);
+                    numbers.failing = true;
+                    numbers.refresh();
+
+                    RefreshableBeanDescriptor descriptor = context.getBean(RefreshableBeansEndpoint.class).refreshable("numbers");
+                    assertTrue(descriptor.isFailing());
+                    assertNotNull(descriptor.getLastError());
+                    assertEquals(Status.DOWN, indicator.health().getStatus());
+                    assertEquals(List.of("numbers"), indicator.health().getDetails().get("failing"));
+
+                    numbers.failing = false;
+                    numbers.refresh();
+                    assertEquals(Status.UP, indicator.health().getStatus());
+                });
+    }
+
+    @Test
+    void health_stale() throws Exception {
+        NumbersFactoryBean numbers = new NumbersFactoryBean();
+        numbers.afterPropertiesSet();
+
+        RefreshableBeansHealthIndicator indicator = new RefreshableBeansHealthIndicator(Map.of("&numbers", numbers), Duration.ZERO);
+        assertEquals(Status.DOWN, indicator.health().getStatus());
+        assertEquals(List.of("numbers"), indicator.health().getDetails().get("stale"));
+    }
+
+    @Test
+    void health_neverChecked() throws Exception {
+        NumbersFactoryBean numbers = new NumbersFactoryBean();
+        numbers.broken = true;
+        numbers.afterPropertiesSet();
+        assertNull(numbers.getStatistics().getLastCheck());
+
+        Clock later = Clock.offset(Clock.systemUTC(), Duration.ofMinutes(2));
+        RefreshableBeansHealthIndicator indicator = new RefreshableBeansHealthIndicator(Map.of("&numbers", numbers), Duration.ofMinutes(1), later);
+        assertEquals(Status.DOWN, indicator.health().getStatus());
+        assertEquals(List.of("numbers"), indicator.health().getDetails().get("stale"));
+    }
+
+    static class NumbersFactoryBean extends ProxyBasedRefreshAwareFactoryBean<List<Integer>> {
+
+        private final AtomicInteger checks = new AtomicInteger();
+
+        private volatile boolean failing;
+
+        private volatile boolean broken;
+
+        NumbersFactoryBean() {
+            reportSource("numbers.txt", null);
+        }
+
+        @Override
+        public void afterPropertiesSet() throws Exception {
+            super.afterPropertiesSet();
+            checks.set(0);
+        }
+
+        @Override
+        protected List<Integer> createInstance() throws Exception {
+            if (broken) {
+                throw new IllegalStateException("numbers.txt is broken");
+            }
+            return List.of(1, 2);
+        }
+
+        @Override
+        protected List<Integer> createDummyInstance() {
+            return List.of();
+        }
+
+        @Override
+        protected boolean shouldRefresh() throws Exception {
+            checks.incrementAndGet();
+            if (failing) {
+                throw new IllegalStateException("numbers.txt is not readable");
+            }
+            return false;
+        }
+
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.github.mscode.beans.factory.refreshaware.configuration;
+
+import com.github.mscode.beans.factory.refreshaware.ProxyBasedRefreshAwareFactoryBean;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RefreshableBeanGenericsAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(RefreshableBeanGenericsAutoConfiguration.class));
+
+    @Test
+    void autowireByGenericType() {
+        contextRunner
+                .withBean("numbers", NumbersFactoryBean.class)
+                .withBean("names", NamesFactoryBean.class)
+                .withBean(TestService.class)
+                .run(context -> {
+                    TestService service = context.getBean(TestService.class);
+                    assertEquals(List.of(1, 2), service.numbers);
+                    assertEquals(List.of("first", "second"), service.names);
+                });
+    }
+
+    @Test
+    void autowireByGenericType_factoryMethod() {
+        contextRunner
+                .withUserConfiguration(TestConfiguration.class)
+                .withBean(TestService.class)
+                .run(context -> {
+                    TestService service = context.getBean(TestService.class);
+                    assertEquals(List.of(1, 2), service.numbers);
+                    assertEquals(List.of("first", "second"), service.names);
+                });
+    }
+
+    @Test
+    void autowireByGenericType_rawSubclass() {
+        contextRunner
+                .withBean("numbers", RawNumbersFactoryBean.class)
+                .withBean("names", NamesFactoryBean.class)
+                .withBean(TestService.class)
+                .run(context -> {
+                    TestService service = context.getBean(TestService.class);
+                    assertEquals(List.of(1, 2), service.numbers);
+                    assertEquals(List.of("first", "second"), service.names);
+                });
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    static class TestConfiguration {
+
+        @Bean
+        public ProxyBasedRefreshAwareFactoryBean<List<Integer>> numbers() {
+            return new NumbersFactoryBean();
+        }
+
+        @Bean
+        public ProxyBasedRefreshAwareFactoryBean<List<String>> names() {
+            return new NamesFactoryBean();
+        }
+
+    }
+
+    static class TestService {
+
+        private final List<Integer> numbers;
+
+        private final List<String> names;
+
+        TestService(List<Integer> numbers, List<String> names) {
+            this.numbers = numbers;
+            this.names = names;
+        }
+
+    }
+
+    static class NumbersFactoryBean extends ProxyBasedRefreshAwareFactoryBean<List<Integer>> {
+
+        @Override
+        protected List<Integer> createInstance() throws Exception {
+            return List.of(1, 2);
+        }
+
+        @Override
+        protected boolean shouldRefresh() throws Exception {
+            return false;
+        }
+
+    }
+
+    @SuppressWarnings("rawtypes")
+    static class RawNumbersFactoryBean extends ProxyBasedRefreshAwareFactoryBean {
+
+        @Override
+        protected List<Integer> createInstance() throws Exception {
+            return List.of(1, 2);
+        }
+
+        @Override
+        protected boolean shouldRefresh() throws Exception {
+            return false;
+        }
+
+    }
+
+    static class NamesFactoryBean extends ProxyBasedRefreshAwareFactoryBean<List<String>> {
+
+        @Override
+        protected List<String> createInstance() throws Exception {
+            return List.of("first", "second");
+        }
+
+        @Override
+        protected boolean shouldRefresh() throws Exception {
+            return false;
+        }
+
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.github.mscode.beans.factory.refreshaware.configuration;
+
+import com.github.mscode.beans.factory.refreshaware.ObjectGraphSizer;
+import com.github.mscode.beans.factory.refreshaware.ProxyBasedRefreshAwareFactoryBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RefreshableBeanMetricsAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(RefreshableBeanMetricsAutoConfiguration.class));
+
+    @Test
+    void bindTo() {
+        contextRunner
+                .withBean("numbers", NumbersFactoryBean.class)
+                .run(context -> {
+                    assertThat(context).hasSingleBean(RefreshableBeanMetrics.class);
+
+                    MeterRegistry registry = new SimpleMeterRegistry();
+                    context.getBean(RefreshableBeanMetrics.class).bindTo(registry);
+
+                    assertEquals(1, registry.get("refreshable.generation").tag("bean", "numbers").gauge().value());
+                    assertTrue(registry.get("refreshable.instance.size").tag("bean", "numbers").gauge().value() > 0);
+                    assertTrue(Double.isNaN(registry.get("refreshable.overlap").tag("bean", "numbers").timeGauge().value()));
+                });
+    }
+
+    static class NumbersFactoryBean extends ProxyBasedRefreshAwareFactoryBean<List<Integer>> {
+
+        NumbersFactoryBean() {
+            setSizer(new ObjectGraphSizer());
+        }
+
+        @Override
+        protected List<Integer> createInstance() throws Exception {
+            return List.of(1, 2);
+        }
+
+        @Override
+        protected boolean shouldRefresh() throws Exception {
+            return false;
+        }
+
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.github.mscode.beans.factory.refreshaware.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects records as maps of field indexes to values.
+ */
+class CollectingRecordSink implements RecordSink {
+
+    final List<Map<Integer, Object>> records = new ArrayList<>();
+
+    private Map<Integer, Object> record = new TreeMap<>();
+
+    @Override
+    public void onLong(int field, long value) {
+        record.put(field, value);
+    }
+
+    @Override
+    public void onDouble(int field, double value) {
+        record.put(field, value);
+    }
+
+    @Override
+    public void onBoolean(int field, boolean value) {
+        record.put(field, value);
+    }
+
+    @Override
+    public void onBytes(int field, ByteBuffer value) {
+        record.put(field, StandardCharsets.UTF_8.decode(value).toString());
+    }
+
+    @Override
+    public void onNull(int field) {
+        record.put(field, null);
+    }
+
+    @Override
+    public void endRecord() {
+        records.add(record);
+        record = new TreeMap<>();
+    }
+
+}
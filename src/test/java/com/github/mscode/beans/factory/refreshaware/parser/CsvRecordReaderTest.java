@@ -0,0 +1,76 @@
+package com.github.mscode.beans.factory.refreshaware.parser;
+
+import com.github.mscode.beans.factory.refreshaware.parser.CsvRecordReader.FieldType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvRecordReaderTest {
+
+    @Test
+    void read() {
+        CsvRecordReader reader = new CsvRecordReader(FieldType.LONG, FieldType.BYTES, FieldType.DOUBLE, FieldType.BOOLEAN, FieldType.SKIP);
+        CollectingRecordSink sink = new CollectingRecordSink();
+
+        ByteBuffer buffer = utf8("1,plain,1.5,true,skipped\r\n"
+                + "\n"
+                + "-9223372036854775808,\"quoted, \"\"escaped\"\"\nvalue\",-2.5e-3,FALSE\n"
+                + "3,,,\n"
+                + "4,\"\",0.1234567890123456789");
+
+        assertEquals(4, reader.read(buffer, true, sink));
+        assertEquals(buffer.limit(), buffer.position());
+        assertEquals(List.of(
+                Map.of(0, 1L, 1, "plain", 2, 1.5, 3, true),
+                Map.of(0, Long.MIN_VALUE, 1, "quoted, \"escaped\"\nvalue", 2, -2.5e-3, 3, false),
+                record(0, 3L, 1, null, 2, null, 3, null),
+                Map.of(0, 4L, 1, "", 2, 0.1234567890123456789)
+        ), sink.records);
+    }
+
+    @Test
+    void read_incomplete() {
+        CsvRecordReader reader = new CsvRecordReader(FieldType.LONG, FieldType.BYTES);
+        reader.setSeparator(';');
+        CollectingRecordSink sink = new CollectingRecordSink();
+
+        ByteBuffer buffer = utf8("1;first\n2;\"sec\nond");
+
+        // incomplete quoted record is left in the buffer
+        assertEquals(1, reader.read(buffer, false, sink));
+        assertEquals(8, buffer.position());
+
+        assertEquals(1, reader.read(utf8("2;\"sec\nond\"\n"), false, sink));
+        assertEquals(List.of(Map.of(0, 1L, 1, "first"), Map.of(0, 2L, 1, "sec\nond")), sink.records);
+    }
+
+    @Test
+    void read_invalid() {
+        CsvRecordReader reader = new CsvRecordReader(FieldType.LONG);
+
+        assertThrows(NumberFormatException.class, () -> reader.read(utf8("12a\n"), true, new CollectingRecordSink()));
+        assertThrows(NumberFormatException.class, () -> reader.read(utf8("9223372036854775808\n"), true, new CollectingRecordSink()));
+        assertThrows(IllegalArgumentException.class, () -> reader.read(utf8("\"1\n"), true, new CollectingRecordSink()));
+    }
+
+    static ByteBuffer utf8(String content) {
+        return ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Map<Integer, Object> record(Object... entries) {
+        Map<Integer, Object> record = new HashMap<>();
+        for (int i = 0; i < entries.length; i += 2) {
+            record.put((Integer) entries[i], entries[i + 1]);
+        }
+        return record;
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.github.mscode.beans.factory.refreshaware.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.mscode.beans.factory.refreshaware.parser.CsvRecordReaderTest.record;
+import static com.github.mscode.beans.factory.refreshaware.parser.CsvRecordReaderTest.utf8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NdjsonRecordReaderTest {
+
+    @Test
+    void read() {
+        NdjsonRecordReader reader = new NdjsonRecordReader("id", "name", "price", "active", "tags");
+        CollectingRecordSink sink = new CollectingRecordSink();
+
+        //language=json
+        ByteBuffer buffer = utf8("{\"id\": 1, \"name\": \"first\", \"price\": 1.5, \"active\": true, \"unknown\": {\"a\": [1, \"}\"]}}\r\n"
+                + "\n"
+                + "{\"tags\": [\"a\", {\"b\": null}], \"n\\u0061me\": \"tab\\tquote\\\" \\u00e9\\ud83d\\ude00\", \"id\": 12345678901234567890}\n"
+                + "{\"active\": false, \"price\": -2E2, \"name\": null}\n"
+                + "{}");
+
+        assertEquals(4, reader.read(buffer, true, sink));
+        assertEquals(buffer.limit(), buffer.position());
+        assertEquals(List.of(
+                Map.of(0, 1L, 1, "first", 2, 1.5, 3, true),
+                Map.of(0, 12345678901234567890d, 1, "tab\tquote\" é😀", 4, "[\"a\", {\"b\": null}]"),
+                record(1, null, 2, -200.0, 3, false),
+                Map.of()
+        ), sink.records);
+    }
+
+    @Test
+    void read_incomplete() {
+        NdjsonRecordReader reader = new NdjsonRecordReader("id");
+        CollectingRecordSink sink = new CollectingRecordSink();
+
+        ByteBuffer buffer = utf8("{\"id\": 1}\n{\"id\": 2");
+
+        assertEquals(1, reader.read(buffer, false, sink));
+        assertEquals(10, buffer.position());
+        assertEquals(List.of(Map.of(0, 1L)), sink.records);
+    }
+
+    @Test
+    void read_invalid() {
+        NdjsonRecordReader reader = new NdjsonRecordReader("id");
+
+        assertThrows(IllegalArgumentException.class, () -> reader.read(utf8("{\"id\": 1\n"), true, new CollectingRecordSink()));
+        assertThrows(IllegalArgumentException.class, () -> reader.read(utf8("{\"id\": tru}\n"), true, new CollectingRecordSink()));
+        assertThrows(IllegalArgumentException.class, () -> reader.read(utf8("[1]\n"), true, new CollectingRecordSink()));
+        assertThrows(NumberFormatException.class, () -> reader.read(utf8("{\"id\": 1-2}\n"), true, new CollectingRecordSink()));
+    }
+
+}